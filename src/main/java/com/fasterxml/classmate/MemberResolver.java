@@ -5,6 +5,7 @@ import java.util.*;
 
 import com.fasterxml.classmate.members.*;
 import com.fasterxml.classmate.util.ClassKey;
+import com.fasterxml.classmate.util.ResolutionRecorder;
 
 /**
  * Builder class used to completely resolve members (fields, methods,
@@ -56,6 +57,14 @@ public class MemberResolver implements Serializable
      * constructors.
      */
     protected Filter<RawConstructor> _constructorFilter;
+
+    /**
+     * Optional recorder used for recording types for which members are
+     * resolved, if any. Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient ResolutionRecorder _recorder;
     
     /*
     /**********************************************************************
@@ -96,6 +105,18 @@ public class MemberResolver implements Serializable
         _constructorFilter = f;
         return this;
     }
+
+    /**
+     * Configuration method for specifying recorder to use for recording types
+     * for which members are resolved (for "training runs"; see
+     * {@link ResolutionRecorder} for details), if any.
+     *
+     * @since 1.7.4
+     */
+    public MemberResolver setRecorder(ResolutionRecorder r) {
+        _recorder = r;
+        return this;
+    }
     
     /*
     /**********************************************************************
@@ -117,6 +138,9 @@ public class MemberResolver implements Serializable
             AnnotationConfiguration annotationConfig,
             AnnotationOverrides annotationOverrides)
     {
+        if (_recorder != null) {
+            _recorder.recordMemberResolution(mainType);
+        }
         List<ResolvedType> types;
         HashSet<ClassKey> seenTypes = new HashSet<ClassKey>();
 
@@ -0,0 +1,75 @@
+package com.fasterxml.classmate;
+
+import java.util.*;
+
+/**
+ * Results of resolving a set of candidate subtypes of a single supertype,
+ * as returned by {@link TypeResolver#resolveSubtypes}: resolved subtypes
+ * for candidates that could be resolved, and exceptions for ones that could not
+ * (ones that {@link TypeResolver#resolveSubtype} would have thrown).
+ * Both are ordered in the order candidates were given.
+ *
+ * @since 1.7.4
+ */
+public class ResolvedSubtypes
+{
+    protected final ResolvedType _supertype;
+
+    protected final Map<Class<?>, ResolvedType> _resolved;
+
+    protected final Map<Class<?>, RuntimeException> _failures;
+
+    public ResolvedSubtypes(ResolvedType supertype,
+            Map<Class<?>, ResolvedType> resolved, Map<Class<?>, RuntimeException> failures)
+    {
+        _supertype = supertype;
+        _resolved = Collections.unmodifiableMap(resolved);
+        _failures = Collections.unmodifiableMap(failures);
+    }
+
+    public ResolvedType getSupertype() {
+        return _supertype;
+    }
+
+    /**
+     * @return Resolved subtypes, keyed by candidate subtype class
+     */
+    public Map<Class<?>, ResolvedType> getResolved() {
+        return _resolved;
+    }
+
+    /**
+     * @return Exceptions ({@link IllegalArgumentException}s or
+     *    {@link UnsupportedOperationException}s) for candidates that could not
+     *    be resolved, keyed by candidate subtype class
+     */
+    public Map<Class<?>, RuntimeException> getFailures() {
+        return _failures;
+    }
+
+    /**
+     * @return Resolved subtype for given candidate class, if resolution succeeded;
+     *    null otherwise
+     */
+    public ResolvedType get(Class<?> subtype) {
+        return _resolved.get(subtype);
+    }
+
+    /**
+     * @return Exception for given candidate class, if resolution failed;
+     *    null otherwise
+     */
+    public RuntimeException getFailure(Class<?> subtype) {
+        return _failures.get(subtype);
+    }
+
+    public boolean hasFailures() {
+        return !_failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "[ResolvedSubtypes of "+_supertype.getBriefDescription()+": "+_resolved.size()
+                +" resolved, "+_failures.size()+" failed]";
+    }
+}
@@ -167,6 +167,98 @@ public abstract class ResolvedType
         // nope; doesn't look like we extend or implement super type in question
         return null;
     }
+
+    /**
+     * Method for checking whether a value of given type could be assigned to
+     * a variable of this type, taking into account type parameters as well as
+     * type-erased classes. As with Java generics, type parameters are invariant:
+     * they must be the same types (so, for example, <code>List&lt;String&gt;</code>
+     * is not assignable to <code>List&lt;Object&gt;</code>); only array types are
+     * covariant. Since resolved types do not retain information on wildcards
+     * (<code>? extends CharSequence</code> is resolved as its bound,
+     * <code>CharSequence</code>), this means that for types resolved from
+     * wildcard types (or raw types, resolved using bounds of type parameters),
+     * check may fail for assignments Java would allow; but it does not succeed
+     * for ones Java would not allow (except for unchecked conversions from types
+     * that extend raw types).
+     * For self-referential types only type-erased classes are compared.
+     *<p>
+     * Note: results are not cached; see {@link TypeResolver#isAssignableFrom}
+     * for memoized alternative.
+     *
+     * @since 1.7.4
+     */
+    public boolean isAssignableFrom(ResolvedType type)
+    {
+        if (type == this) {
+            return true;
+        }
+        // Primitive types only assignable to same (no boxing or widening here)
+        if (isPrimitive() || type.isPrimitive()) {
+            return _erasedType == type._erasedType;
+        }
+        if (!_erasedType.isAssignableFrom(type._erasedType)) {
+            return false;
+        }
+        if (isArray()) { // arrays are covariant as well
+            return getArrayElementType().isAssignableFrom(type.getArrayElementType());
+        }
+        // No need to check type parameters of self-references, which are only
+        // used for breaking cycles
+        if (getSelfReferencedType() != null || type.getSelfReferencedType() != null) {
+            return true;
+        }
+        final int len = _typeBindings.size();
+        if (len == 0) {
+            return true;
+        }
+        ResolvedType match = type.findSupertype(_erasedType);
+        if (match == null) { // should not occur since erased types are compatible
+            return false;
+        }
+        TypeBindings matchBindings = match._typeBindings;
+        if (matchBindings.size() != len) { // raw type
+            return matchBindings.isEmpty();
+        }
+        for (int i = 0; i < len; ++i) {
+            if (!_sameType(_typeBindings.getBoundType(i), matchBindings.getBoundType(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method for checking whether given types are the same, based on
+     * erased types and (recursively) type parameters and array element types only;
+     * unlike {@link #equals}, self-references are considered same as types they
+     * refer to.
+     */
+    private static boolean _sameType(ResolvedType t1, ResolvedType t2)
+    {
+        if (t1 == t2) {
+            return true;
+        }
+        if (t1._erasedType != t2._erasedType) {
+            return false;
+        }
+        ResolvedType elem1 = t1.getArrayElementType();
+        if (elem1 != null) {
+            return _sameType(elem1, t2.getArrayElementType());
+        }
+        // note: bindings of self-references are never cyclic, so recursion terminates
+        TypeBindings b1 = t1._typeBindings, b2 = t2._typeBindings;
+        final int len = b1.size();
+        if (b2.size() != len) {
+            return false;
+        }
+        for (int i = 0; i < len; ++i) {
+            if (!_sameType(b1.getBoundType(i), b2.getBoundType(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
     
     /*
     /**********************************************************************
@@ -1,14 +1,26 @@
 package com.fasterxml.classmate;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import com.fasterxml.classmate.types.*;
 import com.fasterxml.classmate.util.ClassKey;
 import com.fasterxml.classmate.util.ClassStack;
+import com.fasterxml.classmate.util.LRUMap;
+import com.fasterxml.classmate.util.ResolutionRecorder;
 import com.fasterxml.classmate.util.ResolvedTypeCache;
 import com.fasterxml.classmate.util.ResolvedTypeKey;
+import com.fasterxml.classmate.util.SubtypeIndex;
+import com.fasterxml.classmate.util.TypeExpressions;
+import com.fasterxml.classmate.util.TypeSignatures;
+import com.fasterxml.classmate.util.TypeResolutionProfiler;
 
 /**
  * Object that is used for resolving generic type information of a class
@@ -72,6 +84,107 @@ public class TypeResolver implements Serializable
      */
     protected final ResolvedTypeCache _resolvedTypes;
 
+    /**
+     * Default number of entries for per-thread caches, enabled using
+     * {@link #withThreadLocalCache()}: small enough for arrays of the cache to
+     * fit in CPU L1 cache.
+     *
+     * @since 1.7.4
+     */
+    public final static int DEFAULT_THREAD_LOCAL_CACHE_ENTRIES = 64;
+
+    /**
+     * Optional per-thread caches used in front of {@link #_resolvedTypes}, if enabled.
+     * Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient ThreadLocal<ThreadLocalTypeCache> _threadCaches;
+
+    /**
+     * Number of entries in per-thread caches, if enabled; 0 if not.
+     *
+     * @since 1.7.4
+     */
+    protected transient int _threadCacheEntries;
+
+    /**
+     * Maximum number of results (successful or not) of {@link #resolveSubtype}
+     * to cache.
+     *
+     * @since 1.7.4
+     */
+    public final static int SUBTYPE_CACHE_ENTRIES = 200;
+
+    /**
+     * Cache of results of {@link #resolveSubtype}; lazily constructed. Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient volatile SubtypeCache _subtypeCache;
+
+    /**
+     * Number of entries in the memo of results of {@link #isAssignableFrom}
+     *
+     * @since 1.7.4
+     */
+    public final static int ASSIGNABILITY_CACHE_ENTRIES = 1024;
+
+    /**
+     * Memo of results of {@link #isAssignableFrom}; lazily constructed. Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient volatile AssignabilityCache _assignabilityCache;
+
+    /**
+     * Maximum number of types resolved from type expressions and signatures (see
+     * {@link #resolve(String, ClassLoader)} and {@link #parseSignature}) to cache.
+     *
+     * @since 1.7.4
+     */
+    public final static int PARSE_CACHE_ENTRIES = 200;
+
+    /**
+     * Cache of types resolved from type expressions and signatures; lazily constructed.
+     * Not serialized.
+     * Neither class loaders (in keys) nor types are held strongly, so that class
+     * loaders are not kept reachable after their types are removed from type cache.
+     *
+     * @since 1.7.4
+     */
+    protected transient volatile GenerationalCache<ParseKey, WeakReference<ResolvedType>> _parseCache;
+
+    /*
+    /**********************************************************************
+    /* Diagnostics
+    /**********************************************************************
+     */
+
+    /**
+     * Optional profiler used for collecting statistics on resolution, if any.
+     * Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient TypeResolutionProfiler _profiler;
+
+    /**
+     * Optional recorder used for recording types resolved, if any.
+     * Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient ResolutionRecorder _recorder;
+
+    /**
+     * Optional index of subtypes, to which all types constructed are added, if any.
+     * Not serialized.
+     *
+     * @since 1.7.4
+     */
+    protected transient SubtypeIndex _subtypeIndex;
+
     /*
     /**********************************************************************
     /* Life cycle
@@ -83,6 +196,8 @@ public class TypeResolver implements Serializable
      *<pre> 
      *   TypeResolver(ResolvedTypeCache.lruCache(200));
      *</pre>
+     * To have cache size adjusted based on observed access patterns, use
+     * {@link ResolvedTypeCache#adaptiveCache(int, int)} instead.
      */
     public TypeResolver() {
         this(ResolvedTypeCache.lruCache(200));
@@ -100,6 +215,220 @@ public class TypeResolver implements Serializable
         _resolvedTypes = typeCache;
     }
 
+    /**
+     * Copy constructor used by fluent factory methods: constructs a resolver
+     * that has same configuration as given base resolver, but uses specified
+     * type cache.
+     *
+     * @since 1.7.4
+     */
+    protected TypeResolver(TypeResolver base, ResolvedTypeCache typeCache) {
+        _resolvedTypes = typeCache;
+        _profiler = base._profiler;
+        _recorder = base._recorder;
+        _subtypeIndex = base._subtypeIndex;
+        // per-thread caches (and subtype cache) may be shared if underlying cache is;
+        // this includes batch caches of resolveAll(), which contain the same types
+        if (typeCache == base._resolvedTypes
+                || ((typeCache instanceof BatchTypeCache)
+                        && ((BatchTypeCache) typeCache)._shared == base._resolvedTypes)) {
+            _threadCaches = base._threadCaches;
+            _subtypeCache = base._subtypeCache();
+            _parseCache = base._parseCache();
+            _assignabilityCache = base._assignabilityCache();
+        } else {
+            _threadCaches = _threadCaches(base._threadCacheEntries, typeCache);
+        }
+        _threadCacheEntries = base._threadCacheEntries;
+    }
+
+    /**
+     * Fluent factory method for constructing a resolver that shares type cache
+     * with this resolver, but uses specified profiler to collect statistics
+     * on resolution (or, if null passed, does not profile).
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver withProfiler(TypeResolutionProfiler profiler) {
+        TypeResolver r = new TypeResolver(this, _resolvedTypes);
+        r._profiler = profiler;
+        return r;
+    }
+
+    /**
+     * Fluent factory method for constructing a resolver that shares type cache
+     * with this resolver, but uses specified recorder to record all types
+     * it constructs (or, if null passed, does not record).
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver withRecorder(ResolutionRecorder recorder) {
+        TypeResolver r = new TypeResolver(this, _resolvedTypes);
+        r._recorder = recorder;
+        return r;
+    }
+
+    /**
+     * Fluent factory method for constructing a resolver that shares type cache
+     * with this resolver, but also maintains a new {@link SubtypeIndex} of types
+     * it constructs, accessible using {@link #getSubtypeIndex()}.
+     * Index is initialized with well-known JDK types (see
+     * {@link #withSubtypeIndex(SubtypeIndex)}), as well as types contained in
+     * the type cache (if it supports access to all entries); types constructed
+     * later by other resolvers that share the cache are not included.
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver withSubtypeIndex()
+    {
+        SubtypeIndex index = new SubtypeIndex();
+        try {
+            for (ResolvedType type : _resolvedTypes.snapshotEntries().values()) {
+                index.add(type);
+            }
+        } catch (UnsupportedOperationException e) {
+            // fine, cache does not support access, index starts with new types only
+        }
+        return withSubtypeIndex(index);
+    }
+
+    /**
+     * Fluent factory method for constructing a resolver that shares type cache
+     * with this resolver, but adds all types it constructs to given
+     * {@link SubtypeIndex} (or, if null passed, does not maintain index).
+     * Well-known JDK types (which are shared by all resolvers, so never
+     * constructed) are added to index first.
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver withSubtypeIndex(SubtypeIndex index) {
+        if (index != null) {
+            for (ResolvedType type : BootstrapTypes.TYPES.values()) {
+                index.add(type);
+            }
+        }
+        TypeResolver r = new TypeResolver(this, _resolvedTypes);
+        r._subtypeIndex = index;
+        return r;
+    }
+
+    /**
+     * Method for constructing a resolver with same configuration as this resolver,
+     * but with its own immutable copy of current contents of the type cache
+     * (see {@link ResolvedTypeCache#freeze()}), along with a small mutable cache for
+     * types not included. This allows "warming up" one resolver and then handing
+     * copies to subsystems that can access types without contention (and without
+     * affecting each other).
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver snapshot() {
+        return new TypeResolver(this, _resolvedTypes.freeze());
+    }
+
+    /**
+     * Alternative to {@link #snapshot()} that specifies mutable cache to use
+     * for types not included in the snapshot.
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver snapshot(ResolvedTypeCache overflow) {
+        return new TypeResolver(this, _resolvedTypes.freeze(overflow));
+    }
+
+    /**
+     * Fluent factory method for constructing a resolver that shares type cache
+     * with this resolver, but also uses small per-thread caches (of
+     * {@link #DEFAULT_THREAD_LOCAL_CACHE_ENTRIES} entries) in front of it.
+     * Equivalent to:
+     *<pre>
+     *   withThreadLocalCache(DEFAULT_THREAD_LOCAL_CACHE_ENTRIES)
+     *</pre>
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver withThreadLocalCache() {
+        return withThreadLocalCache(DEFAULT_THREAD_LOCAL_CACHE_ENTRIES);
+    }
+
+    /**
+     * Fluent factory method for constructing a resolver that shares type cache
+     * with this resolver, but also uses small per-thread direct-mapped caches
+     * in front of it, so that lookups for types most recently resolved by
+     * the calling thread need no synchronization (or even hash map access).
+     * Per-thread caches are invalidated when entries are removed from the
+     * type cache (see {@link ResolvedTypeCache#generation()}).
+     *<p>
+     * NOTE: lookups served by per-thread caches are not seen by the type cache:
+     * so types used frequently (but only found from
+     * per-thread caches) do not count as recently or frequently used for
+     * eviction by type caches that consider those (like {@link ResolvedTypeCache#lruCache}
+     * and {@link ResolvedTypeCache#costAwareCache}), and may get evicted as if
+     * unused; this is usually harmless, as they are re-added when next resolved
+     * without per-thread cache hit. For caches that do need to see all lookups,
+     * like ones with expiration (see {@link ResolvedTypeCache#needsAllLookups()}),
+     * per-thread caches are not used at all.
+     *<p>
+     * Note that per-thread caches are only reclaimed when the resolver is
+     * garbage collected (or the thread terminates), so this is most useful
+     * with long-lived resolvers and a fixed set of threads.
+     *
+     * @param entries Number of entries in per-thread caches (rounded up to
+     *    a power of two); if 0, no per-thread caches are used
+     *
+     * @since 1.7.4
+     */
+    public TypeResolver withThreadLocalCache(int entries) {
+        if (entries < 0) {
+            throw new IllegalArgumentException("Invalid entry count ("+entries+"): can not be negative");
+        }
+        int size = 0;
+        if (entries > 0) {
+            size = 1;
+            while (size < entries) {
+                size <<= 1;
+            }
+        }
+        TypeResolver r = new TypeResolver(this, _resolvedTypes);
+        r._threadCacheEntries = size;
+        r._threadCaches = _threadCaches(size, _resolvedTypes);
+        return r;
+    }
+
+    private static ThreadLocal<ThreadLocalTypeCache> _threadCaches(final int entries,
+            ResolvedTypeCache typeCache) {
+        if (entries == 0 || typeCache.needsAllLookups()) {
+            return null;
+        }
+        return new ThreadLocal<ThreadLocalTypeCache>() {
+            @Override
+            protected ThreadLocalTypeCache initialValue() {
+                return new ThreadLocalTypeCache(entries);
+            }
+        };
+    }
+
+    /**
+     * @since 1.7.4
+     */
+    public TypeResolutionProfiler getProfiler() {
+        return _profiler;
+    }
+
+    /**
+     * @since 1.7.4
+     */
+    public ResolutionRecorder getRecorder() {
+        return _recorder;
+    }
+
+    /**
+     * @since 1.7.4
+     */
+    public SubtypeIndex getSubtypeIndex() {
+        return _subtypeIndex;
+    }
+
     /*
     /**********************************************************************
     /* Factory methods, with explicit parameterization
@@ -166,6 +495,94 @@ public class TypeResolver implements Serializable
         return _fromClass(null, rawBase, TypeBindings.create(rawBase, resolvedParams));
     }
 
+    /**
+     * Factory method for resolving type given as a type expression that uses Java
+     * source syntax with fully-qualified class names, like
+     *<pre>
+     *  java.util.Map&lt;java.lang.String, java.util.List&lt;com.acme.Foo&gt;&gt;
+     *</pre>
+     * (see {@link TypeExpressions} for details). Resolved types are cached
+     * (keyed by expression and class loader), so repeated calls with the same
+     * expression only need a single lookup.
+     *
+     * @param typeExpression Type expression to resolve
+     * @param loader Class loader to use for loading classes expression refers to
+     *
+     * @throws IllegalArgumentException If expression is invalid, or refers to
+     *    a class that can not be loaded
+     *
+     * @since 1.7.4
+     */
+    public ResolvedType resolve(String typeExpression, ClassLoader loader)
+        throws IllegalArgumentException
+    {
+        return _resolveParsed(ParseKey.EXPRESSION, typeExpression, loader);
+    }
+
+    /**
+     * Factory method for resolving type given as JVM generic type signature
+     * (as used in <code>Signature</code> class file attributes for fields), like
+     *<pre>
+     *  Ljava/util/Map&lt;Ljava/lang/String;Ljava/util/List&lt;Lcom/acme/Foo;&gt;;&gt;;
+     *</pre>
+     * for cases where signature is available as a String (as with bytecode tools).
+     * Type variables are resolved to <code>java.lang.Object</code>.
+     *<p>
+     * NOTE: this is only a parser for signatures: types signature refers to are
+     * resolved as with {@link #resolve(Type, Type...)}, including their supertypes,
+     * which are resolved using generic supertype information accessed via
+     * <code>java.lang.Class</code> (unless already cached). So it does not avoid
+     * use of <code>java.lang.reflect</code> types (or loading of classes); for that,
+     * see {@link com.fasterxml.classmate.classfile.ClassFileTypeResolver}.
+     * Resolved types are cached (keyed by signature and class loader), similar to
+     * {@link #resolve(String, ClassLoader)}.
+     *<p>
+     * For resolving method and class signatures, or type signatures with type
+     * variables bound, see {@link TypeSignatures}.
+     *
+     * @param signature Generic type signature to resolve
+     * @param loader Class loader to use for loading classes signature refers to
+     *
+     * @throws IllegalArgumentException If signature is invalid, or refers to
+     *    a class that can not be loaded
+     *
+     * @since 1.7.4
+     */
+    public ResolvedType parseSignature(String signature, ClassLoader loader)
+        throws IllegalArgumentException
+    {
+        return _resolveParsed(ParseKey.SIGNATURE, signature, loader);
+    }
+
+    private ResolvedType _resolveParsed(int kind, String text, ClassLoader loader)
+    {
+        final GenerationalCache<ParseKey, WeakReference<ResolvedType>> cache = _parseCache();
+        final ParseKey key = new ParseKey(kind, text, loader);
+        // must read generation before lookup, as with per-thread caches
+        final int generation = _resolvedTypes.generation();
+        WeakReference<ResolvedType> ref = cache.find(key, generation);
+        ResolvedType type = (ref == null) ? null : ref.get();
+        if (type == null) {
+            type = (kind == ParseKey.SIGNATURE) ? TypeSignatures.resolve(this, text, loader)
+                    : TypeExpressions.resolve(this, text, loader);
+            cache.put(key, new WeakReference<ResolvedType>(type), generation);
+        }
+        return type;
+    }
+
+    private GenerationalCache<ParseKey, WeakReference<ResolvedType>> _parseCache() {
+        GenerationalCache<ParseKey, WeakReference<ResolvedType>> cache = _parseCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = _parseCache;
+                if (cache == null) {
+                    _parseCache = cache = new GenerationalCache<ParseKey, WeakReference<ResolvedType>>(PARSE_CACHE_ENTRIES);
+                }
+            }
+        }
+        return cache;
+    }
+
     /**
      * Factory method for constructing array type of given element type.
      */
@@ -230,6 +647,127 @@ public class TypeResolver implements Serializable
      */
     public ResolvedType resolveSubtype(ResolvedType supertype, final Class<?> subtype)
         throws IllegalArgumentException, UnsupportedOperationException
+    {
+        // Results (including failures) are cached, as long as supertype
+        //   has no placeholders (which are mutable)
+        if (!_isCacheable(supertype)) {
+            return _resolveSubtype(supertype, subtype);
+        }
+        // must read generation before lookup, as with per-thread caches
+        return _resolveSubtype(supertype, subtype, _subtypeCache(), _resolvedTypes.generation());
+    }
+
+    /**
+     * Method for resolving multiple candidate subtypes of given supertype in one go;
+     * equivalent to calling {@link #resolveSubtype} for each candidate but more
+     * efficient for large batches, as checks on supertype are only done once.
+     * Resolution failures are not thrown but returned as part of results.
+     *
+     * @param supertype Type to subtype (extend)
+     * @param subtypes Type-erased sub-classes or sub-interfaces
+     *
+     * @since 1.7.4
+     */
+    public ResolvedSubtypes resolveSubtypes(ResolvedType supertype, Collection<? extends Class<?>> subtypes) {
+        return resolveSubtypes(supertype, subtypes, null);
+    }
+
+    /**
+     * Alternative to {@link #resolveSubtypes(ResolvedType, Collection)} which may use
+     * given {@link Executor} to resolve subtypes in parallel.
+     *
+     * @param supertype Type to subtype (extend)
+     * @param subtypes Type-erased sub-classes or sub-interfaces
+     * @param executor Executor to use for parallel resolution, if any; if null,
+     *    resolution is done by the calling thread
+     *
+     * @since 1.7.4
+     */
+    public ResolvedSubtypes resolveSubtypes(ResolvedType supertype, Collection<? extends Class<?>> subtypes,
+            Executor executor)
+    {
+        // Same as with single subtypes, but only check supertype once
+        ResolvedType refType = supertype.getSelfReferencedType();
+        final ResolvedType base = (refType == null) ? supertype : refType;
+        final SubtypeCache cache = _isCacheable(base) ? _subtypeCache() : null;
+        final int generation = _resolvedTypes.generation();
+
+        Map<Class<?>, ResolvedType> resolved = new LinkedHashMap<Class<?>, ResolvedType>();
+        Map<Class<?>, RuntimeException> failures = new LinkedHashMap<Class<?>, RuntimeException>();
+        if (executor == null) {
+            for (Class<?> subtype : subtypes) {
+                if (!resolved.containsKey(subtype) && !failures.containsKey(subtype)) {
+                    try {
+                        resolved.put(subtype, _resolveSubtype(base, subtype, cache, generation));
+                    } catch (IllegalArgumentException e) {
+                        failures.put(subtype, e);
+                    } catch (UnsupportedOperationException e) {
+                        failures.put(subtype, e);
+                    }
+                }
+            }
+            return new ResolvedSubtypes(supertype, resolved, failures);
+        }
+        LinkedHashMap<Class<?>, FutureTask<Object>> tasks = new LinkedHashMap<Class<?>, FutureTask<Object>>();
+        for (final Class<?> subtype : subtypes) {
+            if (!tasks.containsKey(subtype)) {
+                FutureTask<Object> task = new FutureTask<Object>(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        try {
+                            return _resolveSubtype(base, subtype, cache, generation);
+                        } catch (IllegalArgumentException e) {
+                            return e;
+                        } catch (UnsupportedOperationException e) {
+                            return e;
+                        }
+                    }
+                });
+                tasks.put(subtype, task);
+                executor.execute(task);
+            }
+        }
+        for (Map.Entry<Class<?>, FutureTask<Object>> entry : tasks.entrySet()) {
+            Object result = _await(entry.getValue());
+            if (result instanceof ResolvedType) {
+                resolved.put(entry.getKey(), (ResolvedType) result);
+            } else {
+                failures.put(entry.getKey(), (RuntimeException) result);
+            }
+        }
+        return new ResolvedSubtypes(supertype, resolved, failures);
+    }
+
+    /**
+     * Helper method for resolving subtype using given subtype cache, if any
+     * (null if supertype is not cacheable)
+     */
+    private ResolvedType _resolveSubtype(ResolvedType supertype, Class<?> subtype,
+            SubtypeCache cache, int generation)
+    {
+        if (cache == null) {
+            return _resolveSubtype(supertype, subtype);
+        }
+        final SubtypeKey key = new SubtypeKey(supertype, subtype);
+        Object cached = cache.find(key, generation);
+        if (cached != null) {
+            if (cached instanceof SubtypeFailure) {
+                throw new IllegalArgumentException(((SubtypeFailure) cached).message);
+            }
+            return (ResolvedType) cached;
+        }
+        ResolvedType result;
+        try {
+            result = _resolveSubtype(supertype, subtype);
+        } catch (IllegalArgumentException e) {
+            cache.put(key, new SubtypeFailure(e.getMessage()), generation);
+            throw e;
+        }
+        cache.put(key, result, generation);
+        return result;
+    }
+
+    private ResolvedType _resolveSubtype(ResolvedType supertype, final Class<?> subtype)
     {
         // first: if it's a recursive reference, find out referred-to type
         ResolvedType refType = supertype.getSelfReferencedType();
@@ -250,89 +788,225 @@ public class TypeResolver implements Serializable
             throw new IllegalArgumentException("Can not sub-class "+supertype.getBriefDescription()
                     +" into "+subtype.getName());
         }
-        // Ok, then, let us instantiate type with placeholders
-        ResolvedType resolvedSubtype;
-        int paramCount = subtype.getTypeParameters().length;
-        TypePlaceHolder[] placeholders;
-        TypeBindings tbForPlaceholders;
+        // Ok, then, find type parameters by matching against template
+        ResolvedType[] typeParams = _subtypeTemplate(supertype, subtype).bind(supertype);
+        TypeBindings bindings = (typeParams.length == 0) ? TypeBindings.emptyBindings()
+                : TypeBindings.create(subtype, typeParams);
+        return _fromClass(null, subtype, bindings);
+    }
 
-        if (paramCount == 0) { // no generics
-            placeholders = null;
-            // 26-Oct-2015, tatu: Used to do "full" call:
-//            resolvedSubtype = resolve(subtype);
-            // but should be able to streamline
-            tbForPlaceholders = TypeBindings.emptyBindings();
-        } else {
-            placeholders = new TypePlaceHolder[paramCount];
-            ResolvedType[] resolvedParams = new ResolvedType[paramCount];
-            for (int i = 0; i < paramCount; ++i) {
-                resolvedParams[i] = placeholders[i] = new TypePlaceHolder(i);
+    private SubtypeCache _subtypeCache() {
+        SubtypeCache cache = _subtypeCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = _subtypeCache;
+                if (cache == null) {
+                    _subtypeCache = cache = new SubtypeCache(SUBTYPE_CACHE_ENTRIES);
+                }
             }
-            tbForPlaceholders = TypeBindings.create(subtype, resolvedParams);
-        }
-        resolvedSubtype = _fromClass(null, subtype, tbForPlaceholders);
-        ResolvedType resolvedSupertype = resolvedSubtype.findSupertype(superclass);
-        if (resolvedSupertype == null) { // sanity check, should never occur
-            throw new IllegalArgumentException("Internal error: unable to locate supertype ("+subtype.getName()+") for type "+supertype.getBriefDescription());
         }
-        // Ok, then, let's find and verify type assignments; resolve type holders if any
-        // (and yes, even for no-type-parameters case)
-        _resolveTypePlaceholders(supertype, resolvedSupertype);
-        // And then re-construct, if necessary
-        if (paramCount == 0) { // if no type parameters, fine as is
-            return resolvedSubtype;
+        return cache;
+    }
+
+    /**
+     * Helper method for checking that given type contains no type placeholders,
+     * and may thereby be used as part of cache keys.
+     */
+    private static boolean _isCacheable(ResolvedType type)
+    {
+        if (type instanceof TypePlaceHolder) {
+            return false;
         }
-        // but with type parameters, need to reconstruct
-        final ResolvedType[] typeParams = new ResolvedType[paramCount];
-        for (int i = 0; i < paramCount; ++i) {
-            ResolvedType t = placeholders[i].actualType();
-            // Is it ok for it to be left unassigned? For now let's not allow that
-            // 18-Oct-2017, tatu: Highly likely that we'll need to allow this, substitute with "unknown" --
-            //    had to do that in Jackson. Occurs when subtype is generic, with "bogus" type declared
-            //    but not bound in supertype(s). But leaving checking in for now.
-            if (t == null) {
-                throw new IllegalArgumentException("Failed to find type parameter #"+(i+1)+"/"
-                        +paramCount+" for "+subtype.getName());
+        TypeBindings b = type.getTypeBindings();
+        for (int i = 0, len = b.size(); i < len; ++i) {
+            if (!_isCacheable(b.getBoundType(i))) {
+                return false;
             }
-            typeParams[i] = t;
         }
-        return resolve(subtype, typeParams);
+        return true;
     }
 
     /*
     /**********************************************************************
-    /* Misc other methods
+    /* Assignability checks
     /**********************************************************************
      */
 
     /**
-     * Convenience method that can be used to checked whether given resolved type
-     * (with erased type of <code>java.lang.Object</code>) is a placeholder
-     * for "self-reference"; these are nasty recursive ("self") types
-     * needed with some interfaces
+     * Method for checking whether a value of type <code>source</code> could be assigned
+     * to a variable of type <code>target</code>: same as
+     * {@link ResolvedType#isAssignableFrom(ResolvedType)}, except that results are
+     * memoized in a bounded table, keyed by identity of both types. Since resolved
+     * types are cached, repeated checks for the same types are usually answered
+     * with a single lookup (and no allocations). As with other results derived
+     * from cached types, memoized results are dropped when types are removed
+     * from the type cache.
      *
-     * @param type Type to check
+     * @since 1.7.4
      */
-    public static boolean isSelfReference(ResolvedType type)
+    public boolean isAssignableFrom(ResolvedType target, ResolvedType source)
     {
-        return (type instanceof ResolvedRecursiveType);
+        final AssignabilityCache cache = _assignabilityCache();
+        // must read generation before lookup, as with per-thread caches
+        final int generation = _resolvedTypes.generation();
+        Boolean result = cache.find(target, source, generation);
+        if (result == null) {
+            boolean b = target.isAssignableFrom(source);
+            cache.put(target, source, b, generation);
+            return b;
+        }
+        return result.booleanValue();
+    }
+
+    private AssignabilityCache _assignabilityCache() {
+        AssignabilityCache cache = _assignabilityCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = _assignabilityCache;
+                if (cache == null) {
+                    _assignabilityCache = cache = new AssignabilityCache(ASSIGNABILITY_CACHE_ENTRIES);
+                }
+            }
+        }
+        return cache;
     }
 
     /*
     /**********************************************************************
-    /* Internal methods, second-level factory methods
+    /* Bulk resolution
     /**********************************************************************
      */
 
-    private ResolvedType _fromAny(ClassStack context, Type mainType, TypeBindings typeBindings)
+    /**
+     * Method for resolving a batch of types in one go; equivalent to calling
+     * {@link #resolve(Type, Type...)} (without type parameters) for each
+     * entry but more efficient for large batches, as supertypes shared by
+     * multiple types of the batch (like <code>java.util.AbstractCollection</code>)
+     * are only resolved once per batch regardless of size of the type cache;
+     * and duplicate entries are only resolved once.
+     *
+     * @param types Types to resolve
+     *
+     * @return Resolved types, in the same order as the input
+     *
+     * @since 1.7.4
+     */
+    public List<ResolvedType> resolveAll(Collection<? extends Type> types) {
+        return resolveAll(types, null);
+    }
+
+    /**
+     * Alternative to {@link #resolveAll(Collection)} which may use given
+     * {@link Executor} (like a {@link java.util.concurrent.ForkJoinPool})
+     * to resolve types of the batch in parallel. Duplicate entries of the
+     * batch are resolved by a single task; supertypes shared by multiple
+     * entries are resolved once by whichever task gets to them first, with other
+     * tasks needing them waiting for it to complete (except if that could
+     * deadlock, for types referring to each other: in that case both tasks may
+     * construct the type, but only the first completed instance is used), so
+     * all results of a batch share the same instances of supertypes.
+     * Resolution failures are re-thrown to the caller.
+     *
+     * @param types Types to resolve
+     * @param executor Executor to use for parallel resolution, if any; if null,
+     *    resolution is done by the calling thread
+     *
+     * @return Resolved types, in the same order as the input
+     *
+     * @since 1.7.4
+     */
+    public List<ResolvedType> resolveAll(Collection<? extends Type> types, Executor executor)
     {
-        if (mainType instanceof Class<?>) {
-            return _fromClass(context, (Class<?>) mainType, typeBindings);
+        final TypeResolver batchResolver = new TypeResolver(this, new BatchTypeCache(_resolvedTypes));
+        ArrayList<ResolvedType> result = new ArrayList<ResolvedType>(types.size());
+        if (executor == null) {
+            HashMap<Type, ResolvedType> resolved = new HashMap<Type, ResolvedType>();
+            for (Type type : types) {
+                ResolvedType rt = resolved.get(type);
+                if (rt == null) {
+                    rt = batchResolver.resolve(type);
+                    resolved.put(type, rt);
+                }
+                result.add(rt);
+            }
+            return result;
         }
-        if (mainType instanceof ParameterizedType) {
-            return _fromParamType(context, (ParameterizedType) mainType, typeBindings);
+        // With executor, first create one task per distinct type, then wait in order
+        ArrayList<FutureTask<ResolvedType>> tasks = new ArrayList<FutureTask<ResolvedType>>(types.size());
+        HashMap<Type, FutureTask<ResolvedType>> distinct = new HashMap<Type, FutureTask<ResolvedType>>();
+        for (final Type type : types) {
+            FutureTask<ResolvedType> task = distinct.get(type);
+            if (task == null) {
+                task = new FutureTask<ResolvedType>(new Callable<ResolvedType>() {
+                    @Override
+                    public ResolvedType call() {
+                        return batchResolver.resolve(type);
+                    }
+                });
+                distinct.put(type, task);
+                executor.execute(task);
+            }
+            tasks.add(task);
         }
-        if (mainType instanceof ResolvedType) { // Esp. TypePlaceHolder
+        for (FutureTask<ResolvedType> task : tasks) {
+            result.add(_await(task));
+        }
+        return result;
+    }
+
+    private static <T> T _await(FutureTask<T> task)
+    {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for type resolution", e);
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new IllegalStateException("Type resolution failed: "+t.getMessage(), t);
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Misc other methods
+    /**********************************************************************
+     */
+
+    /**
+     * Convenience method that can be used to checked whether given resolved type
+     * (with erased type of <code>java.lang.Object</code>) is a placeholder
+     * for "self-reference"; these are nasty recursive ("self") types
+     * needed with some interfaces
+     *
+     * @param type Type to check
+     */
+    public static boolean isSelfReference(ResolvedType type)
+    {
+        return (type instanceof ResolvedRecursiveType);
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods, second-level factory methods
+    /**********************************************************************
+     */
+
+    private ResolvedType _fromAny(ClassStack context, Type mainType, TypeBindings typeBindings)
+    {
+        if (mainType instanceof Class<?>) {
+            return _fromClass(context, (Class<?>) mainType, typeBindings);
+        }
+        if (mainType instanceof ParameterizedType) {
+            return _fromParamType(context, (ParameterizedType) mainType, typeBindings);
+        }
+        if (mainType instanceof ResolvedType) { // Esp. TypePlaceHolder
             return (ResolvedType) mainType;
         }
         if (mainType instanceof GenericType<?>) {
@@ -353,9 +1027,24 @@ public class TypeResolver implements Serializable
 
     private ResolvedType _fromClass(ClassStack context, Class<?> rawType, TypeBindings typeBindings)
     {
-        // First: a primitive type perhaps?
-        ResolvedType type = _primitiveTypes.get(new ClassKey(rawType));
+        // Bindings of parent type are passed along for its supertypes, even if those
+        // are not generic; but types without type parameters can not use them, so
+        // drop them, to share well-known types and to cache type under its own key
+        if (!typeBindings.isEmpty() && rawType.getTypeParameters().length == 0) {
+            typeBindings = TypeBindings.emptyBindings();
+        }
+        // First: a well-known JDK type (or primitive type) perhaps?
+        ResolvedType type;
+        if (typeBindings.isEmpty()) {
+            type = _bootstrapType(rawType);
+            if (type != null) {
+                _recordHit(rawType);
+                return type;
+            }
+        }
+        type = _primitiveTypes.get(new ClassKey(rawType));
         if (type != null) {
+            _recordHit(rawType);
             return type;
         }
         // Second: recursive reference?
@@ -378,19 +1067,109 @@ public class TypeResolver implements Serializable
         ResolvedTypeKey key = _resolvedTypes.key(rawType, typeParameters);
         // 25-Oct-2015, tatu: one twist; if any TypePlaceHolders included, key will NOT be created,
         //   which means that caching should not be used (since type is mutable)
-        if (key == null) {
-            type = _constructType(context, rawType, typeBindings);
-        } else {
+        ThreadLocalTypeCache threadCache = null;
+        int generation = 0;
+        if (key != null) {
+            if (_threadCaches != null) {
+                threadCache = _threadCaches.get();
+                // important: must read generation before looking up from shared cache
+                generation = _resolvedTypes.generation();
+                type = threadCache.find(key, generation);
+                if (type != null) {
+                    _recordHit(rawType);
+                    context.resolveSelfReferences(type);
+                    return type;
+                }
+            }
             type = _resolvedTypes.find(key);
-            if (type == null) {
+        }
+        // With resolveAll(), another task of the same batch may be constructing the type
+        // already: if so, wait for it instead of constructing the type again
+        BatchTypeCache batch = null;
+        if (type == null && key != null && (_resolvedTypes instanceof BatchTypeCache)) {
+            batch = (BatchTypeCache) _resolvedTypes;
+            type = batch.awaitOrClaim(key);
+        }
+        if (type == null) {
+            final TypeResolutionProfiler profiler = _profiler;
+            // allocation is measured for all constructions (not just sampled ones),
+            // so that it can be attributed to types exclusively, like time is
+            final long startBytes = (profiler == null) ? -1L : profiler.allocatedBytes();
+            final long startNanos = System.nanoTime();
+            try {
                 type = _constructType(context, rawType, typeBindings);
-                _resolvedTypes.put(key, type);
+            } finally {
+                if (batch != null && type == null) {
+                    batch.release(key);
+                }
+            }
+            // cost passed to cache excludes nested types, which are cached (and charged) on their own
+            final long nanos = context.constructed(System.nanoTime() - startNanos);
+            if (profiler != null) {
+                _recordMiss(profiler, context, rawType, nanos, startBytes);
             }
+            boolean added = (key != null);
+            if (batch != null) {
+                // may have been constructed by another task too; if so, use the same instance
+                ResolvedType winner = batch.constructed(key, type, nanos);
+                if (winner != type) {
+                    type = winner;
+                    added = false;
+                }
+            } else if (added) {
+                _resolvedTypes.put(key, type, nanos);
+            }
+            if (added) {
+                if (_recorder != null) {
+                    _recorder.recordType(key);
+                }
+                if (_subtypeIndex != null) {
+                    _subtypeIndex.add(type);
+                }
+            }
+        } else {
+            _recordHit(rawType);
+        }
+        if (threadCache != null) {
+            threadCache.put(key, type, generation);
         }
         context.resolveSelfReferences(type);
         return type;
     }
 
+    /**
+     * Helper method for finding pre-resolved type for given type-erased class from
+     * the JVM-wide table of well-known JDK types, if it contains one.
+     */
+    private static ResolvedType _bootstrapType(Class<?> rawType)
+    {
+        // Table is null while it is being built (by the same thread, as class
+        // initialization is otherwise synchronized), in which case resolution
+        // must proceed as usual
+        Map<Class<?>, ResolvedType> types = BootstrapTypes.TYPES;
+        return (types == null) ? null : types.get(rawType);
+    }
+
+    private void _recordHit(Class<?> rawType)
+    {
+        final TypeResolutionProfiler profiler = _profiler;
+        if (profiler != null && profiler.sample()) {
+            profiler.recordHit(rawType);
+        }
+    }
+
+    private static void _recordMiss(TypeResolutionProfiler profiler, ClassStack context,
+            Class<?> rawType, long exclusiveNanos, long startBytes)
+    {
+        long bytes = -1L;
+        if (startBytes >= 0L) {
+            bytes = context.allocated(profiler.allocatedBytes() - startBytes);
+        }
+        if (profiler.sample()) {
+            profiler.recordMiss(rawType, exclusiveNanos, bytes);
+        }
+    }
+
     /**
      * Factory method for resolving given generic type, defined by using sub-class
      * instance of {@link GenericType}
@@ -551,54 +1330,771 @@ public class TypeResolver implements Serializable
 
     /*
     /**********************************************************************
-    /* Internal methods, replacing and verifying type placeholders
+    /* Internal methods, subtype templates
     /**********************************************************************
      */
 
+    private SubtypeTemplate _subtypeTemplate(ResolvedType supertype, Class<?> subtype)
+    {
+        final Class<?> superclass = supertype.getErasedType();
+        final SubtypeCache cache = _subtypeCache();
+        final TemplateKey key = new TemplateKey(subtype, superclass);
+        SubtypeTemplate template = cache.findTemplate(key, _resolvedTypes.generation());
+        if (template == null) {
+            template = _constructTemplate(supertype, subtype);
+            cache.putTemplate(key, template);
+        }
+        return template;
+    }
+
     /**
-     * Method called to verify that types match; and if there are any placeholders,
-     * replace them in <code>actualType</code>.
-     *
-     * @param sourceType Original base type used for specification/refinement
-     * @param actualType Base type instance after re-resolving, possibly containing type placeholders
+     * Method that resolves given subtype with placeholders as its type parameters
+     * (using uncached resolution, since placeholders are mutable), and records
+     * the structure of parameterization of given supertype it has into an
+     * immutable template.
      */
-    private void _resolveTypePlaceholders(ResolvedType sourceType, ResolvedType actualType)
-        throws IllegalArgumentException
+    private SubtypeTemplate _constructTemplate(ResolvedType supertype, Class<?> subtype)
     {
-        List<ResolvedType> expectedTypes = sourceType.getTypeParameters();
-        List<ResolvedType> actualTypes = actualType.getTypeParameters();
-        for (int i = 0, len = expectedTypes.size(); i < len; ++i) {
-            ResolvedType exp = expectedTypes.get(i);
-            ResolvedType act = actualTypes.get(i);
-            if (!_verifyAndResolve(exp, act)) {
-                throw new IllegalArgumentException("Type parameter #"+(i+1)+"/"+len+" differs; expected "
-                        +exp.getBriefDescription()+", got "+act.getBriefDescription());
+        final int paramCount = subtype.getTypeParameters().length;
+        final TypePlaceHolder[] placeholders = new TypePlaceHolder[paramCount];
+        TypeBindings tbForPlaceholders;
+
+        if (paramCount == 0) { // no generics
+            tbForPlaceholders = TypeBindings.emptyBindings();
+        } else {
+            for (int i = 0; i < paramCount; ++i) {
+                placeholders[i] = new TypePlaceHolder(i);
             }
+            tbForPlaceholders = TypeBindings.create(subtype, placeholders);
+        }
+        ResolvedType resolvedSubtype = _fromClass(null, subtype, tbForPlaceholders);
+        ResolvedType resolvedSupertype = resolvedSubtype.findSupertype(supertype.getErasedType());
+        if (resolvedSupertype == null) { // sanity check, should never occur
+            throw new IllegalArgumentException("Internal error: unable to locate supertype ("+subtype.getName()+") for type "+supertype.getBriefDescription());
         }
+        return new SubtypeTemplate(subtype, placeholders, resolvedSupertype.getTypeParameters());
     }
 
-    private boolean _verifyAndResolve(ResolvedType exp, ResolvedType act)
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Bounded cache of results of operations that refer to cached types; entries
+     * are dropped when the "generation" of the type cache changes, as they may
+     * refer to types removed from it.
+     */
+    protected static class GenerationalCache<K, V>
     {
-        // See if we have an actual type placeholder to resolve; if yes, replace
-        if (act instanceof TypePlaceHolder) {
-            ((TypePlaceHolder) act).actualType(exp);
+        private final LRUMap<K, V> _entries;
+
+        private int _generation;
+
+        public GenerationalCache(int maxEntries) {
+            _entries = new LRUMap<K, V>(maxEntries);
+        }
+
+        public synchronized V find(K key, int generation) {
+            if (!checkGeneration(generation)) {
+                return null;
+            }
+            return _entries.get(key);
+        }
+
+        public synchronized void put(K key, V result, int generation) {
+            if (generation == _generation) {
+                _entries.put(key, result);
+            }
+        }
+
+        /**
+         * Method for checking whether generation of type cache has changed, and if
+         * so, dropping all entries.
+         *
+         * @return True if generation was unchanged; false if entries were dropped
+         */
+        public synchronized boolean checkGeneration(int generation) {
+            if (generation != _generation) {
+                _generationChanged(generation);
+                return false;
+            }
             return true;
         }
-        // if not, try to verify compatibility. But note that we can not
-        // use simple equality as we need to resolve recursively
-        if (exp.getErasedType() != act.getErasedType()) {
-            return false;
+
+        /**
+         * Method called (with lock held) when generation of type cache is found to have
+         * changed: drops all entries.
+         */
+        protected void _generationChanged(int generation) {
+            _entries.clear();
+            _generation = generation;
+        }
+    }
+
+    /**
+     * Bounded cache of results of {@link #resolveSubtype}: either resolved subtypes
+     * or {@link SubtypeFailure}s; as well as {@link SubtypeTemplate}s.
+     */
+    protected final static class SubtypeCache extends GenerationalCache<SubtypeKey, Object>
+    {
+        /**
+         * Templates do not refer to cached types, but they do refer to classes:
+         * so they are dropped when generation changes as well, so as not to
+         * keep class loaders of removed types reachable.
+         */
+        private final LRUMap<TemplateKey, SubtypeTemplate> _templates;
+
+        public SubtypeCache(int maxEntries) {
+            super(maxEntries);
+            _templates = new LRUMap<TemplateKey, SubtypeTemplate>(maxEntries);
+        }
+
+        SubtypeTemplate findTemplate(TemplateKey key, int generation) {
+            checkGeneration(generation);
+            return _templates.get(key);
+        }
+
+        void putTemplate(TemplateKey key, SubtypeTemplate template) {
+            _templates.put(key, template);
+        }
+
+        int templateCount() {
+            return _templates.size();
+        }
+
+        @Override
+        protected void _generationChanged(int generation) {
+            super._generationChanged(generation);
+            _templates.clear();
+        }
+    }
+
+    /**
+     * Key for cached results of parsing type expressions and signatures. Class loader
+     * is only weakly referenced; keys with loaders that have been collected do not
+     * match any other key.
+     */
+    protected final static class ParseKey
+    {
+        final static int EXPRESSION = 1;
+
+        final static int SIGNATURE = 2;
+
+        private final int _kind;
+
+        private final String _text;
+
+        /**
+         * Reference to class loader used; null for bootstrap class loader
+         */
+        final WeakReference<ClassLoader> _loaderRef;
+
+        private final int _hashCode;
+
+        public ParseKey(int kind, String text, ClassLoader loader) {
+            _kind = kind;
+            _text = text;
+            _loaderRef = (loader == null) ? null : new WeakReference<ClassLoader>(loader);
+            _hashCode = text.hashCode() + kind;
+        }
+
+        @Override
+        public int hashCode() { return _hashCode; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (o == null || o.getClass() != getClass()) return false;
+            ParseKey other = (ParseKey) o;
+            return (other._kind == _kind) && _sameLoader(other) && other._text.equals(_text);
+        }
+
+        private boolean _sameLoader(ParseKey other) {
+            if (_loaderRef == null || other._loaderRef == null) {
+                return _loaderRef == other._loaderRef;
+            }
+            ClassLoader loader = _loaderRef.get();
+            return (loader != null) && (loader == other._loaderRef.get());
+        }
+    }
+
+    /**
+     * Direct-mapped table of results of assignability checks, indexed by identity
+     * hash codes of types: each slot holds the latest immutable entry mapped to it,
+     * so no locking is needed. Entries are tagged with "generation" of the type
+     * cache, and all entries dropped if it changes, so that types removed from
+     * type cache (and their class loaders) are not retained.
+     */
+    protected final static class AssignabilityCache
+    {
+        private final Entry[] _entries;
+
+        private final int _mask;
+
+        private volatile int _generation;
+
+        public AssignabilityCache(int size) {
+            _entries = new Entry[size];
+            _mask = size - 1;
+        }
+
+        public Boolean find(ResolvedType target, ResolvedType source, int generation) {
+            if (generation != _generation) {
+                _generation = generation;
+                Arrays.fill(_entries, null);
+                return null;
+            }
+            Entry entry = _entries[_index(target, source)];
+            if (entry != null && entry._generation == generation
+                    && entry._target == target && entry._source == source) {
+                return entry._result ? Boolean.TRUE : Boolean.FALSE;
+            }
+            return null;
+        }
+
+        public void put(ResolvedType target, ResolvedType source, boolean result, int generation) {
+            // results computed from removed types are not to be added
+            if (generation == _generation) {
+                _entries[_index(target, source)] = new Entry(target, source, result, generation);
+            }
+        }
+
+        int size() {
+            int count = 0;
+            for (Entry entry : _entries) {
+                if (entry != null) {
+                    ++count;
+                }
+            }
+            return count;
         }
-        // But we can check type parameters "blindly"
-        List<ResolvedType> expectedTypes = exp.getTypeParameters();
-        List<ResolvedType> actualTypes = act.getTypeParameters();
-        for (int i = 0, len = expectedTypes.size(); i < len; ++i) {
-            ResolvedType exp2 = expectedTypes.get(i);
-            ResolvedType act2 = actualTypes.get(i);
-            if (!_verifyAndResolve(exp2, act2)) {
+
+        private int _index(ResolvedType target, ResolvedType source) {
+            int h = System.identityHashCode(target) * 31 + System.identityHashCode(source);
+            return (h ^ (h >>> 16)) & _mask;
+        }
+
+        private final static class Entry
+        {
+            final ResolvedType _target, _source;
+
+            final boolean _result;
+
+            final int _generation;
+
+            Entry(ResolvedType target, ResolvedType source, boolean result, int generation) {
+                _target = target;
+                _source = source;
+                _result = result;
+                _generation = generation;
+            }
+        }
+    }
+
+    /**
+     * Immutable description of how type parameters of a subtype map to type
+     * parameters of one of its supertypes: used for binding subtype parameters
+     * by matching against resolved supertype, without re-resolving subtype.
+     */
+    protected final static class SubtypeTemplate
+    {
+        private final Class<?> _subtype;
+
+        private final int _paramCount;
+
+        /**
+         * Patterns for type parameters of supertype, as declared by subtype
+         */
+        private final Pattern[] _params;
+
+        /**
+         * Descriptions of type parameters of supertype (with placeholders for
+         * subtype parameters), for error messages
+         */
+        private final String[] _descs;
+
+        public SubtypeTemplate(Class<?> subtype, TypePlaceHolder[] placeholders,
+                List<ResolvedType> supertypeParams)
+        {
+            _subtype = subtype;
+            _paramCount = placeholders.length;
+            final int len = supertypeParams.size();
+            _params = new Pattern[len];
+            _descs = new String[len];
+            for (int i = 0; i < len; ++i) {
+                ResolvedType t = supertypeParams.get(i);
+                _params[i] = Pattern.of(t, placeholders);
+                _descs[i] = t.getBriefDescription();
+            }
+        }
+
+        /**
+         * Method for finding type parameters for subtype, given resolved supertype
+         * (which must have the same erased type as the one template was built for)
+         *
+         * @throws IllegalArgumentException if parameterization of given supertype
+         *    is not compatible with subtype, or does not bind all subtype parameters
+         */
+        public ResolvedType[] bind(ResolvedType supertype) throws IllegalArgumentException
+        {
+            ResolvedType[] bound = new ResolvedType[_paramCount];
+            List<ResolvedType> expectedTypes = supertype.getTypeParameters();
+            for (int i = 0, len = expectedTypes.size(); i < len; ++i) {
+                ResolvedType exp = expectedTypes.get(i);
+                if (!_params[i].bind(exp, bound)) {
+                    throw new IllegalArgumentException("Type parameter #"+(i+1)+"/"+len+" differs; expected "
+                            +exp.getBriefDescription()+", got "+_descs[i]);
+                }
+            }
+            for (int i = 0; i < _paramCount; ++i) {
+                // Is it ok for it to be left unassigned? For now let's not allow that
+                // 18-Oct-2017, tatu: Highly likely that we'll need to allow this, substitute with "unknown" --
+                //    had to do that in Jackson. Occurs when subtype is generic, with "bogus" type declared
+                //    but not bound in supertype(s). But leaving checking in for now.
+                if (bound[i] == null) {
+                    throw new IllegalArgumentException("Failed to find type parameter #"+(i+1)+"/"
+                            +_paramCount+" for "+_subtype.getName());
+                }
+            }
+            return bound;
+        }
+    }
+
+    /**
+     * Node of {@link SubtypeTemplate}: either reference to a subtype type parameter,
+     * or a type with specific erased type (and possibly parameters).
+     */
+    private final static class Pattern
+    {
+        private final static Pattern[] NO_PARAMS = new Pattern[0];
+
+        /**
+         * Index of subtype type parameter this pattern binds, if any; -1 if none
+         */
+        private final int _variable;
+
+        private final Class<?> _erasedType;
+
+        private final Pattern[] _params;
+
+        private Pattern(int variable, Class<?> erasedType, Pattern[] params) {
+            _variable = variable;
+            _erasedType = erasedType;
+            _params = params;
+        }
+
+        public static Pattern of(ResolvedType type, TypePlaceHolder[] placeholders)
+        {
+            for (int i = 0; i < placeholders.length; ++i) {
+                if (placeholders[i] == type) {
+                    return new Pattern(i, null, NO_PARAMS);
+                }
+            }
+            List<ResolvedType> typeParams = type.getTypeParameters();
+            final int len = typeParams.size();
+            Pattern[] params = (len == 0) ? NO_PARAMS : new Pattern[len];
+            for (int i = 0; i < len; ++i) {
+                params[i] = of(typeParams.get(i), placeholders);
+            }
+            return new Pattern(-1, type.getErasedType(), params);
+        }
+
+        /**
+         * Method that verifies that given type matches this pattern, and binds
+         * subtype parameters this pattern refers to.
+         */
+        public boolean bind(ResolvedType exp, ResolvedType[] bound)
+        {
+            if (_variable >= 0) {
+                bound[_variable] = exp;
+                return true;
+            }
+            // note: can not use simple equality as type parameters may be bound
+            if (exp.getErasedType() != _erasedType) {
                 return false;
             }
+            List<ResolvedType> expectedTypes = exp.getTypeParameters();
+            for (int i = 0, len = expectedTypes.size(); i < len; ++i) {
+                if (!_params[i].bind(expectedTypes.get(i), bound)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final static class TemplateKey
+    {
+        private final Class<?> _subtype, _supertype;
+
+        TemplateKey(Class<?> subtype, Class<?> supertype) {
+            _subtype = subtype;
+            _supertype = supertype;
+        }
+
+        @Override
+        public int hashCode() {
+            return _subtype.getName().hashCode() * 31 + _supertype.getName().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (o == null || o.getClass() != getClass()) return false;
+            TemplateKey other = (TemplateKey) o;
+            return (other._subtype == _subtype) && (other._supertype == _supertype);
+        }
+    }
+
+    protected final static class SubtypeKey
+    {
+        private final ResolvedType _supertype;
+
+        private final Class<?> _subtype;
+
+        private final int _hashCode;
+
+        public SubtypeKey(ResolvedType supertype, Class<?> subtype) {
+            _supertype = supertype;
+            _subtype = subtype;
+            _hashCode = supertype.hashCode() * 31 + subtype.getName().hashCode();
+        }
+
+        @Override
+        public int hashCode() { return _hashCode; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (o == null || o.getClass() != getClass()) return false;
+            SubtypeKey other = (SubtypeKey) o;
+            return (other._subtype == _subtype) && other._supertype.equals(_supertype);
+        }
+    }
+
+    /**
+     * Marker for cached failure of {@link #resolveSubtype}
+     */
+    private final static class SubtypeFailure
+    {
+        final String message;
+
+        SubtypeFailure(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * Holder of JVM-wide immutable table of well-known JDK types (as well as
+     * primitive types and <code>java.lang.Object</code>), resolved without type
+     * parameters; built lazily when first needed, and consulted by all resolvers
+     * before their own caches. Table is keyed by class identity.
+     */
+    private final static class BootstrapTypes
+    {
+        private final static Class<?>[] CLASSES = {
+            String.class, CharSequence.class, Number.class,
+            Boolean.class, Byte.class, Short.class, Character.class,
+            Integer.class, Long.class, Float.class, Double.class, Void.class,
+            Comparable.class, java.io.Serializable.class, Cloneable.class, RandomAccess.class, Iterable.class,
+            Collection.class, List.class, Set.class, Map.class, Optional.class
+        };
+
+        final static Map<Class<?>, ResolvedType> TYPES = _build();
+
+        private static Map<Class<?>, ResolvedType> _build()
+        {
+            IdentityHashMap<Class<?>, ResolvedType> types = new IdentityHashMap<Class<?>, ResolvedType>();
+            for (ResolvedPrimitiveType type : ResolvedPrimitiveType.all()) {
+                types.put(type.getErasedType(), type);
+            }
+            types.put(Void.TYPE, ResolvedPrimitiveType.voidType());
+            types.put(Object.class, sJavaLangObject);
+            // use shared cache so that supertypes are shared by all entries
+            TypeResolver resolver = new TypeResolver(ResolvedTypeCache.concurrentCache(CLASSES.length * 4));
+            for (Class<?> cls : CLASSES) {
+                types.put(cls, resolver.resolve(cls));
+            }
+            return Collections.unmodifiableMap(types);
+        }
+    }
+
+    /**
+     * Small direct-mapped cache of types used by a single thread, see
+     * {@link #withThreadLocalCache(int)}. Entries are tagged with
+     * "generation" of the shared cache, and all entries dropped if it changes.
+     */
+    protected final static class ThreadLocalTypeCache
+    {
+        private final ResolvedTypeKey[] _keys;
+
+        private final ResolvedType[] _types;
+
+        private final int _mask;
+
+        private int _generation;
+
+        public ThreadLocalTypeCache(int entries) {
+            _keys = new ResolvedTypeKey[entries];
+            _types = new ResolvedType[entries];
+            _mask = entries - 1;
+        }
+
+        public ResolvedType find(ResolvedTypeKey key, int generation)
+        {
+            if (generation != _generation) {
+                Arrays.fill(_keys, null);
+                Arrays.fill(_types, null);
+                _generation = generation;
+                return null;
+            }
+            int ix = _index(key);
+            ResolvedTypeKey curr = _keys[ix];
+            if (curr != null && curr.equals(key)) {
+                return _types[ix];
+            }
+            return null;
+        }
+
+        /**
+         * @param generation Generation of shared cache read before type was
+         *    looked up; if no longer current, type is not added
+         */
+        public void put(ResolvedTypeKey key, ResolvedType type, int generation)
+        {
+            if (generation == _generation) {
+                int ix = _index(key);
+                _keys[ix] = key;
+                _types[ix] = type;
+            }
+        }
+
+        private int _index(ResolvedTypeKey key) {
+            int h = key.hashCode();
+            h ^= (h >>> 16);
+            h *= 0x85EBCA6B;
+            h ^= (h >>> 13);
+            return h & _mask;
+        }
+    }
+
+    /**
+     * Type cache used for the duration of {@link #resolveAll}: retains all types
+     * resolved within the batch (so that shared supertypes are not evicted
+     * from under it), delegating lookups and additions to the shared cache.
+     * Since all types are added to the shared cache as well, and generation is
+     * that of the shared cache, resolvers using it may share per-thread and
+     * other derived caches with resolvers that use the shared cache directly.
+     *<p>
+     * Also keeps track of types being constructed by tasks of the batch, so that
+     * other tasks needing the same type can wait for it instead of constructing
+     * it again. Since types may refer to each other, a task only waits if the
+     * constructing task is not (directly or indirectly) waiting for it; otherwise
+     * it constructs the type itself, and the first constructed instance is used
+     * by both.
+     */
+    private final static class BatchTypeCache extends ResolvedTypeCache
+    {
+        final ResolvedTypeCache _shared;
+
+        private final ConcurrentHashMap<ResolvedTypeKey, ResolvedType> _local
+            = new ConcurrentHashMap<ResolvedTypeKey, ResolvedType>();
+
+        /**
+         * Types currently being constructed, with threads constructing them
+         */
+        private final ConcurrentHashMap<ResolvedTypeKey, InFlight> _inFlight
+            = new ConcurrentHashMap<ResolvedTypeKey, InFlight>();
+
+        /**
+         * Constructions that threads are waiting for, used for avoiding deadlocks;
+         * access synchronized on the map itself
+         */
+        private final HashMap<Thread, InFlight> _waiting = new HashMap<Thread, InFlight>();
+
+        public BatchTypeCache(ResolvedTypeCache shared) {
+            _shared = shared;
+        }
+
+        @Override
+        public ResolvedTypeKey key(Class<?> simpleType, ResolvedType[] tp) {
+            return _shared.key(simpleType, tp);
+        }
+
+        @Override
+        public ResolvedType find(ResolvedTypeKey key) {
+            ResolvedType type = _local.get(key);
+            if (type == null) {
+                type = _shared.find(key);
+                if (type != null) {
+                    _local.put(key, type);
+                }
+            }
+            return type;
+        }
+
+        @Override
+        public int size() {
+            return _local.size();
+        }
+
+        @Override
+        public int generation() {
+            return _shared.generation();
+        }
+
+        @Override
+        public void put(ResolvedTypeKey key, ResolvedType type) {
+            if (_local.putIfAbsent(key, type) == null) {
+                _shared.put(key, type);
+            }
+        }
+
+        @Override
+        public void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+            if (_local.putIfAbsent(key, type) == null) {
+                _shared.put(key, type, constructionNanos);
+            }
+        }
+
+        /**
+         * Method called before constructing type with given key: if another thread
+         * is constructing it, waits for it to complete (unless waiting could deadlock);
+         * otherwise marks type as being constructed by the calling thread.
+         *
+         * @return Type constructed by another thread, if any; null if caller is to
+         *    construct it (in which case it must call either {@link #constructed}
+         *    or {@link #release} afterwards)
+         */
+        public ResolvedType awaitOrClaim(ResolvedTypeKey key)
+        {
+            final Thread current = Thread.currentThread();
+            while (true) {
+                ResolvedType type = _local.get(key);
+                if (type != null) {
+                    return type;
+                }
+                InFlight claim = new InFlight(current);
+                InFlight existing = _inFlight.putIfAbsent(key, claim);
+                if (existing == null) {
+                    // may have been completed just before claiming
+                    type = _local.get(key);
+                    if (type != null) {
+                        _inFlight.remove(key, claim);
+                        claim.complete(type);
+                    }
+                    return type;
+                }
+                if ((existing._owner == current) || !_startWaiting(current, existing)) {
+                    return null;
+                }
+                try {
+                    type = existing.await();
+                } finally {
+                    synchronized (_waiting) {
+                        _waiting.remove(current);
+                    }
+                }
+                // if construction failed (or wait was interrupted), need to retry
+                if (type != null) {
+                    return type;
+                }
+                if (current.isInterrupted()) {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Method called after constructing type with given key.
+         *
+         * @return Type to use: either given type, or one constructed by another
+         *    thread, if it was completed first
+         */
+        public ResolvedType constructed(ResolvedTypeKey key, ResolvedType type, long constructionNanos)
+        {
+            ResolvedType winner = _local.putIfAbsent(key, type);
+            if (winner == null) {
+                winner = type;
+                _shared.put(key, type, constructionNanos);
+            }
+            _complete(key, winner);
+            return winner;
+        }
+
+        /**
+         * Method called if construction of type with given key failed.
+         */
+        public void release(ResolvedTypeKey key) {
+            _complete(key, null);
+        }
+
+        private void _complete(ResolvedTypeKey key, ResolvedType type)
+        {
+            InFlight claim = _inFlight.get(key);
+            if (claim != null && claim._owner == Thread.currentThread()) {
+                _inFlight.remove(key, claim);
+                claim.complete(type);
+            }
+        }
+
+        /**
+         * @return True if calling thread may wait for given construction; false if
+         *    that could deadlock
+         */
+        private boolean _startWaiting(Thread current, InFlight target)
+        {
+            synchronized (_waiting) {
+                // would owner of construction (directly or indirectly) wait for us?
+                for (InFlight f = target; f != null; f = _waiting.get(f._owner)) {
+                    if (f._owner == current) {
+                        return false;
+                    }
+                }
+                _waiting.put(current, target);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Construction of a type by a task of {@link #resolveAll}, that other tasks
+     * may wait for.
+     */
+    private final static class InFlight
+    {
+        final Thread _owner;
+
+        private boolean _done;
+
+        private ResolvedType _type;
+
+        InFlight(Thread owner) {
+            _owner = owner;
+        }
+
+        public synchronized void complete(ResolvedType type) {
+            _type = type;
+            _done = true;
+            notifyAll();
+        }
+
+        /**
+         * @return Constructed type; or null if construction failed, or if waiting
+         *    was interrupted
+         */
+        public synchronized ResolvedType await() {
+            try {
+                while (!_done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return _type;
         }
-        return true;
     }
 }
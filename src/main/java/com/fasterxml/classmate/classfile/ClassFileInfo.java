@@ -0,0 +1,263 @@
+package com.fasterxml.classmate.classfile;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Minimal information read from a class file: name, access flags, names of
+ * direct supertypes and generic class signature (if any). Only parts of class
+ * file needed for these are parsed: constant pool entries other than names,
+ * as well as fields, methods and other attributes, are skipped.
+ *
+ * @since 1.7.4
+ */
+public final class ClassFileInfo
+{
+    public final static int ACC_INTERFACE = 0x0200;
+
+    public final static int ACC_ABSTRACT = 0x0400;
+
+    private final static int MAGIC = 0xCAFEBABE;
+
+    // Constant pool tags we need to know about
+    private final static int CP_UTF8 = 1;
+    private final static int CP_LONG = 5;
+    private final static int CP_DOUBLE = 6;
+    private final static int CP_CLASS = 7;
+
+    private final String _name;
+
+    private final int _accessFlags;
+
+    private final String _superclassName;
+
+    private final List<String> _interfaceNames;
+
+    private final String _signature;
+
+    public ClassFileInfo(String name, int accessFlags, String superclassName,
+            List<String> interfaceNames, String signature)
+    {
+        _name = name;
+        _accessFlags = accessFlags;
+        _superclassName = superclassName;
+        _interfaceNames = Collections.unmodifiableList(interfaceNames);
+        _signature = signature;
+    }
+
+    /**
+     * Method for parsing class file contents from given buffer, starting at its
+     * current position (position of buffer is not modified).
+     *
+     * @throws IllegalArgumentException If contents are not a valid class file
+     */
+    public static ClassFileInfo parse(ByteBuffer buf) throws IllegalArgumentException
+    {
+        try {
+            return new Reader(buf).read();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid class file: truncated content", e);
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Accessors
+    /**********************************************************************
+     */
+
+    /**
+     * @return Binary name of the class (like <code>com.acme.Outer$Inner</code>)
+     */
+    public String getName() { return _name; }
+
+    public int getAccessFlags() { return _accessFlags; }
+
+    public boolean isInterface() { return (_accessFlags & ACC_INTERFACE) != 0; }
+
+    public boolean isAbstract() { return (_accessFlags & ACC_ABSTRACT) != 0; }
+
+    /**
+     * @return Binary name of the direct superclass; null for <code>java.lang.Object</code>
+     *   (as well as for module descriptors)
+     */
+    public String getSuperclassName() { return _superclassName; }
+
+    public List<String> getInterfaceNames() { return _interfaceNames; }
+
+    /**
+     * @return Generic class signature (contents of <code>Signature</code> attribute),
+     *   if class has one; null if not
+     */
+    public String getSignature() { return _signature; }
+
+    @Override
+    public String toString() {
+        return "[ClassFileInfo: "+_name+"]";
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Helper class that does actual parsing, using absolute reads
+     */
+    private final static class Reader
+    {
+        private final ByteBuffer _buf;
+
+        private int _offset;
+
+        /**
+         * Offsets of constant pool entries
+         */
+        private int[] _entries;
+
+        Reader(ByteBuffer buf) {
+            _buf = buf.duplicate().order(ByteOrder.BIG_ENDIAN);
+            _offset = buf.position();
+        }
+
+        public ClassFileInfo read()
+        {
+            if (_u4() != MAGIC) {
+                throw new IllegalArgumentException("Invalid class file: wrong magic number");
+            }
+            _offset += 4; // minor, major version
+            final int count = _u2();
+            _entries = new int[count];
+            for (int i = 1; i < count; ++i) {
+                _entries[i] = _offset;
+                int tag = _u1();
+                switch (tag) {
+                case CP_UTF8:
+                    int len = _u2();
+                    _offset += len;
+                    break;
+                case CP_LONG:
+                case CP_DOUBLE:
+                    _offset += 8;
+                    ++i; // takes two slots
+                    break;
+                case CP_CLASS:
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    _offset += 2;
+                    break;
+                case 15: // MethodHandle
+                    _offset += 3;
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    _offset += 4;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid class file: unrecognized constant pool tag "+tag);
+                }
+            }
+            final int accessFlags = _u2();
+            final String name = _className(_u2());
+            final int superIndex = _u2();
+            final String superName = (superIndex == 0) ? null : _className(superIndex);
+            final int intfCount = _u2();
+            List<String> interfaces = new ArrayList<String>(intfCount);
+            for (int i = 0; i < intfCount; ++i) {
+                interfaces.add(_className(_u2()));
+            }
+            _skipMembers(); // fields
+            _skipMembers(); // methods
+            String signature = null;
+            for (int i = 0, attrCount = _u2(); i < attrCount; ++i) {
+                final int nameIndex = _u2();
+                final int length = _u4();
+                if (signature == null && "Signature".equals(_utf8(nameIndex))) {
+                    signature = _utf8(_u2At(_offset));
+                }
+                _offset += length;
+            }
+            return new ClassFileInfo(name, accessFlags, superName, interfaces, signature);
+        }
+
+        private void _skipMembers()
+        {
+            for (int i = 0, count = _u2(); i < count; ++i) {
+                _offset += 6; // access flags, name, descriptor
+                for (int j = 0, attrCount = _u2(); j < attrCount; ++j) {
+                    _offset += 2;
+                    int len = _u4();
+                    _offset += len;
+                }
+            }
+        }
+
+        private String _className(int index)
+        {
+            int offset = _entry(index, CP_CLASS);
+            return _utf8(_u2At(offset + 1)).replace('/', '.');
+        }
+
+        private String _utf8(int index)
+        {
+            int offset = _entry(index, CP_UTF8);
+            final int len = _u2At(offset + 1);
+            offset += 3;
+            // "modified UTF-8"; usually ASCII, however
+            StringBuilder sb = new StringBuilder(len);
+            final int end = offset + len;
+            while (offset < end) {
+                int c = _buf.get(offset++) & 0xFF;
+                if (c < 0x80) {
+                    sb.append((char) c);
+                } else if ((c & 0xE0) == 0xC0) {
+                    sb.append((char) (((c & 0x1F) << 6) | (_buf.get(offset++) & 0x3F)));
+                } else {
+                    int c2 = _buf.get(offset++) & 0x3F;
+                    int c3 = _buf.get(offset++) & 0x3F;
+                    sb.append((char) (((c & 0x0F) << 12) | (c2 << 6) | c3));
+                }
+            }
+            return sb.toString();
+        }
+
+        private int _entry(int index, int expTag)
+        {
+            if (index <= 0 || index >= _entries.length || _entries[index] == 0
+                    || _buf.get(_entries[index]) != expTag) {
+                throw new IllegalArgumentException("Invalid class file: bad constant pool reference #"+index);
+            }
+            return _entries[index];
+        }
+
+        private int _u1() {
+            return _buf.get(_offset++) & 0xFF;
+        }
+
+        private int _u2() {
+            int v = _u2At(_offset);
+            _offset += 2;
+            return v;
+        }
+
+        private int _u2At(int offset) {
+            return _buf.getShort(offset) & 0xFFFF;
+        }
+
+        private int _u4() {
+            int v = _buf.getInt(_offset);
+            _offset += 4;
+            return v;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.fasterxml.classmate.classfile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Source of class file contents, for reading class files without loading classes.
+ * Class files are looked up from specified roots, in order: directories (in which
+ * case larger files are memory-mapped) and jar files; and if not found from any
+ * of them, optionally as resources of a class loader (which does not load classes
+ * either; this is mostly useful for platform classes like <code>java.lang.Object</code>).
+ *<p>
+ * Instances are thread-safe; they should be closed when no longer needed, to
+ * close jar files.
+ *
+ * @since 1.7.4
+ */
+public class ClassFileSource implements Closeable
+{
+    /**
+     * Minimum size of class files to memory-map; smaller files are faster to
+     * just read
+     */
+    protected final static long MAP_THRESHOLD = 16 * 1024;
+
+    protected final List<Path> _directories = new ArrayList<Path>();
+
+    protected final List<ZipFile> _jars = new ArrayList<ZipFile>();
+
+    protected final ClassLoader _resourceLoader;
+
+    /**
+     * Constructs source that reads class files from given roots, and if not found,
+     * as resources of the system class loader.
+     */
+    public ClassFileSource(Path... roots) throws IOException {
+        this(Arrays.asList(roots), ClassLoader.getSystemClassLoader());
+    }
+
+    /**
+     * @param roots Directories and jar files to read class files from
+     * @param resourceLoader Class loader to use for reading class files not found
+     *    from roots, if any; if null, only roots are used
+     */
+    public ClassFileSource(List<Path> roots, ClassLoader resourceLoader) throws IOException
+    {
+        _resourceLoader = resourceLoader;
+        try {
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    _directories.add(root);
+                } else {
+                    _jars.add(new ZipFile(root.toFile()));
+                }
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method for finding contents of class file of class with given binary name
+     * (like <code>com.acme.Outer$Inner</code>).
+     *
+     * @return Contents of class file, if found; null if not
+     */
+    public ByteBuffer find(String className) throws IOException
+    {
+        final String path = className.replace('.', '/') + ".class";
+        for (Path dir : _directories) {
+            Path file = dir.resolve(path);
+            if (Files.isRegularFile(file)) {
+                return _read(file);
+            }
+        }
+        for (ZipFile jar : _jars) {
+            ZipEntry entry = jar.getEntry(path);
+            if (entry != null) {
+                InputStream in = jar.getInputStream(entry);
+                try {
+                    return ByteBuffer.wrap(_readAll(in, (int) entry.getSize()));
+                } finally {
+                    in.close();
+                }
+            }
+        }
+        if (_resourceLoader != null) {
+            InputStream in = _resourceLoader.getResourceAsStream(path);
+            if (in != null) {
+                try {
+                    return ByteBuffer.wrap(_readAll(in, -1));
+                } finally {
+                    in.close();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        IOException fail = null;
+        for (ZipFile jar : _jars) {
+            try {
+                jar.close();
+            } catch (IOException e) {
+                fail = e;
+            }
+        }
+        _jars.clear();
+        if (fail != null) {
+            throw fail;
+        }
+    }
+
+    private static ByteBuffer _read(Path file) throws IOException
+    {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long size = ch.size();
+            if (size >= MAP_THRESHOLD) {
+                return ch.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) { }
+            buf.flip();
+            return buf;
+        } finally {
+            ch.close();
+        }
+    }
+
+    private static byte[] _readAll(InputStream in, int sizeHint) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((sizeHint > 0) ? sizeHint : 4000);
+        byte[] buffer = new byte[4000];
+        int count;
+        while ((count = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
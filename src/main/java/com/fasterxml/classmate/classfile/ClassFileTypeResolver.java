@@ -0,0 +1,429 @@
+package com.fasterxml.classmate.classfile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolver that constructs {@link DescribedType}s from class files read using a
+ * {@link ClassFileSource}, without loading classes (and thereby without running
+ * static initializers or using Metaspace for classes that are never used).
+ * Only class names, supertypes and generic class signatures are read from
+ * class files; resulting information is cached, so each class file is read
+ * at most once.
+ *<p>
+ * Types that are needed as actual {@link com.fasterxml.classmate.ResolvedType}s
+ * can then be converted (loading classes) using {@link DescribedType#toResolvedType}.
+ *<p>
+ * Instances are thread-safe.
+ *
+ * @since 1.7.4
+ */
+public class ClassFileTypeResolver
+{
+    private final static String[] PRIMITIVE_NAMES = {
+        "boolean", "byte", "short", "char", "int", "long", "float", "double", "void"
+    };
+
+    private final static String PRIMITIVE_CODES = "ZBSCIJFDV";
+
+    /**
+     * Maximum nesting depth of types (type arguments and array element types)
+     * in signatures: same as the maximum number of array dimensions JVM allows.
+     * Deeper signatures are rejected, since parsing (as well as processing of
+     * types parsed) uses recursion.
+     */
+    final static int MAX_NESTING_DEPTH = 255;
+
+    protected final ClassFileSource _source;
+
+    protected final ConcurrentHashMap<String, ClassFileInfo> _classInfos
+        = new ConcurrentHashMap<String, ClassFileInfo>();
+
+    /**
+     * Types referenced without type parameters, by class name
+     */
+    protected final ConcurrentHashMap<String, DescribedType> _rawTypes
+        = new ConcurrentHashMap<String, DescribedType>();
+
+    public ClassFileTypeResolver(ClassFileSource source) {
+        _source = source;
+    }
+
+    /*
+    /**********************************************************************
+    /* Public API
+    /**********************************************************************
+     */
+
+    /**
+     * Method for resolving type with given binary class name (or primitive type name),
+     * with type parameters (if any) resolved to their bounds.
+     */
+    public DescribedType resolve(String className)
+    {
+        DescribedType type = _rawTypes.get(className);
+        if (type == null) {
+            int ix = Arrays.asList(PRIMITIVE_NAMES).indexOf(className);
+            if (ix >= 0) {
+                type = new DescribedType(this, className, PRIMITIVE_CODES.charAt(ix), null,
+                        Collections.<DescribedType>emptyList());
+            } else {
+                type = new DescribedType(this, className, (char) 0, null, null);
+            }
+            DescribedType old = _rawTypes.putIfAbsent(className, type);
+            if (old != null) {
+                type = old;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Method for resolving type with given binary class name and type parameters.
+     */
+    public DescribedType resolve(String className, DescribedType... typeParameters)
+    {
+        if (typeParameters.length == 0) {
+            return resolve(className);
+        }
+        return new DescribedType(this, className, (char) 0, null,
+                Collections.unmodifiableList(new ArrayList<DescribedType>(Arrays.asList(typeParameters))));
+    }
+
+    public DescribedType arrayType(DescribedType elementType) {
+        return new DescribedType(this, null, (char) 0, elementType,
+                Collections.<DescribedType>emptyList());
+    }
+
+    /**
+     * Method for resolving type with given JVM generic type signature (as used for
+     * fields), like <code>Ljava/util/List&lt;Lcom/acme/Foo;&gt;;</code>; type variables
+     * are resolved to <code>java.lang.Object</code>.
+     *
+     * @throws IllegalArgumentException If signature is invalid, or types in it
+     *    are nested more than 255 levels deep
+     */
+    public DescribedType resolveSignature(String signature) throws IllegalArgumentException
+    {
+        Parser p = new Parser(signature, null);
+        DescribedType type = p.parseType();
+        p.verifyEnd();
+        return type;
+    }
+
+    /**
+     * Method for accessing information read from class file of given class.
+     *
+     * @throws IllegalArgumentException If class file is not found, or can not be read
+     */
+    public ClassFileInfo classInfo(String className) throws IllegalArgumentException
+    {
+        ClassFileInfo info = _classInfos.get(className);
+        if (info == null) {
+            ByteBuffer contents;
+            try {
+                contents = _source.find(className);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to read class file of "+className+": "+e.getMessage(), e);
+            }
+            if (contents == null) {
+                throw new IllegalArgumentException("Class file of "+className+" not found");
+            }
+            info = ClassFileInfo.parse(contents);
+            ClassFileInfo old = _classInfos.putIfAbsent(className, info);
+            if (old != null) {
+                info = old;
+            }
+        }
+        return info;
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods, called by DescribedType
+    /**********************************************************************
+     */
+
+    List<DescribedType> _typeParameterBounds(String className)
+    {
+        Set<String> inProgress = new HashSet<String>();
+        inProgress.add(className);
+        return _typeParameterBounds(className, inProgress);
+    }
+
+    /**
+     * Note: raw types referenced from bounds are resolved eagerly (instead of
+     * using shared raw types, whose bounds are resolved lazily), so that
+     * back-references to classes whose bounds are being resolved can be
+     * detected; such references are type-erased (similar to how
+     * {@link com.fasterxml.classmate.types.ResolvedRecursiveType} is used by
+     * {@link com.fasterxml.classmate.TypeResolver}), to avoid cyclic types.
+     */
+    private List<DescribedType> _typeParameterBounds(String className, Set<String> inProgress)
+    {
+        String sig = classInfo(className).getSignature();
+        if (sig == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new Parser(sig, inProgress).parseFormalTypeParameters(null));
+    }
+
+    /**
+     * Helper method for resolving raw type referenced from bounds of type parameters.
+     */
+    private DescribedType _boundType(String className, Set<String> inProgress)
+    {
+        if (inProgress.contains(className)) {
+            return new DescribedType(this, className, (char) 0, null,
+                    Collections.<DescribedType>emptyList());
+        }
+        String sig;
+        try {
+            sig = classInfo(className).getSignature();
+        } catch (IllegalArgumentException e) {
+            // if class file is not available, resolve lazily, failing only if accessed
+            return resolve(className);
+        }
+        if (sig == null) { // not generic, can share
+            return resolve(className);
+        }
+        inProgress.add(className);
+        try {
+            return new DescribedType(this, className, (char) 0, null,
+                    _typeParameterBounds(className, inProgress));
+        } finally {
+            inProgress.remove(className);
+        }
+    }
+
+    /**
+     * @return Array with parent class (or null) as the first element, followed by
+     *    implemented interfaces
+     */
+    DescribedType[] _supertypes(DescribedType type)
+    {
+        ClassFileInfo info = classInfo(type._erasedName);
+        ArrayList<DescribedType> result = new ArrayList<DescribedType>();
+        String sig = info.getSignature();
+        if (sig == null) {
+            result.add((info.getSuperclassName() == null) ? null : resolve(info.getSuperclassName()));
+            for (String name : info.getInterfaceNames()) {
+                result.add(resolve(name));
+            }
+        } else {
+            Parser p = new Parser(sig, null);
+            p.parseFormalTypeParameters(type.getTypeParameters());
+            result.add(p.parseType());
+            while (p.peek() != 0) {
+                result.add(p.parseType());
+            }
+        }
+        // for consistency with ResolvedType, interfaces have no parent class
+        if (info.isInterface()) {
+            result.set(0, null);
+        }
+        return result.toArray(new DescribedType[0]);
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Parser for JVM signatures; similar to one used by
+     * {@link com.fasterxml.classmate.util.TypeSignatures} but constructs
+     * {@link DescribedType}s
+     */
+    private final class Parser
+    {
+        private final String _input;
+
+        /**
+         * Names of classes whose type parameter bounds are being resolved, if any
+         */
+        private final Set<String> _inProgress;
+
+        private Map<String, DescribedType> _variables;
+
+        private int _offset;
+
+        private int _depth;
+
+        Parser(String input, Set<String> inProgress) {
+            _input = input;
+            _inProgress = inProgress;
+        }
+
+        public DescribedType parseType()
+        {
+            if (_depth == MAX_NESTING_DEPTH) {
+                throw problem("Types nested too deeply (over "+MAX_NESTING_DEPTH+" levels)");
+            }
+            ++_depth;
+            try {
+                return _parseType();
+            } finally {
+                --_depth;
+            }
+        }
+
+        private DescribedType _parseType()
+        {
+            char c = _next();
+            switch (c) {
+            case 'L':
+                return _parseClassType();
+            case '[':
+                return arrayType(parseType());
+            case 'T':
+                return _parseTypeVariable();
+            default:
+            }
+            int ix = PRIMITIVE_CODES.indexOf(c);
+            if (ix < 0) {
+                --_offset;
+                throw problem("Unrecognized type signature character '"+c+"'");
+            }
+            return resolve(PRIMITIVE_NAMES[ix]);
+        }
+
+        /**
+         * Method for parsing optional formal type parameters: binding them to given
+         * types, if any, or to their first bounds.
+         */
+        public List<DescribedType> parseFormalTypeParameters(List<DescribedType> bound)
+        {
+            ArrayList<DescribedType> result = new ArrayList<DescribedType>();
+            if (peek() != '<') {
+                return result;
+            }
+            _next();
+            _variables = new HashMap<String, DescribedType>();
+            do {
+                int ix = _input.indexOf(':', _offset);
+                if (ix <= _offset) {
+                    throw problem("Expected type parameter name");
+                }
+                String name = _input.substring(_offset, ix);
+                _offset = ix;
+                DescribedType type = null;
+                while (peek() == ':') {
+                    _next();
+                    char c = peek();
+                    if (c == ':' || c == '>') {
+                        continue;
+                    }
+                    DescribedType b = parseType();
+                    if (type == null) {
+                        type = b;
+                    }
+                }
+                final int index = result.size();
+                if (bound != null && index < bound.size()) {
+                    type = bound.get(index);
+                } else if (type == null) {
+                    type = resolve("java.lang.Object");
+                }
+                _variables.put(name, type);
+                result.add(type);
+            } while (peek() != '>');
+            _next();
+            return result;
+        }
+
+        private DescribedType _parseTypeVariable()
+        {
+            int ix = _input.indexOf(';', _offset);
+            if (ix < 0) {
+                _offset = _input.length();
+                throw problem("Unexpected end of signature");
+            }
+            String name = _input.substring(_offset, ix);
+            _offset = ix+1;
+            DescribedType type = (_variables == null) ? null : _variables.get(name);
+            // unbound (or not yet bound, for self-references in bounds)
+            return (type == null) ? resolve("java.lang.Object") : type;
+        }
+
+        private DescribedType _parseClassType()
+        {
+            StringBuilder name = new StringBuilder();
+            ArrayList<DescribedType> params = null;
+            while (true) {
+                char c = _next();
+                if (c == ';') {
+                    break;
+                }
+                if (c == '<') {
+                    params = _parseTypeArguments();
+                    continue;
+                }
+                if (c == '/') {
+                    c = '.';
+                } else if (c == '.') { // inner class of (generic) outer class
+                    c = '$';
+                    params = null;
+                }
+                name.append(c);
+            }
+            if (params == null) {
+                return (_inProgress == null) ? resolve(name.toString())
+                        : _boundType(name.toString(), _inProgress);
+            }
+            return resolve(name.toString(), params.toArray(new DescribedType[0]));
+        }
+
+        private ArrayList<DescribedType> _parseTypeArguments()
+        {
+            ArrayList<DescribedType> params = new ArrayList<DescribedType>();
+            while (true) {
+                char c = _next();
+                if (c == '>') {
+                    return params;
+                }
+                switch (c) {
+                case '*': // unbounded wildcard
+                case '-': // lower-bounded; upper bound still Object
+                    if (c == '-') {
+                        parseType();
+                    }
+                    params.add(resolve("java.lang.Object"));
+                    break;
+                case '+':
+                    params.add(parseType());
+                    break;
+                default:
+                    --_offset;
+                    params.add(parseType());
+                }
+            }
+        }
+
+        public char peek() {
+            return (_offset < _input.length()) ? _input.charAt(_offset) : 0;
+        }
+
+        public void verifyEnd() {
+            if (_offset != _input.length()) {
+                throw problem("Unexpected trailing content");
+            }
+        }
+
+        private char _next()
+        {
+            if (_offset >= _input.length()) {
+                throw problem("Unexpected end of signature");
+            }
+            return _input.charAt(_offset++);
+        }
+
+        public IllegalArgumentException problem(String msg) {
+            return new IllegalArgumentException("Invalid type signature \""+_input
+                    +"\" (at offset "+_offset+"): "+msg);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.fasterxml.classmate.classfile;
+
+import java.util.*;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+/**
+ * Lightweight counterpart of {@link ResolvedType}, constructed by
+ * {@link ClassFileTypeResolver} from class files, without loading classes.
+ * Refers to classes by (binary) name; supertypes and (for types referenced
+ * without type parameters) bounds of type parameters are resolved lazily,
+ * reading class files as needed. Equivalent {@link ResolvedType} (which requires
+ * loading classes) may be constructed using {@link #toResolvedType}.
+ *<p>
+ * Like {@link ResolvedType}, type parameters are always fully bound: type variables
+ * that are not bound are resolved to their bounds, and wildcards to their upper bounds.
+ *
+ * @since 1.7.4
+ */
+public class DescribedType
+{
+    protected final ClassFileTypeResolver _resolver;
+
+    /**
+     * Binary name of the class, for class types; primitive type name for primitive types
+     * (including <code>void</code>); null for array types
+     */
+    protected final String _erasedName;
+
+    /**
+     * JVM signature character for primitive types; 0 for others
+     */
+    protected final char _primitiveCode;
+
+    protected final DescribedType _elementType;
+
+    /**
+     * Type parameters; null if not yet resolved (for types referenced without
+     * type parameters, which get bounds of type parameters)
+     */
+    protected volatile List<DescribedType> _typeParameters;
+
+    private volatile DescribedType _parentClass;
+
+    private volatile List<DescribedType> _interfaces;
+
+    private volatile boolean _supertypesResolved;
+
+    protected DescribedType(ClassFileTypeResolver resolver, String erasedName, char primitiveCode,
+            DescribedType elementType, List<DescribedType> typeParameters)
+    {
+        _resolver = resolver;
+        _erasedName = erasedName;
+        _primitiveCode = primitiveCode;
+        _elementType = elementType;
+        _typeParameters = typeParameters;
+    }
+
+    /*
+    /**********************************************************************
+    /* Accessors
+    /**********************************************************************
+     */
+
+    /**
+     * @return Name of type-erased class, in the format <code>java.lang.Class.getName()</code>
+     *    uses: binary name for class types, primitive type name for primitive types,
+     *    and descriptor (like <code>[Ljava.lang.String;</code>) for array types
+     */
+    public String getErasedName() {
+        if (_elementType != null) {
+            String elemName = _elementType.getErasedName();
+            if (_elementType._elementType != null) {
+                return "[" + elemName;
+            }
+            if (_elementType._primitiveCode != 0) {
+                return "[" + _elementType._primitiveCode;
+            }
+            return "[L" + elemName + ";";
+        }
+        return _erasedName;
+    }
+
+    public boolean isPrimitive() { return _primitiveCode != 0; }
+
+    public boolean isArray() { return _elementType != null; }
+
+    public DescribedType getArrayElementType() { return _elementType; }
+
+    /**
+     * Note: for interfaces reads class file, if not yet read.
+     */
+    public boolean isInterface() {
+        return (_erasedName != null) && (_primitiveCode == 0)
+                && _resolver.classInfo(_erasedName).isInterface();
+    }
+
+    /**
+     * Note: for types referenced without type parameters, resolves
+     * bounds of type parameters (reading class file), if not yet done.
+     */
+    public List<DescribedType> getTypeParameters() {
+        List<DescribedType> params = _typeParameters;
+        if (params == null) {
+            _typeParameters = params = _resolver._typeParameterBounds(_erasedName);
+        }
+        return params;
+    }
+
+    /**
+     * @return Parent class of this type, if it has one; null for interfaces, primitive
+     *   types and <code>java.lang.Object</code> (similar to {@link ResolvedType#getParentClass()})
+     */
+    public DescribedType getParentClass() {
+        _resolveSupertypes();
+        return _parentClass;
+    }
+
+    public List<DescribedType> getImplementedInterfaces() {
+        _resolveSupertypes();
+        return _interfaces;
+    }
+
+    /**
+     * Method for finding supertype of this type (or type itself) that has
+     * specified type-erased class, if any; see {@link ResolvedType#findSupertype}.
+     */
+    public DescribedType findSupertype(String erasedName)
+    {
+        if (erasedName.equals(_erasedName)) {
+            return this;
+        }
+        for (DescribedType it : getImplementedInterfaces()) {
+            DescribedType type = it.findSupertype(erasedName);
+            if (type != null) {
+                return type;
+            }
+        }
+        DescribedType pc = getParentClass();
+        return (pc == null) ? null : pc.findSupertype(erasedName);
+    }
+
+    /*
+    /**********************************************************************
+    /* Conversions
+    /**********************************************************************
+     */
+
+    /**
+     * Method for constructing full generic signature of this type, in the same
+     * format as {@link com.fasterxml.classmate.util.TypeSignatures#genericSignatureOf}.
+     */
+    public String getSignature() {
+        return appendSignature(new StringBuilder()).toString();
+    }
+
+    public StringBuilder appendSignature(StringBuilder sb)
+    {
+        // Types may be constructed with arbitrarily deep nesting, so instead of
+        // recursion, use explicit stack of types (and closing characters) to append
+        ArrayDeque<Object> pending = new ArrayDeque<Object>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String) {
+                sb.append((String) next);
+                continue;
+            }
+            DescribedType type = (DescribedType) next;
+            if (type._primitiveCode != 0) {
+                sb.append(type._primitiveCode);
+            } else if (type._elementType != null) {
+                sb.append('[');
+                pending.push(type._elementType);
+            } else {
+                sb.append('L').append(type._erasedName.replace('.', '/'));
+                List<DescribedType> params = type.getTypeParameters();
+                if (params.isEmpty()) {
+                    sb.append(';');
+                } else {
+                    sb.append('<');
+                    pending.push(">;");
+                    for (int i = params.size(); --i >= 0; ) {
+                        pending.push(params.get(i));
+                    }
+                }
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Method for resolving equivalent {@link ResolvedType}: this requires loading
+     * classes referenced, using given class loader.
+     *
+     * @throws IllegalArgumentException If a class can not be loaded
+     */
+    public ResolvedType toResolvedType(TypeResolver typeResolver, ClassLoader loader)
+        throws IllegalArgumentException
+    {
+        return typeResolver.parseSignature(getSignature(), loader);
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private void _resolveSupertypes()
+    {
+        if (!_supertypesResolved) {
+            if (_primitiveCode != 0) {
+                _interfaces = Collections.emptyList();
+            } else if (_elementType != null) {
+                // arrays only have java.lang.Object as parent (similar to ResolvedArrayType)
+                _parentClass = _resolver.resolve("java.lang.Object");
+                _interfaces = Collections.emptyList();
+            } else {
+                DescribedType[] result = _resolver._supertypes(this);
+                _parentClass = result[0];
+                _interfaces = Collections.unmodifiableList(
+                        Arrays.asList(result).subList(1, result.length));
+            }
+            _supertypesResolved = true;
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Standard methods
+    /**********************************************************************
+     */
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (_elementType != null) {
+            return sb.append(_elementType).append("[]").toString();
+        }
+        sb.append(_erasedName);
+        List<DescribedType> params = (_primitiveCode == 0) ? getTypeParameters()
+                : Collections.<DescribedType>emptyList();
+        if (!params.isEmpty()) {
+            sb.append('<');
+            for (int i = 0, len = params.size(); i < len; ++i) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(params.get(i));
+            }
+            sb.append('>');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return getSignature().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o == null || o.getClass() != getClass()) return false;
+        return getSignature().equals(((DescribedType) o).getSignature());
+    }
+}
@@ -0,0 +1,220 @@
+package com.fasterxml.classmate.classfile;
+
+import java.util.*;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+/**
+ * View of a type descriptor in a {@link TypeIndex}: only contains offset of the
+ * descriptor, and all accessors read the index, so instances are cheap to create
+ * and need not be retained. API is similar to that of {@link DescribedType}.
+ *
+ * @since 1.7.4
+ */
+public final class IndexedType
+{
+    private final TypeIndex _index;
+
+    private final int _offset;
+
+    IndexedType(TypeIndex index, int offset) {
+        _index = index;
+        _offset = offset;
+    }
+
+    /*
+    /**********************************************************************
+    /* Accessors
+    /**********************************************************************
+     */
+
+    /**
+     * @return Name of type-erased class, in the format <code>java.lang.Class.getName()</code>
+     *    uses (see {@link DescribedType#getErasedName})
+     */
+    public String getErasedName()
+    {
+        if (isArray()) {
+            IndexedType elem = getArrayElementType();
+            String elemName = elem.getErasedName();
+            if (elem.isArray()) {
+                return "[" + elemName;
+            }
+            if (elem.isPrimitive()) {
+                return "[" + elem._primitiveCode();
+            }
+            return "[L" + elemName + ";";
+        }
+        return _index._string(_index._int(_offset + 8));
+    }
+
+    public boolean isPrimitive() { return _kind() == TypeIndex.KIND_PRIMITIVE; }
+
+    public boolean isArray() { return _kind() == TypeIndex.KIND_ARRAY; }
+
+    public boolean isInterface() {
+        return (_index._u1(_offset + 1) & TypeIndex.FLAG_INTERFACE) != 0;
+    }
+
+    public IndexedType getArrayElementType() {
+        return isArray() ? _type(_offset + 8) : null;
+    }
+
+    public List<IndexedType> getTypeParameters() {
+        return _types(_offset + TypeIndex.DESCRIPTOR_LENGTH, _index._u2(_offset + 2));
+    }
+
+    /**
+     * @return Parent class of this type, if it has one; null for interfaces, primitive
+     *   types and <code>java.lang.Object</code>
+     */
+    public IndexedType getParentClass() {
+        return _type(_offset + 12);
+    }
+
+    public List<IndexedType> getImplementedInterfaces() {
+        int paramCount = _index._u2(_offset + 2);
+        return _types(_offset + TypeIndex.DESCRIPTOR_LENGTH + 4 * paramCount, _index._u2(_offset + 4));
+    }
+
+    /**
+     * Method for finding supertype of this type (or type itself) that has
+     * specified type-erased class, if any; see {@link ResolvedType#findSupertype}.
+     */
+    public IndexedType findSupertype(String erasedName)
+    {
+        if (!isArray() && erasedName.equals(getErasedName())) {
+            return this;
+        }
+        for (IndexedType it : getImplementedInterfaces()) {
+            IndexedType type = it.findSupertype(erasedName);
+            if (type != null) {
+                return type;
+            }
+        }
+        IndexedType pc = getParentClass();
+        return (pc == null) ? null : pc.findSupertype(erasedName);
+    }
+
+    /*
+    /**********************************************************************
+    /* Conversions
+    /**********************************************************************
+     */
+
+    /**
+     * Method for constructing full generic signature of this type, in the same
+     * format as {@link DescribedType#getSignature}.
+     */
+    public String getSignature() {
+        return appendSignature(new StringBuilder()).toString();
+    }
+
+    public StringBuilder appendSignature(StringBuilder sb)
+    {
+        switch (_kind()) {
+        case TypeIndex.KIND_PRIMITIVE:
+            return sb.append(_primitiveCode());
+        case TypeIndex.KIND_ARRAY:
+            return getArrayElementType().appendSignature(sb.append('['));
+        default:
+        }
+        sb.append('L').append(getErasedName().replace('.', '/'));
+        List<IndexedType> params = getTypeParameters();
+        if (!params.isEmpty()) {
+            sb.append('<');
+            for (IndexedType param : params) {
+                param.appendSignature(sb);
+            }
+            sb.append('>');
+        }
+        return sb.append(';');
+    }
+
+    /**
+     * Method for resolving equivalent {@link ResolvedType}: this requires loading
+     * classes referenced, using given class loader.
+     *
+     * @throws IllegalArgumentException If a class can not be loaded
+     */
+    public ResolvedType toResolvedType(TypeResolver typeResolver, ClassLoader loader)
+        throws IllegalArgumentException
+    {
+        return typeResolver.parseSignature(getSignature(), loader);
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private int _kind() {
+        return _index._u1(_offset);
+    }
+
+    private char _primitiveCode() {
+        String name = getErasedName();
+        return "boolean".equals(name) ? 'Z'
+                : ("long".equals(name) ? 'J' : Character.toUpperCase(name.charAt(0)));
+    }
+
+    private IndexedType _type(int refOffset) {
+        int offset = _index._int(refOffset);
+        return (offset == 0) ? null : new IndexedType(_index, offset);
+    }
+
+    private List<IndexedType> _types(int refOffset, int count)
+    {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<IndexedType> result = new ArrayList<IndexedType>(count);
+        for (int i = 0; i < count; ++i) {
+            result.add(_type(refOffset + 4 * i));
+        }
+        return result;
+    }
+
+    /*
+    /**********************************************************************
+    /* Standard methods
+    /**********************************************************************
+     */
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (isArray()) {
+            return sb.append(getArrayElementType()).append("[]").toString();
+        }
+        sb.append(getErasedName());
+        List<IndexedType> params = getTypeParameters();
+        if (!params.isEmpty()) {
+            sb.append('<');
+            for (int i = 0, len = params.size(); i < len; ++i) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(params.get(i));
+            }
+            sb.append('>');
+        }
+        return sb.toString();
+    }
+
+    // Descriptors are unique within index, so offset identifies type
+    @Override
+    public int hashCode() {
+        return _offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (!(o instanceof IndexedType)) return false;
+        IndexedType other = (IndexedType) o;
+        return (other._index == _index) && (other._offset == _offset);
+    }
+}
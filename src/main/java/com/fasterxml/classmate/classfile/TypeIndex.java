@@ -0,0 +1,189 @@
+package com.fasterxml.classmate.classfile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+/**
+ * Read-only, off-heap index of type descriptors, written by {@link TypeIndexWriter}
+ * and accessed through a (usually memory-mapped) {@link ByteBuffer}. Meant for
+ * querying types of large class paths, for which keeping {@link ResolvedType}s
+ * (or even {@link DescribedType}s) of all types on heap would not be viable:
+ * lookups return {@link IndexedType}s, which are just offsets into the index,
+ * and {@link ResolvedType}s are constructed only on demand (see
+ * {@link #resolve(TypeResolver, String, ClassLoader)}).
+ *<p>
+ * Index file consists of a header, type descriptors, strings and a hash table
+ * for looking up classes by name; all numbers are big-endian, and all references
+ * are absolute offsets within the file:
+ *<ul>
+ * <li>Header: magic number, format version, number of descriptors, offset of strings,
+ *    offset and number of slots of hash table (6 x 32-bit ints)
+ *  </li>
+ * <li>Descriptor: kind (8 bits), flags (8 bits), number of type parameters (16 bits),
+ *    number of interfaces (16 bits), padding (16 bits), offset of name (or of element
+ *    type for arrays), offset of parent class (0 if none), followed by offsets of
+ *    type parameters and interfaces (all 32 bits)
+ *  </li>
+ * <li>String: length in bytes (16 bits), followed by UTF-8 encoded characters
+ *  </li>
+ * <li>Hash table slot: offset of descriptor of class (0 for empty slot), using
+ *    open addressing with linear probing
+ *  </li>
+ *</ul>
+ * Instances are thread-safe.
+ *
+ * @since 1.7.4
+ */
+public class TypeIndex
+{
+    final static int MAGIC = 0x434D5449; // "CMTI"
+
+    final static int FORMAT_VERSION = 1;
+
+    final static int HEADER_LENGTH = 24;
+
+    final static int DESCRIPTOR_LENGTH = 16;
+
+    final static int KIND_CLASS = 0;
+    final static int KIND_PRIMITIVE = 1;
+    final static int KIND_ARRAY = 2;
+
+    final static int FLAG_INTERFACE = 0x01;
+
+    protected final ByteBuffer _buffer;
+
+    protected final int _typeCount;
+
+    protected final int _tableOffset;
+
+    protected final int _tableSize;
+
+    /**
+     * @param buffer Contents of index; contents between position and limit are used
+     *
+     * @throws IllegalArgumentException If contents are not a valid index
+     */
+    public TypeIndex(ByteBuffer buffer) throws IllegalArgumentException
+    {
+        _buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (_buffer.limit() < HEADER_LENGTH || _buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Invalid type index: wrong magic number");
+        }
+        int version = _buffer.getInt(4);
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Invalid type index: unsupported format version "+version);
+        }
+        _typeCount = _buffer.getInt(8);
+        _tableOffset = _buffer.getInt(16);
+        _tableSize = _buffer.getInt(20);
+        if (_tableSize <= 0 || (_tableSize & (_tableSize - 1)) != 0
+                || _tableOffset < HEADER_LENGTH
+                || (_tableOffset + 4L * _tableSize) > _buffer.limit()) {
+            throw new IllegalArgumentException("Invalid type index: bad lookup table ("
+                    +_tableSize+" slots at offset "+_tableOffset+")");
+        }
+    }
+
+    /**
+     * Method for memory-mapping index from given file. File is closed before
+     * returning; the mapping itself remains valid (and its memory in use) until
+     * returned index is garbage collected.
+     */
+    public static TypeIndex open(Path file) throws IOException
+    {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TypeIndex(ch.map(FileChannel.MapMode.READ_ONLY, 0L, ch.size()));
+        } finally {
+            ch.close();
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Public API
+    /**********************************************************************
+     */
+
+    /**
+     * @return Number of type descriptors in the index
+     */
+    public int typeCount() {
+        return _typeCount;
+    }
+
+    /**
+     * Method for finding type of class with given binary name (with type
+     * parameters bound to their bounds), if class was added to the index.
+     *
+     * @return Type of class, if included in the index; null if not
+     */
+    public IndexedType find(String className)
+    {
+        final int mask = _tableSize - 1;
+        int ix = _hash(className) & mask;
+        // table written always has empty slots, but corrupt one might not
+        for (int i = 0; i < _tableSize; ++i) {
+            int offset = _buffer.getInt(_tableOffset + 4 * ix);
+            if (offset == 0) {
+                break;
+            }
+            if (className.equals(_string(_buffer.getInt(offset + 8)))) {
+                return new IndexedType(this, offset);
+            }
+            ix = (ix + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Method for resolving {@link ResolvedType} of class with given name, using
+     * descriptor from the index (and given class loader for loading classes).
+     *
+     * @return Resolved type, if class is included in the index; null if not
+     */
+    public ResolvedType resolve(TypeResolver typeResolver, String className, ClassLoader loader)
+    {
+        IndexedType type = find(className);
+        return (type == null) ? null : type.toResolvedType(typeResolver, loader);
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    static int _hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    String _string(int offset)
+    {
+        int len = _buffer.getShort(offset) & 0xFFFF;
+        byte[] b = new byte[len];
+        ByteBuffer buf = _buffer.duplicate();
+        buf.position(offset + 2);
+        buf.get(b);
+        return new String(b, TypeIndexWriter.UTF8);
+    }
+
+    int _u1(int offset) {
+        return _buffer.get(offset) & 0xFF;
+    }
+
+    int _u2(int offset) {
+        return _buffer.getShort(offset) & 0xFFFF;
+    }
+
+    int _int(int offset) {
+        return _buffer.getInt(offset);
+    }
+}
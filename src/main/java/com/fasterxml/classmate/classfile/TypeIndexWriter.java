@@ -0,0 +1,293 @@
+package com.fasterxml.classmate.classfile;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Builder for {@link TypeIndex} files: collects descriptors of classes (and of
+ * all types they refer to, that is, their supertypes, type parameters and
+ * array element types) using a {@link ClassFileTypeResolver}, so classes need
+ * not be loaded; and writes them in the index file format.
+ * Meant to be run "offline", for example as part of a build, since collecting
+ * descriptors requires having them all in memory.
+ *<p>
+ * Instances are not thread-safe.
+ *
+ * @since 1.7.4
+ */
+public class TypeIndexWriter
+{
+    final static Charset UTF8 = Charset.forName("UTF-8");
+
+    protected final ClassFileTypeResolver _resolver;
+
+    /**
+     * Types to write, in order
+     */
+    protected final List<DescribedType> _types = new ArrayList<DescribedType>();
+
+    /**
+     * Indexes of types in {@link #_types}, by signature
+     */
+    protected final Map<String, Integer> _typeIndexes = new HashMap<String, Integer>();
+
+    /**
+     * Indexes of types added by name (which may be looked up from index), by class name
+     */
+    protected final Map<String, Integer> _classes = new LinkedHashMap<String, Integer>();
+
+    protected final List<String> _skipped = new ArrayList<String>();
+
+    public TypeIndexWriter(ClassFileTypeResolver resolver) {
+        _resolver = resolver;
+    }
+
+    /*
+    /**********************************************************************
+    /* Public API, adding types
+    /**********************************************************************
+     */
+
+    /**
+     * Method for adding class with given binary name (with type parameters
+     * resolved to their bounds) to the index, along with all types it refers to.
+     *
+     * @throws IllegalArgumentException If class file of the class, or one of its
+     *    supertypes, can not be found or read; if so, nothing is added
+     */
+    public void addClass(String className) throws IllegalArgumentException
+    {
+        if (_classes.containsKey(className)) {
+            return;
+        }
+        // First collect all types not yet included, so failure leaves no partial state
+        Map<String, DescribedType> added = new LinkedHashMap<String, DescribedType>();
+        ArrayDeque<DescribedType> pending = new ArrayDeque<DescribedType>();
+        DescribedType root = _resolver.resolve(className);
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            DescribedType type = pending.removeFirst();
+            String sig = type.getSignature();
+            if (_typeIndexes.containsKey(sig) || added.containsKey(sig)) {
+                continue;
+            }
+            added.put(sig, type);
+            if (type.isArray()) {
+                pending.add(type.getArrayElementType());
+            }
+            pending.addAll(type.getTypeParameters());
+            if (type.getParentClass() != null) {
+                pending.add(type.getParentClass());
+            }
+            pending.addAll(type.getImplementedInterfaces());
+        }
+        for (Map.Entry<String, DescribedType> entry : added.entrySet()) {
+            _typeIndexes.put(entry.getKey(), _types.size());
+            _types.add(entry.getValue());
+        }
+        _classes.put(className, _typeIndexes.get(root.getSignature()));
+    }
+
+    /**
+     * Method for adding all classes found from given directory or jar file. Classes
+     * that can not be added (usually since class file of a supertype can not be found,
+     * or for pathologically deeply nested types) are skipped; names of such classes
+     * may be accessed using {@link #getSkippedClasses}.
+     *
+     * @return Number of classes added
+     */
+    public int addClasses(Path root) throws IOException
+    {
+        List<String> names = new ArrayList<String>();
+        if (Files.isDirectory(root)) {
+            _findClassNames(root, root, names);
+        } else {
+            ZipFile jar = new ZipFile(root.toFile());
+            try {
+                for (Enumeration<? extends ZipEntry> en = jar.entries(); en.hasMoreElements(); ) {
+                    ZipEntry entry = en.nextElement();
+                    if (!entry.isDirectory()) {
+                        _addClassName(entry.getName(), names);
+                    }
+                }
+            } finally {
+                jar.close();
+            }
+        }
+        int count = 0;
+        for (String name : names) {
+            try {
+                addClass(name);
+                ++count;
+            } catch (IllegalArgumentException e) {
+                _skipped.add(name);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Number of classes added (that may be looked up by name)
+     */
+    public int classCount() {
+        return _classes.size();
+    }
+
+    /**
+     * @return Number of type descriptors to write: added classes and types they refer to
+     */
+    public int typeCount() {
+        return _types.size();
+    }
+
+    /**
+     * @return Names of classes skipped by {@link #addClasses}
+     */
+    public List<String> getSkippedClasses() {
+        return Collections.unmodifiableList(_skipped);
+    }
+
+    /*
+    /**********************************************************************
+    /* Public API, writing
+    /**********************************************************************
+     */
+
+    public void write(Path file) throws IOException
+    {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+        try {
+            write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Method for writing index in the format described in {@link TypeIndex}.
+     * Does not close the stream.
+     */
+    public void write(OutputStream out) throws IOException
+    {
+        final int typeCount = _types.size();
+        // First: offsets of descriptors
+        int[] offsets = new int[typeCount];
+        long offset = TypeIndex.HEADER_LENGTH;
+        for (int i = 0; i < typeCount; ++i) {
+            offsets[i] = (int) offset;
+            DescribedType type = _types.get(i);
+            offset += TypeIndex.DESCRIPTOR_LENGTH
+                    + 4 * (type.getTypeParameters().size() + type.getImplementedInterfaces().size());
+            _verifyLength(offset);
+        }
+        // then strings (names of classes and primitive types)
+        final int stringsOffset = (int) offset;
+        Map<String, Integer> stringOffsets = new LinkedHashMap<String, Integer>();
+        for (DescribedType type : _types) {
+            if (!type.isArray() && !stringOffsets.containsKey(type._erasedName)) {
+                stringOffsets.put(type._erasedName, (int) offset);
+                offset += 2 + type._erasedName.getBytes(UTF8).length;
+                _verifyLength(offset);
+            }
+        }
+        // and finally hash table for looking up classes by name
+        final int tableOffset = (int) offset;
+        int tableSize = 2;
+        while (tableSize < 2 * _classes.size()) {
+            tableSize += tableSize;
+        }
+        _verifyLength(offset + 4L * tableSize);
+        int[] table = new int[tableSize];
+        for (Map.Entry<String, Integer> entry : _classes.entrySet()) {
+            int ix = TypeIndex._hash(entry.getKey()) & (tableSize - 1);
+            while (table[ix] != 0) {
+                ix = (ix + 1) & (tableSize - 1);
+            }
+            table[ix] = offsets[entry.getValue()];
+        }
+
+        DataOutputStream dout = new DataOutputStream(out);
+        dout.writeInt(TypeIndex.MAGIC);
+        dout.writeInt(TypeIndex.FORMAT_VERSION);
+        dout.writeInt(typeCount);
+        dout.writeInt(stringsOffset);
+        dout.writeInt(tableOffset);
+        dout.writeInt(tableSize);
+        for (DescribedType type : _types) {
+            List<DescribedType> params = type.getTypeParameters();
+            List<DescribedType> interfaces = type.getImplementedInterfaces();
+            DescribedType parent = type.getParentClass();
+            int kind = type.isPrimitive() ? TypeIndex.KIND_PRIMITIVE
+                    : (type.isArray() ? TypeIndex.KIND_ARRAY : TypeIndex.KIND_CLASS);
+            dout.writeByte(kind);
+            dout.writeByte(type.isInterface() ? TypeIndex.FLAG_INTERFACE : 0);
+            dout.writeShort(params.size());
+            dout.writeShort(interfaces.size());
+            dout.writeShort(0);
+            dout.writeInt(type.isArray() ? _offsetOf(type.getArrayElementType(), offsets)
+                    : stringOffsets.get(type._erasedName));
+            dout.writeInt((parent == null) ? 0 : _offsetOf(parent, offsets));
+            for (DescribedType param : params) {
+                dout.writeInt(_offsetOf(param, offsets));
+            }
+            for (DescribedType intf : interfaces) {
+                dout.writeInt(_offsetOf(intf, offsets));
+            }
+        }
+        for (String str : stringOffsets.keySet()) {
+            byte[] b = str.getBytes(UTF8);
+            dout.writeShort(b.length);
+            dout.write(b);
+        }
+        for (int entry : table) {
+            dout.writeInt(entry);
+        }
+        dout.flush();
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private int _offsetOf(DescribedType type, int[] offsets) {
+        return offsets[_typeIndexes.get(type.getSignature())];
+    }
+
+    private static void _verifyLength(long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Type index too big: over "+Integer.MAX_VALUE+" bytes");
+        }
+    }
+
+    private static void _findClassNames(Path root, Path dir, List<String> names) throws IOException
+    {
+        DirectoryStream<Path> entries = Files.newDirectoryStream(dir);
+        try {
+            for (Path path : entries) {
+                if (Files.isDirectory(path)) {
+                    _findClassNames(root, path, names);
+                } else {
+                    _addClassName(root.relativize(path).toString().replace(File.separatorChar, '/'), names);
+                }
+            }
+        } finally {
+            entries.close();
+        }
+    }
+
+    private static void _addClassName(String path, List<String> names)
+    {
+        if (path.endsWith(".class") && !path.startsWith("META-INF/")) {
+            String name = path.substring(0, path.length() - 6);
+            if (!name.endsWith("module-info") && !name.endsWith("package-info")) {
+                names.add(name.replace('/', '.'));
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * Package that contains support for describing types based on class files,
+ * without loading (or initializing) classes; see
+ * {@link com.fasterxml.classmate.classfile.ClassFileTypeResolver}; as well as
+ * off-heap indexes of such type descriptions (see
+ * {@link com.fasterxml.classmate.classfile.TypeIndex}).
+ *
+ * @since 1.7.4
+ */
+package com.fasterxml.classmate.classfile;
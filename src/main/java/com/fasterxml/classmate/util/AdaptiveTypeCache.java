@@ -0,0 +1,341 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.Filter;
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * LRU {@link ResolvedTypeCache} implementation that adjusts its capacity, within
+ * specified bounds, based on statistics it collects on access patterns. Statistics
+ * are evaluated at the end of each window of {@link #WINDOW_LOOKUPS} lookups:
+ *<ul>
+ * <li>Misses for keys recently evicted (tracked as "ghosts": only hash codes of
+ *   keys are retained, so that neither types nor classes are) would have been hits
+ *   with larger capacity: if such misses are at least {@link #GROW_MIN_GHOST_RATIO}
+ *   of lookups, and time spent re-constructing types for them (based on average
+ *   construction time, as passed by {@link com.fasterxml.classmate.TypeResolver},
+ *   if known) is significant compared to the number of lookups, capacity is grown by 50%.
+ *  </li>
+ * <li>If there are no such misses, capacity is gradually shrunk towards
+ *   twice the number of entries accessed during the window (but by no more than
+ *   25% at a time), and least recently used entries evicted as necessary.
+ *  </li>
+ *</ul>
+ * Starts with minimum capacity, so with no observed benefit from
+ * additional capacity, works the same as {@link LRUTypeCache}.
+ * Note that this cache is not used by default (see
+ * {@link ResolvedTypeCache#adaptiveCache(int, int)}).
+ *<p>
+ * Since ghosts are tracked by hash codes, a (rare) collision may be counted as a
+ * miss that would have been a hit; this only affects statistics.
+ *<p>
+ * Like {@link LRUTypeCache}, access is fully synchronized.
+ *
+ * @since 1.7.4
+ */
+public class AdaptiveTypeCache extends ResolvedTypeCache
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of lookups after which statistics are evaluated and capacity
+     * possibly adjusted.
+     */
+    public final static int WINDOW_LOOKUPS = 1000;
+
+    /**
+     * Minimum ratio of avoidable misses (ones for recently evicted keys) to lookups
+     * within a window for capacity to be grown: that is, growing has to improve
+     * hit ratio by at least 5 percentage points.
+     */
+    protected final static double GROW_MIN_GHOST_RATIO = 0.05;
+
+    /**
+     * Average re-construction time per lookup (in nanoseconds) that avoidable
+     * misses have to exceed for capacity to be grown, if construction times are
+     * known: about ten times the cost of a lookup of this cache, so that re-construction
+     * has to be a significant part of the time spent getting types.
+     */
+    protected final static long GROW_THRESHOLD_NANOS = 500L;
+
+    protected final int _minEntries;
+
+    protected final int _maxEntries;
+
+    /**
+     * Entries in access order (least recently used first)
+     */
+    protected final transient LinkedHashMap<ResolvedTypeKey, Entry> _entries;
+
+    /**
+     * Hash codes of keys of recently evicted entries, in eviction order (oldest first)
+     */
+    protected final transient LinkedHashMap<Integer, Boolean> _ghosts;
+
+    protected transient int _capacity;
+
+    /**
+     * Number of the current window, used for marking entries accessed during it
+     */
+    protected transient int _window;
+
+    protected transient int _windowLookups, _windowGhostHits;
+
+    protected transient long _hits, _misses;
+
+    protected transient long _totalMissNanos, _timedMisses;
+
+    public AdaptiveTypeCache(int minEntries, int maxEntries) {
+        if (minEntries < 1 || minEntries > maxEntries) {
+            throw new IllegalArgumentException("Invalid entry count bounds ("+minEntries+", "+maxEntries
+                    +"): minimum must be positive and no more than maximum");
+        }
+        _minEntries = minEntries;
+        _maxEntries = maxEntries;
+        _capacity = minEntries;
+        _entries = new LinkedHashMap<ResolvedTypeKey, Entry>(16, 0.75f, true);
+        _ghosts = new LinkedHashMap<Integer, Boolean>();
+    }
+
+    // For JDK serialization: have to re-construct backing Maps since they are NOT serialized
+    Object readResolve() {
+        return new AdaptiveTypeCache(_minEntries, _maxEntries);
+    }
+
+    /*
+    /**********************************************************************
+    /* ResolvedTypeCache implementation
+    /**********************************************************************
+     */
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    @Override
+    public synchronized ResolvedType find(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType type = _findPinned(key);
+        if (type != null) {
+            return type;
+        }
+        Entry entry = _entries.get(key);
+        if (entry != null) {
+            entry._window = _window;
+            type = entry._type;
+            ++_hits;
+        } else {
+            ++_misses;
+            if (_ghosts.remove(_ghostHash(key)) != null) {
+                ++_windowGhostHits;
+            }
+        }
+        if (++_windowLookups >= WINDOW_LOOKUPS) {
+            _adapt();
+        }
+        return type;
+    }
+
+    @Override
+    public synchronized int size() {
+        return _entries.size();
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type) {
+        put(key, type, -1L);
+    }
+
+    @Override
+    public synchronized void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        if (constructionNanos >= 0L) {
+            _totalMissNanos += constructionNanos;
+            ++_timedMisses;
+        }
+        _ghosts.remove(_ghostHash(key));
+        _entries.put(key, new Entry(type, _window));
+        _evict();
+    }
+
+    @Override
+    public synchronized ResolvedType remove(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        _ghosts.remove(_ghostHash(key));
+        Entry old = _entries.remove(key);
+        _entriesRemoved();
+        return (old == null) ? null : old._type;
+    }
+
+    @Override
+    public synchronized int removeIf(Filter<ResolvedTypeKey> filter) {
+        return _removeAll(filter, null);
+    }
+
+    @Override
+    public synchronized int removeDependents(Class<?> erasedType) {
+        return _removeAll(null, erasedType);
+    }
+
+    @Override
+    public synchronized void clear() {
+        _entries.clear();
+        _ghosts.clear();
+        _entriesRemoved();
+    }
+
+    @Override
+    public synchronized Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        Map<ResolvedTypeKey, ResolvedType> result = new HashMap<ResolvedTypeKey, ResolvedType>();
+        for (Map.Entry<ResolvedTypeKey, Entry> entry : _entries.entrySet()) {
+            result.put(entry.getKey(), entry.getValue()._type);
+        }
+        return result;
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    /**
+     * Accessor for the current capacity (maximum number of entries) of this cache.
+     */
+    public synchronized int capacity() {
+        return _capacity;
+    }
+
+    public synchronized long hitCount() {
+        return _hits;
+    }
+
+    public synchronized long missCount() {
+        return _misses;
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    /**
+     * Method called at the end of each window to re-evaluate capacity
+     */
+    protected void _adapt()
+    {
+        if (_windowGhostHits > 0) {
+            boolean grow = _windowGhostHits >= GROW_MIN_GHOST_RATIO * _windowLookups;
+            // if construction times are known, they must be significant as well
+            if (grow && _timedMisses > 0L) {
+                final long avoidableNanos = _windowGhostHits * (_totalMissNanos / _timedMisses);
+                grow = avoidableNanos > GROW_THRESHOLD_NANOS * _windowLookups;
+            }
+            if (grow) {
+                _capacity = (int) Math.min((long) _maxEntries, _capacity + Math.max(1L, _capacity / 2L));
+            }
+        } else {
+            int active = 0;
+            for (Entry entry : _entries.values()) {
+                if (entry._window == _window) {
+                    ++active;
+                }
+            }
+            int target = Math.max(2 * active, _capacity - (_capacity / 4));
+            if (target < _capacity) {
+                _capacity = Math.max(_minEntries, target);
+                _evict();
+            }
+        }
+        ++_window;
+        _windowLookups = 0;
+        _windowGhostHits = 0;
+    }
+
+    /**
+     * Method for evicting least recently used entries as necessary to stay within
+     * capacity, and trimming ghost keys to cover the range up to maximum capacity.
+     */
+    private void _evict()
+    {
+        if (_entries.size() > _capacity) {
+            Iterator<Map.Entry<ResolvedTypeKey, Entry>> it = _entries.entrySet().iterator();
+            while (_entries.size() > _capacity) {
+                ResolvedTypeKey key = it.next().getKey();
+                it.remove();
+                _ghosts.put(_ghostHash(key), Boolean.TRUE);
+            }
+        }
+        int maxGhosts = _maxEntries - _capacity;
+        if (_ghosts.size() > maxGhosts) {
+            Iterator<Integer> it = _ghosts.keySet().iterator();
+            while (_ghosts.size() > maxGhosts) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private int _removeAll(Filter<ResolvedTypeKey> filter, Class<?> dependency)
+    {
+        int count = 0;
+        for (Iterator<Map.Entry<ResolvedTypeKey, Entry>> it = _entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<ResolvedTypeKey, Entry> entry = it.next();
+            boolean remove = (filter == null)
+                    ? dependsOn(entry.getKey(), entry.getValue()._type, dependency)
+                    : filter.include(entry.getKey());
+            if (remove) {
+                it.remove();
+                ++count;
+            }
+        }
+        // ghosts of removed types are no longer relevant either, but since
+        // keys are not retained, can not tell which ones those are
+        _ghosts.clear();
+        _entriesRemoved();
+        return count;
+    }
+
+    /**
+     * Hash code used for tracking ghosts: unlike {@link ResolvedTypeKey#hashCode},
+     * covers type parameters, to make collisions unlikely.
+     */
+    private static Integer _ghostHash(ResolvedTypeKey key)
+    {
+        int h = key.hashCode();
+        for (int i = 0, len = key.getTypeParameterCount(); i < len; ++i) {
+            h = 31 * h + key.getTypeParameter(i).hashCode();
+        }
+        return h;
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    protected final static class Entry
+    {
+        protected final ResolvedType _type;
+
+        /**
+         * Window during which entry was last accessed
+         */
+        protected int _window;
+
+        public Entry(ResolvedType type, int window) {
+            _type = type;
+            _window = window;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.fasterxml.classmate.util;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable definition of time-based expiry for entries of {@link ResolvedTypeCache}s
+ * that support it (see {@link ResolvedTypeCache#lruCache(int, CacheExpiry)} and
+ * {@link ResolvedTypeCache#concurrentCache(int, CacheExpiry)}): entries may expire
+ * after fixed time since they were added ("expire after write"), since they were last
+ * accessed ("expire after access"), or both.
+ *<p>
+ * Expired entries are never returned; they are removed lazily when accessed,
+ * and by periodic clean up done when adding entries (so no background thread is needed).
+ * Clean up is done at most once per half of the shortest expiry time, so memory of
+ * types no longer used is returned within 1.5 times expiry time, as long as other
+ * types are still being added.
+ *
+ * @since 1.7.4
+ */
+public final class CacheExpiry implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Time after adding (in nanoseconds) entries expire; 0 if they do not
+     */
+    private final long _afterWriteNanos;
+
+    /**
+     * Time after last access (in nanoseconds) entries expire; 0 if they do not
+     */
+    private final long _afterAccessNanos;
+
+    private CacheExpiry(long afterWriteNanos, long afterAccessNanos) {
+        _afterWriteNanos = afterWriteNanos;
+        _afterAccessNanos = afterAccessNanos;
+    }
+
+    public static CacheExpiry afterWrite(long duration, TimeUnit unit) {
+        return new CacheExpiry(_nanos(duration, unit), 0L);
+    }
+
+    public static CacheExpiry afterAccess(long duration, TimeUnit unit) {
+        return new CacheExpiry(0L, _nanos(duration, unit));
+    }
+
+    public CacheExpiry withAfterWrite(long duration, TimeUnit unit) {
+        return new CacheExpiry(_nanos(duration, unit), _afterAccessNanos);
+    }
+
+    public CacheExpiry withAfterAccess(long duration, TimeUnit unit) {
+        return new CacheExpiry(_afterWriteNanos, _nanos(duration, unit));
+    }
+
+    private static long _nanos(long duration, TimeUnit unit) {
+        if (duration <= 0L) {
+            throw new IllegalArgumentException("Invalid expiry duration ("+duration+"): must be positive");
+        }
+        return unit.toNanos(duration);
+    }
+
+    /*
+    /**********************************************************************
+    /* Accessors
+    /**********************************************************************
+     */
+
+    /**
+     * @return Time after adding (in nanoseconds) entries expire; 0 if they do not
+     */
+    public long getAfterWriteNanos() {
+        return _afterWriteNanos;
+    }
+
+    /**
+     * @return Time after last access (in nanoseconds) entries expire; 0 if they do not
+     */
+    public long getAfterAccessNanos() {
+        return _afterAccessNanos;
+    }
+
+    public boolean expiresAfterAccess() {
+        return _afterAccessNanos > 0L;
+    }
+
+    /**
+     * Method for checking whether entry added and last accessed at given times
+     * (as returned by {@link System#nanoTime()}) has expired at given time.
+     */
+    public boolean isExpired(long writtenNanos, long accessedNanos, long nowNanos) {
+        return ((_afterWriteNanos > 0L) && (nowNanos - writtenNanos) >= _afterWriteNanos)
+                || ((_afterAccessNanos > 0L) && (nowNanos - accessedNanos) >= _afterAccessNanos);
+    }
+
+    /**
+     * @return Minimum time between clean ups of expired entries: half of the
+     *    shortest expiry time
+     */
+    public long getCleanupIntervalNanos() {
+        long shortest;
+        if (_afterWriteNanos == 0L) {
+            shortest = _afterAccessNanos;
+        } else if (_afterAccessNanos == 0L) {
+            shortest = _afterWriteNanos;
+        } else {
+            shortest = Math.min(_afterWriteNanos, _afterAccessNanos);
+        }
+        return Math.max(1L, shortest / 2L);
+    }
+
+    @Override
+    public String toString() {
+        return "[CacheExpiry: afterWrite="+_afterWriteNanos+"ns, afterAccess="+_afterAccessNanos+"ns]";
+    }
+}
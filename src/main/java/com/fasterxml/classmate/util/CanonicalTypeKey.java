@@ -0,0 +1,104 @@
+package com.fasterxml.classmate.util;
+
+import java.util.Arrays;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeBindings;
+
+/**
+ * Key for resolved types based only on their structure: type-erased classes,
+ * and (recursively) bound type parameters and array element types. Unlike
+ * {@link ResolvedType#equals}, which requires same implementation class,
+ * matches self-references ({@link com.fasterxml.classmate.types.ResolvedRecursiveType})
+ * with the types they refer to; so that, for example, <code>Comparable&lt;String&gt;</code>
+ * as a supertype of <code>String</code> has the same key as one resolved directly.
+ *
+ * @since 1.7.4
+ */
+final class CanonicalTypeKey
+{
+    private final static CanonicalTypeKey[] NO_PARAMS = new CanonicalTypeKey[0];
+
+    private final Class<?> _erasedType;
+
+    /**
+     * Keys of bound type parameters; or, for array types, of element type
+     */
+    private final CanonicalTypeKey[] _params;
+
+    private final int _hashCode;
+
+    private CanonicalTypeKey(Class<?> erasedType, CanonicalTypeKey[] params) {
+        _erasedType = erasedType;
+        _params = params;
+        _hashCode = erasedType.hashCode() * 31 + Arrays.hashCode(params);
+    }
+
+    public static CanonicalTypeKey of(ResolvedType type)
+    {
+        CanonicalTypeKey[] params;
+        ResolvedType elem = type.getArrayElementType();
+        if (elem != null) {
+            params = new CanonicalTypeKey[] { of(elem) };
+        } else {
+            // note: bindings of self-references are never cyclic (see TypeSignatures)
+            TypeBindings bindings = type.getTypeBindings();
+            final int count = bindings.size();
+            if (count == 0) {
+                params = NO_PARAMS;
+            } else {
+                params = new CanonicalTypeKey[count];
+                for (int i = 0; i < count; ++i) {
+                    params[i] = of(bindings.getBoundType(i));
+                }
+            }
+        }
+        return new CanonicalTypeKey(type.getErasedType(), params);
+    }
+
+    public Class<?> getErasedType() {
+        return _erasedType;
+    }
+
+    /**
+     * Method for checking whether type of this key is, or has as type parameter
+     * (or array element type), given type-erased class, directly or indirectly.
+     */
+    public boolean refersTo(Class<?> erasedType)
+    {
+        if (_erasedType == erasedType) {
+            return true;
+        }
+        for (CanonicalTypeKey param : _params) {
+            if (param.refersTo(erasedType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return _hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o == this) return true;
+        if (o == null || o.getClass() != getClass()) return false;
+        CanonicalTypeKey other = (CanonicalTypeKey) o;
+        return (other._hashCode == _hashCode)
+                && (other._erasedType == _erasedType)
+                && Arrays.equals(other._params, _params);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(_erasedType.getName());
+        if (_params.length > 0) {
+            sb.append(Arrays.toString(_params));
+        }
+        return sb.toString();
+    }
+}
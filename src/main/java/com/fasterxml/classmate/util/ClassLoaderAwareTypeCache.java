@@ -0,0 +1,397 @@
+package com.fasterxml.classmate.util;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.classmate.Filter;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeBindings;
+
+/**
+ * {@link ResolvedTypeCache} implementation meant for environments where
+ * classes are loaded by class loaders that come and go, like webapps deployed
+ * on application servers. Unlike {@link LRUTypeCache} and {@link ConcurrentTypeCache},
+ * this cache does not keep class loaders of cached types reachable:
+ * entries are partitioned by defining class loader and only reachable from
+ * one of classes they refer to (using {@link ClassValue}), so that
+ * when a class loader becomes otherwise unreachable, cached types of
+ * classes it defined can be garbage collected along with it.
+ * In addition, {@link #invalidate(ClassLoader)} may be called to explicitly
+ * drop all entries for types that refer to classes of given class loader
+ * (or its descendants), for example when undeploying a webapp.
+ *<p>
+ * Entries are anchored to the class (of key's type-erased class and classes
+ * of its type parameters) defined by the most specific class loader; that is,
+ * loader that has others as its ancestors. So, for example, <code>List&lt;Foo&gt;</code>
+ * where <code>Foo</code> comes from a webapp class loader is anchored to
+ * <code>Foo</code> and not <code>List</code>.
+ * Types referring to classes from multiple unrelated class loaders are
+ * anchored to one of them; they are only collected once all such loaders are,
+ * but {@link #invalidate(ClassLoader)} drops them when called for any.
+ *<p>
+ * Like {@link ConcurrentTypeCache}, will simply clear all entries when maximum
+ * entry count is reached.
+ *
+ * @since 1.7.4
+ */
+public class ClassLoaderAwareTypeCache extends ResolvedTypeCache
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final int _maxEntries;
+
+    /**
+     * Partitions of cached entries, attached to anchor classes
+     */
+    protected final transient ClassValue<Partition> _partitions;
+
+    /**
+     * Registry of anchor classes that have partitions, by all class loaders
+     * that entries of the partition refer to (including the defining
+     * loader of the anchor class). Anchor classes are only weakly referenced;
+     * <code>null</code> key is used for the bootstrap class loader.
+     */
+    protected final transient WeakHashMap<ClassLoader, List<WeakReference<Class<?>>>> _anchorsByLoader;
+
+    /**
+     * Approximate number of entries: may over-count entries of partitions
+     * that have been garbage collected.
+     */
+    protected final transient AtomicInteger _size;
+
+    public ClassLoaderAwareTypeCache(int maxEntries) {
+        _maxEntries = maxEntries;
+        _partitions = new ClassValue<Partition>() {
+            @Override
+            protected Partition computeValue(Class<?> type) {
+                return new Partition();
+            }
+        };
+        _anchorsByLoader = new WeakHashMap<ClassLoader, List<WeakReference<Class<?>>>>();
+        _size = new AtomicInteger();
+    }
+
+    // For JDK serialization: have to re-construct partitions since they are NOT serialized
+    Object readResolve() {
+        return new ClassLoaderAwareTypeCache(_maxEntries);
+    }
+
+    /*
+    /**********************************************************************
+    /* ResolvedTypeCache implementation
+    /**********************************************************************
+     */
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    @Override
+    public ResolvedType find(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType pinned = _findPinned(key);
+        if (pinned != null) {
+            return pinned;
+        }
+        Map<ResolvedTypeKey, ResolvedType> entries = _partitions.get(_anchorFor(key))._entries;
+        return (entries == null) ? null : entries.get(key);
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        for (Class<?> anchor : _anchors(null, true)) {
+            Map<ResolvedTypeKey, ResolvedType> entries = _partitions.get(anchor)._entries;
+            if (entries != null) {
+                count += entries.size();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        if (_size.get() >= _maxEntries) {
+            // as with ConcurrentTypeCache, try to avoid "clear storms"; but since
+            // count is approximate, need to re-calculate first
+            synchronized (this) {
+                if (_size.get() >= _maxEntries) {
+                    _size.set(size());
+                    if (_size.get() >= _maxEntries) {
+                        _removeAnchors(_anchors(null, true));
+                    }
+                }
+            }
+        }
+        Class<?> anchor = _anchorFor(key);
+        Partition p = _partitions.get(anchor);
+        _registerAnchor(p, key, anchor);
+        if (p.entries().put(key, type) == null) {
+            _size.incrementAndGet();
+        }
+    }
+
+    @Override
+    public ResolvedType remove(ResolvedTypeKey key) {
+        Map<ResolvedTypeKey, ResolvedType> entries = _partitions.get(_anchorFor(key))._entries;
+        ResolvedType old = (entries == null) ? null : entries.remove(key);
+        if (old != null) {
+            _size.decrementAndGet();
+        }
+        _entriesRemoved();
+        return old;
+    }
+
+    @Override
+    public int removeIf(Filter<ResolvedTypeKey> filter) {
+        return _removeAll(filter, null);
+    }
+
+    @Override
+    public int removeDependents(Class<?> erasedType) {
+        return _removeAll(null, erasedType);
+    }
+
+    @Override
+    public void clear() {
+        invalidate(null);
+    }
+
+    @Override
+    public Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        Map<ResolvedTypeKey, ResolvedType> result = new HashMap<ResolvedTypeKey, ResolvedType>();
+        for (Class<?> anchor : _anchors(null, true)) {
+            Map<ResolvedTypeKey, ResolvedType> entries = _partitions.get(anchor)._entries;
+            if (entries != null) {
+                result.putAll(entries);
+            }
+        }
+        return result;
+    }
+
+    private int _removeAll(Filter<ResolvedTypeKey> filter, Class<?> dependency)
+    {
+        int count = 0;
+        for (Class<?> anchor : _anchors(null, true)) {
+            Map<ResolvedTypeKey, ResolvedType> entries = _partitions.get(anchor)._entries;
+            if (entries != null) {
+                count += _removeMatching(entries.entrySet().iterator(), filter, dependency);
+            }
+        }
+        _size.addAndGet(-count);
+        _entriesRemoved();
+        return count;
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    /**
+     * Method for removing all entries for types that refer to classes
+     * defined by given class loader or any of its descendant loaders.
+     *
+     * @param loader Class loader for which to drop entries; if null,
+     *    will remove all entries
+     */
+    public void invalidate(ClassLoader loader) {
+        synchronized (this) {
+            _removeAnchors(_anchors(loader, loader == null));
+        }
+        _entriesRemoved();
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    /**
+     * Method for finding class to anchor entry with given key to.
+     */
+    protected static Class<?> _anchorFor(ResolvedTypeKey key)
+    {
+        Class<?> anchor = key.getErasedType();
+        for (int i = 0, len = key.getTypeParameterCount(); i < len; ++i) {
+            anchor = _anchorFor(anchor, key.getTypeParameter(i));
+        }
+        return anchor;
+    }
+
+    private static Class<?> _anchorFor(Class<?> anchor, ResolvedType type)
+    {
+        Class<?> cls = type.getErasedType();
+        ClassLoader anchorLoader = anchor.getClassLoader();
+        ClassLoader loader = cls.getClassLoader();
+        if (loader != null && loader != anchorLoader) {
+            if (anchorLoader == null || isAncestorOf(anchorLoader, loader)) {
+                anchor = cls;
+            }
+        }
+        TypeBindings b = type.getTypeBindings();
+        for (int i = 0, len = b.size(); i < len; ++i) {
+            anchor = _anchorFor(anchor, b.getBoundType(i));
+        }
+        return anchor;
+    }
+
+    /**
+     * Helper method for adding class loaders of all classes given type
+     * refers to (including type itself).
+     */
+    protected static void _addLoaders(ResolvedType type, Set<ClassLoader> loaders)
+    {
+        loaders.add(type.getErasedType().getClassLoader());
+        TypeBindings b = type.getTypeBindings();
+        for (int i = 0, len = b.size(); i < len; ++i) {
+            _addLoaders(b.getBoundType(i), loaders);
+        }
+    }
+
+    /**
+     * Helper method for checking whether first class loader is the same as, or
+     * an ancestor of the second one. Null is used to denote bootstrap class loader,
+     * which is ancestor of all loaders.
+     */
+    protected static boolean isAncestorOf(ClassLoader ancestor, ClassLoader loader)
+    {
+        if (ancestor == null) {
+            return true;
+        }
+        try {
+            for (ClassLoader curr = loader; curr != null; curr = curr.getParent()) {
+                if (curr == ancestor) {
+                    return true;
+                }
+            }
+        } catch (SecurityException e) { // can't see, must assume not
+        }
+        return false;
+    }
+
+    /**
+     * Method called before adding an entry in partition of given anchor class, to
+     * register anchor under all class loaders key refers to (unless already done).
+     */
+    protected void _registerAnchor(Partition p, ResolvedTypeKey key, Class<?> anchor)
+    {
+        HashSet<ClassLoader> loaders = new HashSet<ClassLoader>();
+        loaders.add(anchor.getClassLoader());
+        loaders.add(key.getErasedType().getClassLoader());
+        for (int i = 0, len = key.getTypeParameterCount(); i < len; ++i) {
+            _addLoaders(key.getTypeParameter(i), loaders);
+        }
+        synchronized (this) {
+            for (ClassLoader loader : loaders) {
+                if (p._registeredLoaders.add(loader)) {
+                    List<WeakReference<Class<?>>> anchors = _anchorsByLoader.get(loader);
+                    if (anchors == null) {
+                        anchors = new ArrayList<WeakReference<Class<?>>>();
+                        _anchorsByLoader.put(loader, anchors);
+                    }
+                    anchors.add(new WeakReference<Class<?>>(anchor));
+                }
+            }
+        }
+    }
+
+    /**
+     * Method for finding all live anchor classes registered for given class
+     * loader (or any of its descendants), or, if <code>all</code> is true,
+     * all anchors. Also prunes stale registrations.
+     */
+    protected synchronized Set<Class<?>> _anchors(ClassLoader loader, boolean all)
+    {
+        Set<Class<?>> result = Collections.newSetFromMap(new IdentityHashMap<Class<?>, Boolean>());
+        for (Map.Entry<ClassLoader, List<WeakReference<Class<?>>>> entry : _anchorsByLoader.entrySet()) {
+            Iterator<WeakReference<Class<?>>> it = entry.getValue().iterator();
+            boolean match = all || ((entry.getKey() != null) && isAncestorOf(loader, entry.getKey()));
+            while (it.hasNext()) {
+                Class<?> anchor = it.next().get();
+                if (anchor == null) {
+                    it.remove();
+                } else if (match) {
+                    result.add(anchor);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Method for dropping partitions of given anchor classes; caller must
+     * hold lock on this cache.
+     */
+    protected void _removeAnchors(Set<Class<?>> anchors)
+    {
+        for (Class<?> anchor : anchors) {
+            Map<ResolvedTypeKey, ResolvedType> entries = _partitions.get(anchor)._entries;
+            if (entries != null) {
+                _size.addAndGet(-entries.size());
+            }
+            _partitions.remove(anchor);
+        }
+        for (Iterator<List<WeakReference<Class<?>>>> it = _anchorsByLoader.values().iterator(); it.hasNext(); ) {
+            List<WeakReference<Class<?>>> refs = it.next();
+            for (Iterator<WeakReference<Class<?>>> it2 = refs.iterator(); it2.hasNext(); ) {
+                Class<?> anchor = it2.next().get();
+                if (anchor == null || anchors.contains(anchor)) {
+                    it2.remove();
+                }
+            }
+            if (refs.isEmpty()) {
+                it.remove();
+            }
+        }
+        if (_size.get() < 0) {
+            _size.set(0);
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Container for entries anchored to a single class; entry Map is
+     * only created when the first entry is added.
+     */
+    protected final static class Partition
+    {
+        protected volatile ConcurrentHashMap<ResolvedTypeKey, ResolvedType> _entries;
+
+        /**
+         * Class loaders under which anchor of this partition has been registered;
+         * only accessed when holding lock of the cache.
+         */
+        protected final Set<ClassLoader> _registeredLoaders
+            = Collections.newSetFromMap(new IdentityHashMap<ClassLoader, Boolean>());
+
+        public Map<ResolvedTypeKey, ResolvedType> entries()
+        {
+            ConcurrentHashMap<ResolvedTypeKey, ResolvedType> entries = _entries;
+            if (entries == null) {
+                synchronized (this) {
+                    entries = _entries;
+                    if (entries == null) {
+                        _entries = entries = new ConcurrentHashMap<ResolvedTypeKey, ResolvedType>(4, 0.75f, 2);
+                    }
+                }
+            }
+            return entries;
+        }
+    }
+}
@@ -16,6 +16,22 @@ public final class ClassStack
 
     private ArrayList<ResolvedRecursiveType> _selfRefs;
 
+    /**
+     * Time spent constructing types referenced from type this frame represents
+     * (that is, types resolved using child frames), in nanoseconds.
+     *
+     * @since 1.7.4
+     */
+    private long _nestedNanos;
+
+    /**
+     * Bytes allocated constructing types referenced from type this frame represents,
+     * if measured (see {@link #allocated}).
+     *
+     * @since 1.7.4
+     */
+    private long _nestedBytes;
+
     public ClassStack(Class<?> rootType) {
         this(null, rootType);
     }
@@ -59,6 +75,48 @@ public final class ClassStack
         }
     }
 
+    /**
+     * Method called when type that this stack frame represents has been
+     * constructed, to let parent frame know how much of its construction time
+     * was spent on this type; and to calculate construction time of this type
+     * itself.
+     *
+     * @param totalNanos Time taken to construct type of this frame, including
+     *   construction of nested types
+     *
+     * @return Time taken to construct type of this frame, excluding time spent
+     *   constructing nested types
+     *
+     * @since 1.7.4
+     */
+    public long constructed(long totalNanos)
+    {
+        if (_parent != null) {
+            _parent._nestedNanos += totalNanos;
+        }
+        return Math.max(0L, totalNanos - _nestedNanos);
+    }
+
+    /**
+     * Method similar to {@link #constructed}, but for bytes allocated while
+     * constructing type of this frame; only called when allocation is measured.
+     *
+     * @param totalBytes Bytes allocated constructing type of this frame, including
+     *   construction of nested types
+     *
+     * @return Bytes allocated constructing type of this frame, excluding
+     *   construction of nested types
+     *
+     * @since 1.7.4
+     */
+    public long allocated(long totalBytes)
+    {
+        if (_parent != null) {
+            _parent._nestedBytes += totalBytes;
+        }
+        return Math.max(0L, totalBytes - _nestedBytes);
+    }
+
     public ClassStack find(Class<?> cls)
     {
         if (_current == cls) return this;
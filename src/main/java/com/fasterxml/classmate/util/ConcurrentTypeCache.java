@@ -1,7 +1,11 @@
 package com.fasterxml.classmate.util;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.fasterxml.classmate.Filter;
 import com.fasterxml.classmate.ResolvedType;
 
 /**
@@ -24,16 +28,95 @@ public class ConcurrentTypeCache
 
     protected final transient ConcurrentHashMap<ResolvedTypeKey, ResolvedType> _map;
 
+    /**
+     * Weigher used for calculating weights of entries, if cache is bounded by
+     * total weight; null if bounded by entry count.
+     *
+     * @since 1.7.4
+     */
+    protected final TypeWeigher _weigher;
+
+    /**
+     * Maximum total weight of entries, if bounded by weight
+     *
+     * @since 1.7.4
+     */
+    protected final long _maxWeight;
+
+    /**
+     * @since 1.7.4
+     */
+    protected final transient AtomicLong _totalWeight = new AtomicLong();
+
+    /**
+     * Time-based expiry of entries, if any
+     *
+     * @since 1.7.4
+     */
+    protected final CacheExpiry _expiry;
+
+    /**
+     * @since 1.7.4
+     */
+    protected final transient ExpiryTracker _expiryTracker;
+
     public ConcurrentTypeCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * Constructor for cache that, in addition to being bounded by entry count,
+     * may also expire entries after specified time (if expiry is non-null).
+     *
+     * @since 1.7.4
+     */
+    public ConcurrentTypeCache(int maxEntries, CacheExpiry expiry) {
         // We'll use concurrency level of 4, seems reasonable
         _map = new ConcurrentHashMap<ResolvedTypeKey, ResolvedType>(maxEntries,
                 0.8f, 4);
         _maxEntries = maxEntries;
+        _weigher = null;
+        _maxWeight = Long.MAX_VALUE;
+        _expiry = expiry;
+        _expiryTracker = (expiry == null) ? null : new ExpiryTracker(expiry, _nanoTime());
+    }
+
+    /**
+     * Constructor for cache that is bounded by total weight of entries, as
+     * calculated by given weigher, instead of entry count: all entries are
+     * removed when adding an entry would exceed maximum weight.
+     *
+     * @since 1.7.4
+     */
+    public ConcurrentTypeCache(TypeWeigher weigher, long maxWeight) {
+        _map = new ConcurrentHashMap<ResolvedTypeKey, ResolvedType>(16, 0.8f, 4);
+        _maxEntries = Integer.MAX_VALUE;
+        _weigher = weigher;
+        _maxWeight = maxWeight;
+        _expiry = null;
+        _expiryTracker = null;
     }
 
     // For JDK serialization: have to re-construct backing Map since it is NOT serialized
     Object readResolve() {
-        return new ConcurrentTypeCache(_maxEntries);
+        if (_weigher != null) {
+            return new ConcurrentTypeCache(_weigher, _maxWeight);
+        }
+        return new ConcurrentTypeCache(_maxEntries, _expiry);
+    }
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    /**
+     * Caches with expiration need to see all lookups, to track access times
+     * and to notice expired entries.
+     */
+    @Override
+    public boolean needsAllLookups() {
+        return (_expiryTracker != null);
     }
 
     @Override
@@ -41,7 +124,17 @@ public class ConcurrentTypeCache
         if (key == null) {
             throw new IllegalArgumentException("Null key not allowed");
         }
-        return _map.get(key);
+        ResolvedType pinned = _findPinned(key);
+        if (pinned != null) {
+            return pinned;
+        }
+        ResolvedType type = _map.get(key);
+        if (type != null && _expiryTracker != null
+                && !_expiryTracker.accessed(key, _nanoTime())) {
+            _map.remove(key, type);
+            return null;
+        }
+        return type;
     }
 
     @Override
@@ -54,15 +147,125 @@ public class ConcurrentTypeCache
         if (key == null) {
             throw new IllegalArgumentException("Null key not allowed");
         }
+        if (_weigher != null) {
+            _putWeighted(key, type);
+            return;
+        }
+        long now = 0L;
+        if (_expiryTracker != null) {
+            now = _nanoTime();
+            if (_expiryTracker.cleanupDue(now)) {
+                for (ResolvedTypeKey expired : _expiryTracker.expiredKeys(_map, now)) {
+                    _map.remove(expired);
+                }
+            }
+        }
         if (_map.size() >= _maxEntries) {
             // double-locking, yes, but safe here; trying to avoid "clear storms"
             // when multiple threads think they are to flush the cache
             synchronized (this) {
                 if (_map.size() >= _maxEntries) {
                     _map.clear();
+                    // so that times of evicted entries do not retain their keys
+                    if (_expiryTracker != null) {
+                        _expiryTracker.clear();
+                    }
                 }
             }
         }
+        if (_expiryTracker != null) {
+            // note: must be done after clean up (and clearing), which drop
+            // times of entries not (yet) in Map
+            _expiryTracker.written(key, now);
+        }
         _map.put(key, type);
     }
+
+    private void _putWeighted(ResolvedTypeKey key, ResolvedType type)
+    {
+        final long weight = _weigher.weigh(key, type);
+        if ((_totalWeight.get() + weight) > _maxWeight) {
+            synchronized (this) {
+                if ((_totalWeight.get() + weight) > _maxWeight) {
+                    _map.clear();
+                    _totalWeight.set(0L);
+                }
+            }
+        }
+        ResolvedType old = _map.put(key, type);
+        _totalWeight.addAndGet((old == null) ? weight : (weight - _weigher.weigh(key, old)));
+    }
+
+    @Override
+    public ResolvedType remove(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType old = _map.remove(key);
+        if (old != null && _weigher != null) {
+            _totalWeight.addAndGet(-_weigher.weigh(key, old));
+        }
+        if (_expiryTracker != null) {
+            _expiryTracker.removed(key);
+        }
+        _entriesRemoved();
+        return old;
+    }
+
+    @Override
+    public int removeIf(Filter<ResolvedTypeKey> filter) {
+        int count = _removeMatching(_map.entrySet().iterator(), filter, null);
+        _recalcWeight();
+        _entriesRemoved();
+        return count;
+    }
+
+    @Override
+    public int removeDependents(Class<?> erasedType) {
+        int count = _removeMatching(_map.entrySet().iterator(), null, erasedType);
+        _recalcWeight();
+        _entriesRemoved();
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            _map.clear();
+            _totalWeight.set(0L);
+            if (_expiryTracker != null) {
+                _expiryTracker.clear();
+            }
+        }
+        _entriesRemoved();
+    }
+
+    @Override
+    public Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        return new HashMap<ResolvedTypeKey, ResolvedType>(_map);
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    /**
+     * Accessor for (approximate) total weight of entries, if cache is bounded
+     * by weight; 0 if not.
+     *
+     * @since 1.7.4
+     */
+    public long totalWeight() {
+        return _totalWeight.get();
+    }
+
+    private void _recalcWeight() {
+        if (_weigher != null) {
+            synchronized (this) {
+                _totalWeight.set(_totalWeight(_weigher, _map));
+            }
+        }
+    }
 }
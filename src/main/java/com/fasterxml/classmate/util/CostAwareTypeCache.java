@@ -0,0 +1,257 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.Filter;
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * {@link ResolvedTypeCache} implementation that chooses entries to evict based
+ * not only on recency of access, but also on cost of re-constructing them and
+ * on frequency of access, to minimize total time spent re-resolving types
+ * (instead of number of cache misses). Uses "GreedyDual-Size-Frequency"
+ * algorithm, in which each entry has priority of
+ *<pre>
+ *   L + frequency * cost / size
+ *</pre>
+ * where <code>L</code> is the priority of the most recently evicted entry
+ * ("inflation" value, which ages out entries not accessed recently),
+ * <code>cost</code> is time taken to construct the type (as passed by
+ * {@link com.fasterxml.classmate.TypeResolver} via {@link #put(ResolvedTypeKey, ResolvedType, long)};
+ * this excludes time spent constructing nested types, which are cached separately)
+ * and <code>size</code> weight of the entry as calculated by optional {@link TypeWeigher}
+ * (or 1 if none used). Entry with the lowest priority is evicted when cache is full.
+ *<p>
+ * Entries added without construction cost are assumed to have average cost of entries
+ * added so far.
+ *<p>
+ * Like {@link LRUTypeCache}, access is fully synchronized.
+ *
+ * @since 1.7.4
+ */
+public class CostAwareTypeCache extends ResolvedTypeCache
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final int _maxEntries;
+
+    /**
+     * Weigher used for calculating "size" of entries, if any; if null, all entries
+     * have size of 1.
+     */
+    protected final TypeWeigher _weigher;
+
+    protected final transient HashMap<ResolvedTypeKey, Node> _entries;
+
+    /**
+     * Entries ordered by priority, lowest first
+     */
+    protected final transient TreeSet<Node> _byPriority;
+
+    /**
+     * Priority of the most recently evicted entry
+     */
+    protected transient double _inflation;
+
+    protected transient long _sequence;
+
+    protected transient long _totalCost;
+
+    protected transient long _costCount;
+
+    public CostAwareTypeCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public CostAwareTypeCache(int maxEntries, TypeWeigher weigher) {
+        _maxEntries = maxEntries;
+        _weigher = weigher;
+        _entries = new HashMap<ResolvedTypeKey, Node>();
+        _byPriority = new TreeSet<Node>();
+    }
+
+    // For JDK serialization: have to re-construct backing Maps since they are NOT serialized
+    Object readResolve() {
+        return new CostAwareTypeCache(_maxEntries, _weigher);
+    }
+
+    /*
+    /**********************************************************************
+    /* ResolvedTypeCache implementation
+    /**********************************************************************
+     */
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    @Override
+    public synchronized ResolvedType find(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType pinned = _findPinned(key);
+        if (pinned != null) {
+            return pinned;
+        }
+        Node node = _entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        _byPriority.remove(node);
+        ++node._frequency;
+        _prioritize(node);
+        return node._type;
+    }
+
+    @Override
+    public synchronized int size() {
+        return _entries.size();
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type) {
+        put(key, type, -1L);
+    }
+
+    @Override
+    public synchronized void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        if (constructionNanos < 0L) {
+            constructionNanos = (_costCount == 0L) ? 1L : (_totalCost / _costCount);
+        } else {
+            _totalCost += constructionNanos;
+            ++_costCount;
+        }
+        Node node = _entries.get(key);
+        if (node != null) { // replace, but retain frequency
+            _byPriority.remove(node);
+            ++node._frequency;
+        } else {
+            if (_entries.size() >= _maxEntries) {
+                Node victim = _byPriority.pollFirst();
+                if (victim != null) {
+                    _inflation = victim._priority;
+                    _entries.remove(victim._key);
+                }
+            }
+            node = new Node(key);
+            _entries.put(key, node);
+        }
+        node._type = type;
+        node._cost = Math.max(1L, constructionNanos);
+        node._size = (_weigher == null) ? 1L : Math.max(1L, _weigher.weigh(key, type));
+        _prioritize(node);
+    }
+
+    @Override
+    public synchronized ResolvedType remove(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        Node node = _entries.remove(key);
+        if (node != null) {
+            _byPriority.remove(node);
+        }
+        _entriesRemoved();
+        return (node == null) ? null : node._type;
+    }
+
+    @Override
+    public synchronized int removeIf(Filter<ResolvedTypeKey> filter) {
+        return _removeAll(filter, null);
+    }
+
+    @Override
+    public synchronized int removeDependents(Class<?> erasedType) {
+        return _removeAll(null, erasedType);
+    }
+
+    @Override
+    public synchronized void clear() {
+        _entries.clear();
+        _byPriority.clear();
+        _inflation = 0.0;
+        _entriesRemoved();
+    }
+
+    @Override
+    public synchronized Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        Map<ResolvedTypeKey, ResolvedType> result = new HashMap<ResolvedTypeKey, ResolvedType>();
+        for (Node node : _entries.values()) {
+            result.put(node._key, node._type);
+        }
+        return result;
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private void _prioritize(Node node) {
+        node._priority = _inflation + ((double) node._frequency * node._cost) / node._size;
+        node._sequence = ++_sequence;
+        _byPriority.add(node);
+    }
+
+    private int _removeAll(Filter<ResolvedTypeKey> filter, Class<?> dependency)
+    {
+        int count = 0;
+        for (Iterator<Node> it = _entries.values().iterator(); it.hasNext(); ) {
+            Node node = it.next();
+            boolean remove = (filter == null)
+                    ? dependsOn(node._key, node._type, dependency)
+                    : filter.include(node._key);
+            if (remove) {
+                it.remove();
+                _byPriority.remove(node);
+                ++count;
+            }
+        }
+        _entriesRemoved();
+        return count;
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    protected final static class Node implements Comparable<Node>
+    {
+        protected final ResolvedTypeKey _key;
+
+        protected ResolvedType _type;
+
+        protected long _cost, _size;
+
+        protected int _frequency = 1;
+
+        protected double _priority;
+
+        /**
+         * Sequence number used for ordering entries with same priority (older first)
+         * and to make ordering consistent with equals
+         */
+        protected long _sequence;
+
+        public Node(ResolvedTypeKey key) {
+            _key = key;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            int diff = Double.compare(_priority, other._priority);
+            if (diff == 0) {
+                diff = Long.compare(_sequence, other._sequence);
+            }
+            return diff;
+        }
+    }
+}
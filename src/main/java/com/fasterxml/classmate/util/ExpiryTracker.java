@@ -0,0 +1,121 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Helper class used by {@link ResolvedTypeCache} implementations that support
+ * {@link CacheExpiry}, for keeping track of times entries were added and
+ * last accessed, and scheduling clean ups of expired entries.
+ *<p>
+ * Entries for which no times are known (like ones added concurrently with
+ * clearing of the cache) are considered expired.
+ *
+ * @since 1.7.4
+ */
+final class ExpiryTracker
+{
+    private final CacheExpiry _expiry;
+
+    private final ConcurrentHashMap<ResolvedTypeKey, Stamp> _stamps
+        = new ConcurrentHashMap<ResolvedTypeKey, Stamp>();
+
+    /**
+     * Time at (or after) which the next clean up is to be done
+     */
+    private final AtomicLong _nextCleanup;
+
+    public ExpiryTracker(CacheExpiry expiry, long nowNanos) {
+        _expiry = expiry;
+        _nextCleanup = new AtomicLong(nowNanos + expiry.getCleanupIntervalNanos());
+    }
+
+    /**
+     * Method called when entry with given key has been found: checks whether it
+     * has expired and if not, updates its access time as necessary.
+     *
+     * @return True if entry is still live; false if expired
+     */
+    public boolean accessed(ResolvedTypeKey key, long nowNanos)
+    {
+        Stamp stamp = _stamps.get(key);
+        if (stamp == null || _expiry.isExpired(stamp._written, stamp._accessed, nowNanos)) {
+            return false;
+        }
+        if (_expiry.expiresAfterAccess()) {
+            stamp._accessed = nowNanos;
+        }
+        return true;
+    }
+
+    /**
+     * Method to call before adding entry with given key.
+     */
+    public void written(ResolvedTypeKey key, long nowNanos) {
+        _stamps.put(key, new Stamp(nowNanos));
+    }
+
+    public void removed(ResolvedTypeKey key) {
+        _stamps.remove(key);
+    }
+
+    public void clear() {
+        _stamps.clear();
+    }
+
+    /**
+     * @return Number of entries for which times are tracked
+     */
+    public int size() {
+        return _stamps.size();
+    }
+
+    /**
+     * Method for checking whether clean up is due; if true is returned, caller
+     * is expected to call {@link #expiredKeys} (and will be the only caller to
+     * get true until the next clean up is due).
+     */
+    public boolean cleanupDue(long nowNanos)
+    {
+        long next = _nextCleanup.get();
+        return ((nowNanos - next) >= 0L)
+                && _nextCleanup.compareAndSet(next, nowNanos + _expiry.getCleanupIntervalNanos());
+    }
+
+    /**
+     * Method for finding keys of expired entries, for caller to remove. Also
+     * drops times of entries no longer contained in given Map (unless recently
+     * added, as they may be in process of being added concurrently).
+     */
+    public List<ResolvedTypeKey> expiredKeys(Map<ResolvedTypeKey, ?> entries, long nowNanos)
+    {
+        final long interval = _expiry.getCleanupIntervalNanos();
+        List<ResolvedTypeKey> expired = new ArrayList<ResolvedTypeKey>();
+        for (Iterator<Map.Entry<ResolvedTypeKey, Stamp>> it = _stamps.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<ResolvedTypeKey, Stamp> entry = it.next();
+            Stamp stamp = entry.getValue();
+            if (!entries.containsKey(entry.getKey())) {
+                if ((nowNanos - stamp._written) >= interval) {
+                    it.remove();
+                }
+            } else if (_expiry.isExpired(stamp._written, stamp._accessed, nowNanos)) {
+                it.remove();
+                expired.add(entry.getKey());
+            }
+        }
+        return expired;
+    }
+
+    private final static class Stamp
+    {
+        final long _written;
+
+        volatile long _accessed;
+
+        Stamp(long nowNanos) {
+            _written = nowNanos;
+            _accessed = nowNanos;
+        }
+    }
+}
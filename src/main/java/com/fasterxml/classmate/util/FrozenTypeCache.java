@@ -0,0 +1,263 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.Filter;
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * {@link ResolvedTypeCache} implementation constructed by {@link ResolvedTypeCache#freeze},
+ * meant for use once the set of resolved types is (mostly) fixed, like after
+ * application warm-up. Contains an immutable open-addressing hash table of all entries
+ * of the cache frozen, which is accessed without any locking and never evicts
+ * entries, and a separate (usually small) mutable cache for types not included:
+ * all additions go to that cache.
+ *<p>
+ * Entries of the immutable table may still be removed using removal methods
+ * (like {@link #removeDependents}), but doing that requires re-building
+ * the whole table, so it should be done infrequently.
+ *
+ * @since 1.7.4
+ */
+public class FrozenTypeCache extends ResolvedTypeCache
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cache used for types not included in the frozen table
+     */
+    protected final ResolvedTypeCache _overflow;
+
+    /**
+     * Immutable table of frozen entries; only replaced when entries are removed
+     */
+    protected transient volatile Table _table;
+
+    public FrozenTypeCache(Map<ResolvedTypeKey, ResolvedType> entries, ResolvedTypeCache overflow) {
+        _table = new Table(entries);
+        _overflow = overflow;
+    }
+
+    // For JDK serialization: frozen entries are NOT serialized, only overflow cache (which
+    // itself will be empty)
+    Object readResolve() {
+        return new FrozenTypeCache(Collections.<ResolvedTypeKey, ResolvedType>emptyMap(), _overflow);
+    }
+
+    /*
+    /**********************************************************************
+    /* ResolvedTypeCache implementation
+    /**********************************************************************
+     */
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    @Override
+    public boolean needsAllLookups() {
+        return _overflow.needsAllLookups();
+    }
+
+    @Override
+    public ResolvedType find(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType type = _table.get(key);
+        if (type == null) {
+            type = _findPinned(key);
+            if (type == null) {
+                type = _overflow.find(key);
+            }
+        }
+        return type;
+    }
+
+    @Override
+    public int size() {
+        return _table.size() + _overflow.size();
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type) {
+        _overflow.put(key, type);
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+        _overflow.put(key, type, constructionNanos);
+    }
+
+    @Override
+    public ResolvedType remove(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType old = _overflow.remove(key);
+        synchronized (this) {
+            Map<ResolvedTypeKey, ResolvedType> entries = _table.toMap();
+            ResolvedType frozen = entries.remove(key);
+            if (frozen != null) {
+                _table = new Table(entries);
+                old = frozen;
+            }
+        }
+        _entriesRemoved();
+        return old;
+    }
+
+    @Override
+    public int removeIf(Filter<ResolvedTypeKey> filter) {
+        return _removeAll(filter, null) + _overflow.removeIf(filter);
+    }
+
+    @Override
+    public int removeDependents(Class<?> erasedType) {
+        return _removeAll(null, erasedType) + _overflow.removeDependents(erasedType);
+    }
+
+    @Override
+    public void clear() {
+        _overflow.clear();
+        synchronized (this) {
+            _table = new Table(Collections.<ResolvedTypeKey, ResolvedType>emptyMap());
+        }
+        _entriesRemoved();
+    }
+
+    @Override
+    public Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        Map<ResolvedTypeKey, ResolvedType> result = _overflow.snapshotEntries();
+        result.putAll(_table.toMap());
+        return result;
+    }
+
+    /**
+     * Generation also changes when entries are removed directly from the
+     * overflow cache.
+     */
+    @Override
+    public int generation() {
+        return super.generation() + _overflow.generation();
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    /**
+     * Accessor for number of entries in the immutable table (excluding
+     * entries of the overflow cache).
+     */
+    public int frozenSize() {
+        return _table.size();
+    }
+
+    public ResolvedTypeCache getOverflow() {
+        return _overflow;
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private synchronized int _removeAll(Filter<ResolvedTypeKey> filter, Class<?> dependency)
+    {
+        Map<ResolvedTypeKey, ResolvedType> entries = _table.toMap();
+        int count = _removeMatching(entries.entrySet().iterator(), filter, dependency);
+        if (count > 0) {
+            _table = new Table(entries);
+        }
+        _entriesRemoved();
+        return count;
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Immutable hash table that uses open addressing (linear probing) with
+     * load factor of at most 0.5, so that lookups need no more than a
+     * few probes in parallel key and value arrays.
+     */
+    protected final static class Table
+    {
+        private final ResolvedTypeKey[] _keys;
+
+        private final ResolvedType[] _values;
+
+        private final int _mask;
+
+        private final int _size;
+
+        public Table(Map<ResolvedTypeKey, ResolvedType> entries)
+        {
+            int size = entries.size();
+            int capacity = 4;
+            while (capacity < (size << 1)) {
+                capacity <<= 1;
+            }
+            _keys = new ResolvedTypeKey[capacity];
+            _values = new ResolvedType[capacity];
+            _mask = capacity - 1;
+            _size = size;
+            for (Map.Entry<ResolvedTypeKey, ResolvedType> entry : entries.entrySet()) {
+                int ix = _index(entry.getKey());
+                while (_keys[ix] != null) {
+                    ix = (ix + 1) & _mask;
+                }
+                _keys[ix] = entry.getKey();
+                _values[ix] = entry.getValue();
+            }
+        }
+
+        public ResolvedType get(ResolvedTypeKey key)
+        {
+            int ix = _index(key);
+            while (true) {
+                ResolvedTypeKey curr = _keys[ix];
+                if (curr == null) {
+                    return null;
+                }
+                if (curr.equals(key)) {
+                    return _values[ix];
+                }
+                ix = (ix + 1) & _mask;
+            }
+        }
+
+        public int size() {
+            return _size;
+        }
+
+        public Map<ResolvedTypeKey, ResolvedType> toMap()
+        {
+            Map<ResolvedTypeKey, ResolvedType> result = new HashMap<ResolvedTypeKey, ResolvedType>();
+            for (int i = 0; i < _keys.length; ++i) {
+                if (_keys[i] != null) {
+                    result.put(_keys[i], _values[i]);
+                }
+            }
+            return result;
+        }
+
+        private int _index(ResolvedTypeKey key)
+        {
+            // key hashes are based on class names, need to spread bits a bit
+            int h = key.hashCode();
+            h ^= (h >>> 16);
+            h *= 0x85EBCA6B;
+            h ^= (h >>> 13);
+            return h & _mask;
+        }
+    }
+}
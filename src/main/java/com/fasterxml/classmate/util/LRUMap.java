@@ -0,0 +1,54 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+/**
+ * Simple bounded Map that retains up to specified number of most recently
+ * accessed entries, used for caching results of operations other than type
+ * resolution (for which {@link ResolvedTypeCache} is used).
+ * Access is fully synchronized.
+ *
+ * @since 1.7.4
+ */
+public class LRUMap<K, V>
+{
+    protected final int _maxEntries;
+
+    protected final LinkedHashMap<K, V> _map;
+
+    public LRUMap(int maxEntries) {
+        _maxEntries = maxEntries;
+        _map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > _maxEntries;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return _map.get(key);
+    }
+
+    public synchronized V put(K key, V value) {
+        return _map.put(key, value);
+    }
+
+    public synchronized V remove(K key) {
+        return _map.remove(key);
+    }
+
+    public synchronized int size() {
+        return _map.size();
+    }
+
+    public synchronized void clear() {
+        _map.clear();
+    }
+
+    public int maxEntries() {
+        return _maxEntries;
+    }
+}
@@ -2,6 +2,7 @@ package com.fasterxml.classmate.util;
 
 import java.util.*;
 
+import com.fasterxml.classmate.Filter;
 import com.fasterxml.classmate.ResolvedType;
 
 /**
@@ -30,14 +31,93 @@ public class LRUTypeCache extends ResolvedTypeCache
 
     protected final transient CacheMap _map;
 
+    /**
+     * Weigher used for calculating weights of entries, if cache is bounded by
+     * total weight; null if bounded by entry count.
+     *
+     * @since 1.7.4
+     */
+    protected final TypeWeigher _weigher;
+
+    /**
+     * Maximum total weight of entries, if bounded by weight
+     *
+     * @since 1.7.4
+     */
+    protected final long _maxWeight;
+
+    /**
+     * @since 1.7.4
+     */
+    protected transient long _totalWeight;
+
+    /**
+     * Time-based expiry of entries, if any
+     *
+     * @since 1.7.4
+     */
+    protected final CacheExpiry _expiry;
+
+    /**
+     * @since 1.7.4
+     */
+    protected final transient ExpiryTracker _expiryTracker;
+
     public LRUTypeCache(int maxEntries) {
-        _map = new CacheMap(maxEntries);
+        this(maxEntries, null);
+    }
+
+    /**
+     * Constructor for cache that, in addition to being bounded by entry count,
+     * may also expire entries after specified time (if expiry is non-null).
+     *
+     * @since 1.7.4
+     */
+    public LRUTypeCache(int maxEntries, CacheExpiry expiry) {
+        _expiryTracker = (expiry == null) ? null : new ExpiryTracker(expiry, _nanoTime());
+        _map = new CacheMap(maxEntries, _expiryTracker);
         _maxEntries = maxEntries;
+        _weigher = null;
+        _maxWeight = Long.MAX_VALUE;
+        _expiry = expiry;
+    }
+
+    /**
+     * Constructor for cache that is bounded by total weight of entries, as
+     * calculated by given weigher, instead of entry count. Least-recently used
+     * entries are evicted until total weight is within bounds.
+     *
+     * @since 1.7.4
+     */
+    public LRUTypeCache(TypeWeigher weigher, long maxWeight) {
+        _map = new CacheMap(Integer.MAX_VALUE, null);
+        _maxEntries = Integer.MAX_VALUE;
+        _weigher = weigher;
+        _maxWeight = maxWeight;
+        _expiry = null;
+        _expiryTracker = null;
     }
 
     // For JDK serialization: have to re-construct backing Map since it is NOT serialized
     Object readResolve() {
-        return new LRUTypeCache(_maxEntries);
+        if (_weigher != null) {
+            return new LRUTypeCache(_weigher, _maxWeight);
+        }
+        return new LRUTypeCache(_maxEntries, _expiry);
+    }
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    /**
+     * Caches with expiration need to see all lookups, to track access times
+     * and to notice expired entries.
+     */
+    @Override
+    public boolean needsAllLookups() {
+        return (_expiryTracker != null);
     }
 
     @Override
@@ -45,7 +125,17 @@ public class LRUTypeCache extends ResolvedTypeCache
         if (key == null) {
             throw new IllegalArgumentException("Null key not allowed");
         }
-        return _map.get(key);
+        ResolvedType pinned = _findPinned(key);
+        if (pinned != null) {
+            return pinned;
+        }
+        ResolvedType type = _map.get(key);
+        if (type != null && _expiryTracker != null
+                && !_expiryTracker.accessed(key, _nanoTime())) {
+            _removeExpired(key);
+            return null;
+        }
+        return type;
     }
 
     @Override
@@ -58,7 +148,106 @@ public class LRUTypeCache extends ResolvedTypeCache
         if (key == null) {
             throw new IllegalArgumentException("Null key not allowed");
         }
-        _map.put(key, type);
+        if (_expiryTracker != null) {
+            final long now = _nanoTime();
+            if (_expiryTracker.cleanupDue(now)) {
+                for (ResolvedTypeKey expired : _expiryTracker.expiredKeys(_map, now)) {
+                    _removeExpired(expired);
+                }
+            }
+            // note: must be done after clean up, which drops entries not (yet) in Map
+            _expiryTracker.written(key, now);
+        }
+        ResolvedType old = _map.put(key, type);
+        if (_weigher != null) {
+            _totalWeight += _weigher.weigh(key, type);
+            if (old != null) {
+                _totalWeight -= _weigher.weigh(key, old);
+            }
+            // evict least-recently used ones, but retain the newly added entry in any case
+            if (_totalWeight > _maxWeight) {
+                Iterator<Map.Entry<ResolvedTypeKey, ResolvedType>> it = _map.entrySet().iterator();
+                while (_totalWeight > _maxWeight && _map.size() > 1) {
+                    Map.Entry<ResolvedTypeKey, ResolvedType> eldest = it.next();
+                    _totalWeight -= _weigher.weigh(eldest.getKey(), eldest.getValue());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized ResolvedType remove(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType old = _map.remove(key);
+        if (old != null && _weigher != null) {
+            _totalWeight -= _weigher.weigh(key, old);
+        }
+        if (_expiryTracker != null) {
+            _expiryTracker.removed(key);
+        }
+        _entriesRemoved();
+        return old;
+    }
+
+    @Override
+    public synchronized int removeIf(Filter<ResolvedTypeKey> filter) {
+        int count = _removeMatching(_map.entrySet().iterator(), filter, null);
+        _recalcWeight();
+        _entriesRemoved();
+        return count;
+    }
+
+    @Override
+    public synchronized int removeDependents(Class<?> erasedType) {
+        int count = _removeMatching(_map.entrySet().iterator(), null, erasedType);
+        _recalcWeight();
+        _entriesRemoved();
+        return count;
+    }
+
+    @Override
+    public synchronized void clear() {
+        _map.clear();
+        _totalWeight = 0L;
+        if (_expiryTracker != null) {
+            _expiryTracker.clear();
+        }
+        _entriesRemoved();
+    }
+
+    @Override
+    public synchronized Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        return new HashMap<ResolvedTypeKey, ResolvedType>(_map);
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    /**
+     * Accessor for total weight of entries, if cache is bounded by weight;
+     * 0 if not.
+     *
+     * @since 1.7.4
+     */
+    public synchronized long totalWeight() {
+        return _totalWeight;
+    }
+
+    private void _recalcWeight() {
+        if (_weigher != null) {
+            _totalWeight = _totalWeight(_weigher, _map);
+        }
+    }
+
+    private void _removeExpired(ResolvedTypeKey key) {
+        // note: expiry is not used with weights, so no need to update total weight
+        _map.remove(key);
     }
 
     /*
@@ -68,21 +257,36 @@ public class LRUTypeCache extends ResolvedTypeCache
      */
 
     /**
-     * Simple sub-class to get LRU cache
+     * Simple sub-class to get LRU cache: entries are kept in access order,
+     * so that eldest entry (evicted first) is the least-recently used one
      */
     @SuppressWarnings("serial")
     private final static class CacheMap
         extends LinkedHashMap<ResolvedTypeKey, ResolvedType>
     {
         protected final int _maxEntries;
-        
-        public CacheMap(int maxEntries) {
+
+        /**
+         * Tracker to notify of evicted entries, if any, so that it does not
+         * retain their keys
+         */
+        protected final ExpiryTracker _expiryTracker;
+
+        public CacheMap(int maxEntries, ExpiryTracker expiryTracker) {
+            super(16, 0.75f, true);
             _maxEntries = maxEntries;
+            _expiryTracker = expiryTracker;
         }
 
         @Override
         protected boolean removeEldestEntry(Map.Entry<ResolvedTypeKey, ResolvedType> eldest) {
-            return size() > _maxEntries;
+            if (size() > _maxEntries) {
+                if (_expiryTracker != null) {
+                    _expiryTracker.removed(eldest.getKey());
+                }
+                return true;
+            }
+            return false;
         }
     }
 }
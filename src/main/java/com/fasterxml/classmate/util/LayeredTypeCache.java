@@ -0,0 +1,206 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.Filter;
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * {@link ResolvedTypeCache} implementation meant for multi-tenant environments,
+ * where each tenant (plug-in, webapp) uses its own {@link com.fasterxml.classmate.TypeResolver}
+ * (to keep its classes isolated), but all tenants share types of a common parent
+ * class loader ("platform" types). Consists of two layers:
+ *<ul>
+ * <li>Parent cache, shared by all tenants, which holds types that only
+ *   refer to classes defined by the shared class loader (or its ancestors)
+ *  </li>
+ * <li>Child cache, specific to a tenant, for all other types
+ *  </li>
+ *</ul>
+ * Entries are routed to one of the layers based on class loaders of classes
+ * key refers to, so each lookup only accesses one layer.
+ *<p>
+ * Removal methods only affect the child layer, so that tenants may be
+ * dropped (or their types invalidated) independently of each other;
+ * parent layer may be accessed (to remove platform types) using {@link #getParent()}.
+ *
+ * @since 1.7.4
+ */
+public class LayeredTypeCache extends ResolvedTypeCache
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final ResolvedTypeCache _parent;
+
+    protected final ResolvedTypeCache _child;
+
+    /**
+     * Class loader of shared types; null for bootstrap class loader
+     */
+    protected final transient ClassLoader _sharedLoader;
+
+    /**
+     * Lazily calculated information on whether classes are visible to
+     * the shared class loader (that is, defined by it or its ancestors)
+     */
+    protected final transient ClassValue<Boolean> _sharedClasses;
+
+    public LayeredTypeCache(ResolvedTypeCache parent, ResolvedTypeCache child, ClassLoader sharedLoader) {
+        _parent = parent;
+        _child = child;
+        _sharedLoader = sharedLoader;
+        _sharedClasses = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return ClassLoaderAwareTypeCache.isAncestorOf(type.getClassLoader(), _sharedLoader);
+            }
+        };
+    }
+
+    // For JDK serialization: class loader is not serialized, so only bootstrap
+    // types may be shared after deserialization
+    Object readResolve() {
+        return new LayeredTypeCache(_parent, _child, null);
+    }
+
+    /*
+    /**********************************************************************
+    /* ResolvedTypeCache implementation
+    /**********************************************************************
+     */
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    @Override
+    public boolean needsAllLookups() {
+        return _parent.needsAllLookups() || _child.needsAllLookups();
+    }
+
+    @Override
+    public ResolvedType find(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType pinned = _findPinned(key);
+        if (pinned != null) {
+            return pinned;
+        }
+        return isShared(key) ? _parent.find(key) : _child.find(key);
+    }
+
+    /**
+     * Note: returns total number of entries in both layers.
+     */
+    @Override
+    public int size() {
+        return _parent.size() + _child.size();
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        if (isShared(key)) {
+            _parent.put(key, type);
+        } else {
+            _child.put(key, type);
+        }
+    }
+
+    @Override
+    public void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        if (isShared(key)) {
+            _parent.put(key, type, constructionNanos);
+        } else {
+            _child.put(key, type, constructionNanos);
+        }
+    }
+
+    @Override
+    public ResolvedType remove(ResolvedTypeKey key) {
+        return _child.remove(key);
+    }
+
+    @Override
+    public int removeIf(Filter<ResolvedTypeKey> filter) {
+        return _child.removeIf(filter);
+    }
+
+    @Override
+    public int removeDependents(Class<?> erasedType) {
+        return _child.removeDependents(erasedType);
+    }
+
+    @Override
+    public void clear() {
+        _child.clear();
+    }
+
+    @Override
+    public Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        Map<ResolvedTypeKey, ResolvedType> result = _parent.snapshotEntries();
+        result.putAll(_child.snapshotEntries());
+        return result;
+    }
+
+    /**
+     * Generation changes when entries are removed from either layer.
+     */
+    @Override
+    public int generation() {
+        return super.generation() + _parent.generation() + _child.generation();
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    public ResolvedTypeCache getParent() {
+        return _parent;
+    }
+
+    public ResolvedTypeCache getChild() {
+        return _child;
+    }
+
+    /**
+     * Method for checking whether entry with given key belongs to the shared
+     * parent layer: that is, whether all classes it refers to (type-erased class
+     * and classes of type parameters) are visible to the shared class loader.
+     */
+    public boolean isShared(ResolvedTypeKey key)
+    {
+        if (!_sharedClasses.get(key.getErasedType())) {
+            return false;
+        }
+        for (int i = 0, len = key.getTypeParameterCount(); i < len; ++i) {
+            if (!_isShared(key.getTypeParameter(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean _isShared(ResolvedType type)
+    {
+        if (!_sharedClasses.get(type.getErasedType())) {
+            return false;
+        }
+        for (ResolvedType param : type.getTypeParameters()) {
+            if (!_isShared(param)) {
+                return false;
+            }
+        }
+        ResolvedType elem = type.getArrayElementType();
+        return (elem == null) || _isShared(elem);
+    }
+}
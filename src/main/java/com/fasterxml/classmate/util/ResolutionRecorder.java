@@ -0,0 +1,261 @@
+package com.fasterxml.classmate.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.*;
+
+import com.fasterxml.classmate.AnnotationConfiguration;
+import com.fasterxml.classmate.AnnotationInclusion;
+import com.fasterxml.classmate.MemberResolver;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.ResolvedTypeWithMembers;
+import com.fasterxml.classmate.TypeResolver;
+
+/**
+ * Helper object that can be attached to a {@link TypeResolver} (see
+ * {@link TypeResolver#withRecorder}) and {@link MemberResolver}
+ * (see {@link MemberResolver#setRecorder}) to record all types resolved,
+ * during a "training run"; recording may then be saved
+ * (see {@link #write}), loaded (see {@link #read}) and replayed
+ * (see {@link #replay}) on startup, to pre-populate type caches before
+ * the first actual request.
+ *<p>
+ * Types are recorded using the cache key they were cached with: that is, as
+ * generic type signatures (see {@link TypeSignatures}) of erased type with type
+ * parameters of the key (none for raw types, like <code>Ljava/util/HashMap;</code>),
+ * in the order they were first resolved; so that replay populates
+ * exactly the same cache entries. Only cacheable types are recorded
+ * (that is, not ones that contain unbound placeholders), and only when they are
+ * constructed (not when found from the type cache): this means that training
+ * run should start with empty caches.
+ *<p>
+ * Instances are thread-safe.
+ *
+ * @since 1.7.4
+ */
+public class ResolutionRecorder
+{
+    protected final static String PREFIX_TYPE = "type ";
+
+    protected final static String PREFIX_MEMBERS = "members ";
+
+    /**
+     * Signatures of types resolved via {@link TypeResolver}, in resolution order
+     */
+    protected final LinkedHashSet<String> _types = new LinkedHashSet<String>();
+
+    /**
+     * Signatures of types for which members were resolved via {@link MemberResolver},
+     * in resolution order
+     */
+    protected final LinkedHashSet<String> _memberTypes = new LinkedHashSet<String>();
+
+    public ResolutionRecorder() { }
+
+    /*
+    /**********************************************************************
+    /* Recording
+    /**********************************************************************
+     */
+
+    /**
+     * Method called by {@link TypeResolver} when constructing a type.
+     *
+     * @param key Key under which constructed type is cached
+     */
+    public void recordType(ResolvedTypeKey key) {
+        String sig = _keySignature(key);
+        synchronized (this) {
+            _types.add(sig);
+        }
+    }
+
+    /**
+     * Method called by {@link MemberResolver} when resolving members of a type.
+     */
+    public void recordMemberResolution(ResolvedType type) {
+        String sig = TypeSignatures.genericSignatureOf(type);
+        synchronized (this) {
+            _memberTypes.add(sig);
+        }
+    }
+
+    public synchronized void clear() {
+        _types.clear();
+        _memberTypes.clear();
+    }
+
+    /**
+     * Helper method for constructing signature of erased type of given key,
+     * with type parameters of the key (if any).
+     */
+    protected static String _keySignature(ResolvedTypeKey key)
+    {
+        Class<?> raw = key.getErasedType();
+        // arrays have no type parameters, so erased descriptor is enough
+        if (raw.isArray()) {
+            return raw.getName().replace('.', '/');
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append('L').append(raw.getName().replace('.', '/'));
+        int count = key.getTypeParameterCount();
+        if (count > 0) {
+            sb.append('<');
+            for (int i = 0; i < count; ++i) {
+                TypeSignatures.appendGenericSignature(sb, key.getTypeParameter(i));
+            }
+            sb.append('>');
+        }
+        return sb.append(';').toString();
+    }
+
+    /*
+    /**********************************************************************
+    /* Accessors
+    /**********************************************************************
+     */
+
+    public synchronized List<String> getTypeSignatures() {
+        return new ArrayList<String>(_types);
+    }
+
+    public synchronized List<String> getMemberTypeSignatures() {
+        return new ArrayList<String>(_memberTypes);
+    }
+
+    /*
+    /**********************************************************************
+    /* Persistence
+    /**********************************************************************
+     */
+
+    /**
+     * Method for writing recorded entries using given {@link Writer}, one
+     * entry per line.
+     */
+    public void write(Writer w) throws IOException
+    {
+        for (String sig : getTypeSignatures()) {
+            w.write(PREFIX_TYPE);
+            w.write(sig);
+            w.write('\n');
+        }
+        for (String sig : getMemberTypeSignatures()) {
+            w.write(PREFIX_MEMBERS);
+            w.write(sig);
+            w.write('\n');
+        }
+        w.flush();
+    }
+
+    /**
+     * Method for reading entries written using {@link #write} into a new
+     * recorder instance. Empty lines and ones starting with '#' are ignored.
+     */
+    public static ResolutionRecorder read(Reader r) throws IOException
+    {
+        ResolutionRecorder rec = new ResolutionRecorder();
+        BufferedReader br = (r instanceof BufferedReader) ? (BufferedReader) r : new BufferedReader(r);
+        String line;
+        int lineNr = 0;
+        while ((line = br.readLine()) != null) {
+            ++lineNr;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith(PREFIX_TYPE)) {
+                rec._types.add(line.substring(PREFIX_TYPE.length()).trim());
+            } else if (line.startsWith(PREFIX_MEMBERS)) {
+                rec._memberTypes.add(line.substring(PREFIX_MEMBERS.length()).trim());
+            } else {
+                throw new IOException("Invalid entry on line #"+lineNr+": \""+line+"\"");
+            }
+        }
+        return rec;
+    }
+
+    /*
+    /**********************************************************************
+    /* Replay
+    /**********************************************************************
+     */
+
+    /**
+     * Method for replaying recorded entries: resolving all recorded types using
+     * given {@link TypeResolver} (to populate its type cache) and, if
+     * {@link MemberResolver} given, resolving members of types recorded for
+     * member resolution (to populate lazily constructed member information of
+     * cached types, as well as to cache types of members).
+     * Entries that can not be resolved (usually because classes are no longer
+     * available, or can not be linked) are skipped.
+     *
+     * @param typeResolver Resolver used for resolving types
+     * @param memberResolver Resolver used for resolving members, if any; may be null
+     * @param loader Class loader used for loading classes
+     *
+     * @return Number of entries that could not be resolved
+     */
+    public int replay(TypeResolver typeResolver, MemberResolver memberResolver, ClassLoader loader)
+    {
+        int failures = 0;
+        for (String sig : getTypeSignatures()) {
+            try {
+                _replayType(typeResolver, sig, loader);
+            } catch (IllegalArgumentException e) {
+                ++failures;
+            } catch (LinkageError e) {
+                ++failures;
+            }
+        }
+        if (memberResolver != null) {
+            AnnotationConfiguration annConfig = new AnnotationConfiguration.StdConfiguration(
+                    AnnotationInclusion.DONT_INCLUDE);
+            for (String sig : getMemberTypeSignatures()) {
+                ResolvedType type;
+                try {
+                    type = TypeSignatures.resolve(typeResolver, sig, loader);
+                } catch (IllegalArgumentException e) {
+                    ++failures;
+                    continue;
+                } catch (LinkageError e) {
+                    ++failures;
+                    continue;
+                }
+                ResolvedTypeWithMembers members = memberResolver.resolve(type, annConfig, null);
+                members.getMemberFields();
+                members.getMemberMethods();
+                members.getStaticFields();
+                members.getStaticMethods();
+                members.getConstructors();
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Helper method for resolving type recorded with given key signature: done
+     * so that the type is resolved with exactly the same erased type and type
+     * parameters, and thereby cached with the same key, as when recorded.
+     */
+    protected void _replayType(TypeResolver typeResolver, String sig, ClassLoader loader)
+    {
+        // Array types are recorded using erased descriptor; and need to be resolved
+        // from array class, as arrays constructed from element type are not cached
+        if (sig.startsWith("[")) {
+            Class<?> raw;
+            try {
+                raw = Class.forName(sig.replace('/', '.'), false, loader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Can not load array class for '"+sig+"': "+e.getMessage(), e);
+            }
+            typeResolver.resolve(raw);
+            return;
+        }
+        // and for others, resolution by signature calls resolve(raw, params) with
+        // same type parameters (none for raw types)
+        TypeSignatures.resolve(typeResolver, sig, loader);
+    }
+}
@@ -1,9 +1,12 @@
 package com.fasterxml.classmate.util;
 
 import java.io.Serializable;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
+import com.fasterxml.classmate.Filter;
 import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeBindings;
 import com.fasterxml.classmate.types.TypePlaceHolder;
 
 /**
@@ -15,6 +18,32 @@ import com.fasterxml.classmate.types.TypePlaceHolder;
 @SuppressWarnings("serial")
 public abstract class ResolvedTypeCache implements Serializable
 {
+    /**
+     * Default maximum number of entries for the mutable overflow cache of
+     * caches constructed by {@link #freeze()}.
+     *
+     * @since 1.7.4
+     */
+    public final static int DEFAULT_FROZEN_OVERFLOW_ENTRIES = 100;
+
+    /**
+     * Pinned entries, if any: replaced (copy-on-write) whenever entries are
+     * pinned or unpinned, so that lookups need no synchronization.
+     *
+     * @since 1.7.4
+     */
+    protected transient volatile Map<ResolvedTypeKey, ResolvedType> _pinned;
+
+    private final static AtomicIntegerFieldUpdater<ResolvedTypeCache> GENERATION_UPDATER
+        = AtomicIntegerFieldUpdater.newUpdater(ResolvedTypeCache.class, "_generation");
+
+    /**
+     * Counter incremented whenever entries are (explicitly) removed.
+     *
+     * @since 1.7.4
+     */
+    private transient volatile int _generation;
+
     /**
      * @since 1.4
      */
@@ -29,6 +58,104 @@ public abstract class ResolvedTypeCache implements Serializable
         return new ConcurrentTypeCache(maxEntries);
     }
 
+    /**
+     * Factory method for constructing LRU cache with time-based expiry of entries.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache lruCache(int maxEntries, CacheExpiry expiry) {
+        return new LRUTypeCache(maxEntries, expiry);
+    }
+
+    /**
+     * Factory method for constructing concurrent cache with time-based expiry of entries.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache concurrentCache(int maxEntries, CacheExpiry expiry) {
+        return new ConcurrentTypeCache(maxEntries, expiry);
+    }
+
+    /**
+     * Factory method for constructing LRU cache that is bounded by total weight
+     * of entries (as calculated by given weigher) instead of entry count.
+     * Use {@link TypeWeigher#DEFAULT} for estimating sizes in bytes.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache lruCache(TypeWeigher weigher, long maxWeight) {
+        return new LRUTypeCache(weigher, maxWeight);
+    }
+
+    /**
+     * Factory method for constructing concurrent cache that is bounded by total weight
+     * of entries (as calculated by given weigher) instead of entry count.
+     * Use {@link TypeWeigher#DEFAULT} for estimating sizes in bytes.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache concurrentCache(TypeWeigher weigher, long maxWeight) {
+        return new ConcurrentTypeCache(weigher, maxWeight);
+    }
+
+    /**
+     * Factory method for constructing LRU cache that adjusts its capacity between
+     * given bounds based on observed access patterns: see {@link AdaptiveTypeCache}
+     * for details.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache adaptiveCache(int minEntries, int maxEntries) {
+        return new AdaptiveTypeCache(minEntries, maxEntries);
+    }
+
+    /**
+     * Factory method for constructing cache that chooses entries to evict based on
+     * construction cost, as well as frequency and recency of access: see
+     * {@link CostAwareTypeCache} for details.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache costAwareCache(int maxEntries) {
+        return new CostAwareTypeCache(maxEntries);
+    }
+
+    /**
+     * Factory method for constructing cache that strongly holds up to
+     * <code>hotEntries</code> most recently used types, and softly (that is,
+     * reclaimable when memory is needed) up to <code>maxEntries</code> in total:
+     * see {@link SoftTypeCache} for details.
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedTypeCache softCache(int hotEntries, int maxEntries) {
+        return new SoftTypeCache(hotEntries, maxEntries);
+    }
+
+    /**
+     * Factory method for constructing cache that does not prevent garbage
+     * collection of class loaders of cached types, and allows invalidation of
+     * entries by class loader: see {@link ClassLoaderAwareTypeCache} for details.
+     *
+     * @since 1.7.4
+     */
+    public static ClassLoaderAwareTypeCache classLoaderAwareCache(int maxEntries) {
+        return new ClassLoaderAwareTypeCache(maxEntries);
+    }
+
+    /**
+     * Factory method for constructing cache with two layers: given parent cache
+     * (usually shared by multiple layered caches) for types that only refer to
+     * classes visible to given shared class loader, and given child cache for
+     * other types: see {@link LayeredTypeCache} for details.
+     *
+     * @since 1.7.4
+     */
+    public static LayeredTypeCache layeredCache(ResolvedTypeCache parent, ResolvedTypeCache child,
+            ClassLoader sharedLoader) {
+        return new LayeredTypeCache(parent, child, sharedLoader);
+    }
+
     /**
      * Helper method for constructing reusable cache keys
      */
@@ -60,6 +187,375 @@ public abstract class ResolvedTypeCache implements Serializable
 
     public abstract void put(ResolvedTypeKey key, ResolvedType type);
 
+    /**
+     * Alternative to {@link #put(ResolvedTypeKey, ResolvedType)} called by
+     * {@link com.fasterxml.classmate.TypeResolver}, which also passes time taken
+     * to construct the type, for use by caches that consider cost of re-constructing
+     * entries. Default implementation simply calls {@link #put(ResolvedTypeKey, ResolvedType)}.
+     *
+     * @param constructionNanos Time taken to construct type, in nanoseconds; not
+     *   including time spent constructing nested (parameter, member, super) types
+     *   that were not already cached, as those are passed separately
+     *
+     * @since 1.7.4
+     */
+    public void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+        put(key, type);
+    }
+
+    /*
+    /**********************************************************************
+    /* Removal; optional operations (default implementations throw
+    /* UnsupportedOperationException), implemented by all standard caches
+    /**********************************************************************
+     */
+
+    /**
+     * Method for removing entry with given key, if one exists.
+     *
+     * @return Type removed, if any; null if none
+     *
+     * @since 1.7.4
+     */
+    public ResolvedType remove(ResolvedTypeKey key) {
+        throw _unsupportedRemoval();
+    }
+
+    /**
+     * Method for removing all entries with keys accepted by given filter.
+     *
+     * @return Number of entries removed
+     *
+     * @since 1.7.4
+     */
+    public int removeIf(Filter<ResolvedTypeKey> filter) {
+        throw _unsupportedRemoval();
+    }
+
+    /**
+     * Method for removing entries for given type-erased class (with any
+     * parameterization), as well as all types that depend on it: types with it as a
+     * type parameter (like <code>List&lt;Foo&gt;</code> for <code>Foo</code>), and
+     * types with it or such parameterized types as supertypes. Useful
+     * when class is about to be reloaded or otherwise replaced.
+     *
+     * @return Number of entries removed
+     *
+     * @since 1.7.4
+     */
+    public int removeDependents(Class<?> erasedType) {
+        throw _unsupportedRemoval();
+    }
+
+    /**
+     * Method for removing all entries.
+     *
+     * @since 1.7.4
+     */
+    public void clear() {
+        throw _unsupportedRemoval();
+    }
+
+    /**
+     * Accessor for "generation" of this cache: a counter that changes whenever
+     * entries are removed by removal methods (or types unpinned), but not when
+     * evicted. Callers that keep their own copies of types found (like per-thread
+     * caches of {@link com.fasterxml.classmate.TypeResolver}) may use it to
+     * detect whether such copies are still valid: to do that, generation
+     * needs to be read before looking up entries.
+     *
+     * @since 1.7.4
+     */
+    public int generation() {
+        return _generation;
+    }
+
+    /**
+     * Method that indicates whether this cache needs to see every lookup of its
+     * entries to work as configured: for example, to reset expiration timers of
+     * entries on access, or to notice that entries have expired.
+     * If true, {@link com.fasterxml.classmate.TypeResolver} does not use per-thread
+     * caches in front of this cache (see
+     * {@link com.fasterxml.classmate.TypeResolver#withThreadLocalCache(int)}),
+     * as lookups served by those are not seen by this cache.
+     *<p>
+     * Default implementation returns false.
+     *
+     * @since 1.7.4
+     */
+    public boolean needsAllLookups() {
+        return false;
+    }
+
+    /**
+     * Method that implementations call after removing entries, to increment
+     * {@link #generation()}.
+     *
+     * @since 1.7.4
+     */
+    protected final void _entriesRemoved() {
+        GENERATION_UPDATER.incrementAndGet(this);
+    }
+
+    protected UnsupportedOperationException _unsupportedRemoval() {
+        return new UnsupportedOperationException("Cache of type "+getClass().getName()
+                +" does not support removal of entries");
+    }
+
+    /*
+    /**********************************************************************
+    /* Pinning, freezing
+    /**********************************************************************
+     */
+
+    /**
+     * Method for pinning given type in this cache: pinned types are never evicted,
+     * nor removed by removal methods (like {@link #clear()}); only by calling
+     * {@link #unpin}. Pinned types are not included in {@link #size()}.
+     * Optional operation: only supported by caches that check pinned types on
+     * lookups (see {@link #_supportsPinning}), which includes all standard caches.
+     *
+     * @throws IllegalArgumentException If type is not cacheable (contains unbound
+     *    type placeholders)
+     * @throws UnsupportedOperationException If this cache does not support pinning
+     *
+     * @since 1.7.4
+     */
+    public void pin(ResolvedType type)
+    {
+        if (!_supportsPinning()) {
+            throw new UnsupportedOperationException("Cache of type "+getClass().getName()
+                    +" does not support pinning of types");
+        }
+        ResolvedTypeKey key = _keyFor(type);
+        synchronized (this) {
+            Map<ResolvedTypeKey, ResolvedType> pinned = _pinned;
+            pinned = (pinned == null) ? new HashMap<ResolvedTypeKey, ResolvedType>()
+                    : new HashMap<ResolvedTypeKey, ResolvedType>(pinned);
+            pinned.put(key, type);
+            _pinned = pinned;
+        }
+    }
+
+    /**
+     * Method for un-pinning type pinned earlier using {@link #pin}. Note that
+     * this does not add type as a regular cache entry.
+     *
+     * @return True if type was pinned; false if not
+     *
+     * @since 1.7.4
+     */
+    public boolean unpin(ResolvedType type)
+    {
+        ResolvedTypeKey key = _keyFor(type);
+        synchronized (this) {
+            Map<ResolvedTypeKey, ResolvedType> pinned = _pinned;
+            if (pinned == null || !pinned.containsKey(key)) {
+                return false;
+            }
+            if (pinned.size() == 1) {
+                _pinned = null;
+            } else {
+                pinned = new HashMap<ResolvedTypeKey, ResolvedType>(pinned);
+                pinned.remove(key);
+                _pinned = pinned;
+            }
+        }
+        _entriesRemoved();
+        return true;
+    }
+
+    /**
+     * @return Number of types pinned using {@link #pin}
+     *
+     * @since 1.7.4
+     */
+    public int pinnedSize() {
+        Map<ResolvedTypeKey, ResolvedType> pinned = _pinned;
+        return (pinned == null) ? 0 : pinned.size();
+    }
+
+    /**
+     * Method for getting a point-in-time copy of all (non-pinned) entries of this
+     * cache. Optional operation (default implementation throws
+     * {@link UnsupportedOperationException}), implemented by all standard caches.
+     *
+     * @since 1.7.4
+     */
+    public Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        throw new UnsupportedOperationException("Cache of type "+getClass().getName()
+                +" does not support access to all entries");
+    }
+
+    /**
+     * Method for constructing an immutable, read-optimized copy of current contents
+     * of this cache (including pinned types), with a small LRU cache (of up to
+     * {@link #DEFAULT_FROZEN_OVERFLOW_ENTRIES} entries) for types not
+     * included. This cache itself is not modified.
+     *
+     * @since 1.7.4
+     */
+    public FrozenTypeCache freeze() {
+        return freeze(lruCache(DEFAULT_FROZEN_OVERFLOW_ENTRIES));
+    }
+
+    /**
+     * Method for constructing an immutable, read-optimized copy of current contents
+     * of this cache (including pinned types), with given mutable cache used for
+     * types not included. This cache itself is not modified.
+     *
+     * @since 1.7.4
+     */
+    public FrozenTypeCache freeze(ResolvedTypeCache overflow)
+    {
+        Map<ResolvedTypeKey, ResolvedType> entries = snapshotEntries();
+        Map<ResolvedTypeKey, ResolvedType> pinned = _pinned;
+        if (pinned != null) {
+            entries.putAll(pinned);
+        }
+        return new FrozenTypeCache(entries, overflow);
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper methods for sub-classes
+    /**********************************************************************
+     */
+
+    /**
+     * Helper method for removing entries from a Map (or entry iterator of one),
+     * either based on key filter, or on dependency to given type-erased class.
+     *
+     * @param it Iterator of entries that supports removal
+     * @param filter Filter that accepts keys to remove, if any; null if removal
+     *    is based on dependency
+     * @param dependency Type-erased class for which to remove dependents
+     *    (if filter is null)
+     *
+     * @return Number of entries removed
+     *
+     * @since 1.7.4
+     */
+    protected static int _removeMatching(Iterator<Map.Entry<ResolvedTypeKey, ResolvedType>> it,
+            Filter<ResolvedTypeKey> filter, Class<?> dependency)
+    {
+        int count = 0;
+        while (it.hasNext()) {
+            Map.Entry<ResolvedTypeKey, ResolvedType> entry = it.next();
+            boolean remove = (filter == null)
+                    ? dependsOn(entry.getKey(), entry.getValue(), dependency)
+                    : filter.include(entry.getKey());
+            if (remove) {
+                it.remove();
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Method that implementations that call {@link #_findPinned} from {@link #find}
+     * override to return true, to indicate that they support {@link #pin}.
+     *
+     * @since 1.7.4
+     */
+    protected boolean _supportsPinning() {
+        return false;
+    }
+
+    /**
+     * Helper method that implementations call from {@link #find}, to
+     * check whether type with given key has been pinned.
+     *
+     * @since 1.7.4
+     */
+    protected final ResolvedType _findPinned(ResolvedTypeKey key) {
+        Map<ResolvedTypeKey, ResolvedType> pinned = _pinned;
+        return (pinned == null) ? null : pinned.get(key);
+    }
+
+    protected ResolvedTypeKey _keyFor(ResolvedType type)
+    {
+        List<ResolvedType> tp = type.getTypeParameters();
+        ResolvedTypeKey key = key(type.getErasedType(), tp.toArray(new ResolvedType[0]));
+        if (key == null) {
+            throw new IllegalArgumentException("Type "+type+" can not be cached: contains unbound type placeholders");
+        }
+        return key;
+    }
+
+    /**
+     * Time source used by caches with time-based expiry (see {@link CacheExpiry}):
+     * by default {@link System#nanoTime()}, but may be overridden (mostly for testing).
+     *
+     * @since 1.7.4
+     */
+    protected long _nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Helper method for calculating total weight of entries of given Map.
+     *
+     * @since 1.7.4
+     */
+    protected static long _totalWeight(TypeWeigher weigher, Map<ResolvedTypeKey, ResolvedType> entries)
+    {
+        long total = 0L;
+        for (Map.Entry<ResolvedTypeKey, ResolvedType> entry : entries.entrySet()) {
+            total += weigher.weigh(entry.getKey(), entry.getValue());
+        }
+        return total;
+    }
+
+    /**
+     * Helper method for checking whether cached entry refers to given type-erased
+     * class, either directly or via type parameters or supertypes.
+     *
+     * @since 1.7.4
+     */
+    public static boolean dependsOn(ResolvedTypeKey key, ResolvedType type, Class<?> erasedType)
+    {
+        if (key.getErasedType() == erasedType) {
+            return true;
+        }
+        Set<ResolvedType> seen = Collections.newSetFromMap(new IdentityHashMap<ResolvedType, Boolean>());
+        for (int i = 0, len = key.getTypeParameterCount(); i < len; ++i) {
+            if (_dependsOn(key.getTypeParameter(i), erasedType, seen)) {
+                return true;
+            }
+        }
+        return (type != null) && _dependsOn(type, erasedType, seen);
+    }
+
+    private static boolean _dependsOn(ResolvedType type, Class<?> erasedType, Set<ResolvedType> seen)
+    {
+        if (type == null || !seen.add(type)) {
+            return false;
+        }
+        if (type.getErasedType() == erasedType) {
+            return true;
+        }
+        TypeBindings b = type.getTypeBindings();
+        for (int i = 0, len = b.size(); i < len; ++i) {
+            if (_dependsOn(b.getBoundType(i), erasedType, seen)) {
+                return true;
+            }
+        }
+        // note: self-references (ResolvedRecursiveType) expose neither parent
+        // nor interfaces, so no need to worry about cycles here
+        if (_dependsOn(type.getArrayElementType(), erasedType, seen)
+                || _dependsOn(type.getParentClass(), erasedType, seen)) {
+            return true;
+        }
+        for (ResolvedType intf : type.getImplementedInterfaces()) {
+            if (_dependsOn(intf, erasedType, seen)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // // // Methods for unit tests
 
     /**
@@ -30,6 +30,27 @@ public class ResolvedTypeKey
         _hashCode = h;
     }
 
+    /**
+     * @since 1.7.4
+     */
+    public Class<?> getErasedType() {
+        return _erasedType;
+    }
+
+    /**
+     * @since 1.7.4
+     */
+    public int getTypeParameterCount() {
+        return (_typeParameters == null) ? 0 : _typeParameters.length;
+    }
+
+    /**
+     * @since 1.7.4
+     */
+    public ResolvedType getTypeParameter(int index) {
+        return _typeParameters[index];
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,345 @@
+package com.fasterxml.classmate.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+import com.fasterxml.classmate.Filter;
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * {@link ResolvedTypeCache} implementation with two tiers: a "hot" tier of
+ * up to specified number of most recently accessed types, held with strong
+ * references (same as with {@link LRUTypeCache}); and an overflow tier
+ * for types evicted from the hot tier, held with {@link SoftReference}s
+ * so that garbage collector may reclaim them when memory is needed.
+ * Types found from overflow tier are moved back to hot tier.
+ *<p>
+ * This allows using a generous maximum entry count, to retain more types
+ * when memory is available, without risking running out of memory.
+ * Entries whose types have been reclaimed are removed as part of cache
+ * access, using a {@link ReferenceQueue}.
+ *<p>
+ * Keys of softly held entries are only softly reachable as well (since keys refer
+ * to types of type parameters); the overflow tier is indexed by hash codes of keys,
+ * and in the (rare) case of a hash collision, the older entry is dropped.
+ *<p>
+ * Like {@link LRUTypeCache}, access is fully synchronized.
+ *
+ * @since 1.7.4
+ */
+public class SoftTypeCache extends ResolvedTypeCache
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of strongly held entries
+     */
+    protected final int _hotEntries;
+
+    /**
+     * Maximum number of entries, including both strongly and softly held ones
+     */
+    protected final int _maxEntries;
+
+    /**
+     * Strongly held entries, in access order
+     */
+    protected final transient LinkedHashMap<ResolvedTypeKey, ResolvedType> _hot;
+
+    /**
+     * Softly held entries, in order of eviction from hot tier, by hash code
+     * of the key (see {@link #_hash})
+     */
+    protected final transient LinkedHashMap<Integer, SoftEntry> _overflow;
+
+    protected final transient ReferenceQueue<KeyedType> _clearedEntries;
+
+    public SoftTypeCache(int hotEntries, int maxEntries) {
+        if (hotEntries > maxEntries) {
+            throw new IllegalArgumentException("Hot entry count ("+hotEntries
+                    +") can not exceed maximum entry count ("+maxEntries+")");
+        }
+        _hotEntries = hotEntries;
+        _maxEntries = maxEntries;
+        _hot = new LinkedHashMap<ResolvedTypeKey, ResolvedType>(16, 0.75f, true);
+        _overflow = new LinkedHashMap<Integer, SoftEntry>();
+        _clearedEntries = new ReferenceQueue<KeyedType>();
+    }
+
+    // For JDK serialization: have to re-construct backing Maps since they are NOT serialized
+    Object readResolve() {
+        return new SoftTypeCache(_hotEntries, _maxEntries);
+    }
+
+    /*
+    /**********************************************************************
+    /* ResolvedTypeCache implementation
+    /**********************************************************************
+     */
+
+    @Override
+    protected boolean _supportsPinning() {
+        return true;
+    }
+
+    @Override
+    public synchronized ResolvedType find(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType type = _findPinned(key);
+        if (type != null) {
+            return type;
+        }
+        type = _hot.get(key);
+        if (type == null) {
+            _expungeCleared();
+            type = _removeOverflow(key);
+            if (type != null) { // promote back to hot tier
+                _putHot(key, type);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Note: count of softly held entries may include ones already reclaimed
+     * by garbage collector, but not yet removed from the cache.
+     */
+    @Override
+    public synchronized int size() {
+        _expungeCleared();
+        return _hot.size() + _overflow.size();
+    }
+
+    @Override
+    public synchronized void put(ResolvedTypeKey key, ResolvedType type) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        _expungeCleared();
+        _removeOverflow(key);
+        _putHot(key, type);
+    }
+
+    @Override
+    public synchronized ResolvedType remove(ResolvedTypeKey key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key not allowed");
+        }
+        ResolvedType type = _hot.remove(key);
+        ResolvedType softType = _removeOverflow(key);
+        if (type == null) {
+            type = softType;
+        }
+        _entriesRemoved();
+        return type;
+    }
+
+    @Override
+    public synchronized int removeIf(Filter<ResolvedTypeKey> filter) {
+        _expungeCleared();
+        int count = _removeMatching(_hot.entrySet().iterator(), filter, null)
+                + _removeMatching(new OverflowIterator(), filter, null);
+        _entriesRemoved();
+        return count;
+    }
+
+    @Override
+    public synchronized int removeDependents(Class<?> erasedType) {
+        _expungeCleared();
+        int count = _removeMatching(_hot.entrySet().iterator(), null, erasedType)
+                + _removeMatching(new OverflowIterator(), null, erasedType);
+        _entriesRemoved();
+        return count;
+    }
+
+    @Override
+    public synchronized void clear() {
+        _hot.clear();
+        _overflow.clear();
+        _expungeCleared();
+        _entriesRemoved();
+    }
+
+    @Override
+    public synchronized Map<ResolvedTypeKey, ResolvedType> snapshotEntries() {
+        Map<ResolvedTypeKey, ResolvedType> result = new HashMap<ResolvedTypeKey, ResolvedType>(_hot);
+        for (SoftEntry entry : _overflow.values()) {
+            KeyedType kt = entry.get();
+            if (kt != null) {
+                result.put(kt.key, kt.type);
+            }
+        }
+        return result;
+    }
+
+    /*
+    /**********************************************************************
+    /* Extended API
+    /**********************************************************************
+     */
+
+    /**
+     * Accessor for number of strongly held entries.
+     */
+    public synchronized int hotSize() {
+        return _hot.size();
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private void _putHot(ResolvedTypeKey key, ResolvedType type)
+    {
+        _hot.put(key, type);
+        if (_hot.size() > _hotEntries) { // demote least recently accessed
+            Iterator<Map.Entry<ResolvedTypeKey, ResolvedType>> it = _hot.entrySet().iterator();
+            Map.Entry<ResolvedTypeKey, ResolvedType> eldest = it.next();
+            it.remove();
+            if (_maxEntries > _hotEntries) {
+                final Integer hash = _hash(eldest.getKey());
+                _overflow.put(hash, new SoftEntry(hash,
+                        new KeyedType(eldest.getKey(), eldest.getValue()), _clearedEntries));
+                if (_overflow.size() > (_maxEntries - _hotEntries)) {
+                    Iterator<SoftEntry> it2 = _overflow.values().iterator();
+                    it2.next();
+                    it2.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Method for removing softly held entry with given key, if any.
+     *
+     * @return Type of entry removed, if one found (and not yet reclaimed)
+     */
+    private ResolvedType _removeOverflow(ResolvedTypeKey key)
+    {
+        final Integer hash = _hash(key);
+        SoftEntry entry = _overflow.get(hash);
+        if (entry == null) {
+            return null;
+        }
+        KeyedType kt = entry.get();
+        if (kt == null) {
+            _overflow.remove(hash);
+            return null;
+        }
+        if (!kt.key.equals(key)) { // collision: entry for some other key
+            return null;
+        }
+        _overflow.remove(hash);
+        return kt.type;
+    }
+
+    private void _expungeCleared()
+    {
+        Reference<? extends KeyedType> ref;
+        while ((ref = _clearedEntries.poll()) != null) {
+            SoftEntry entry = (SoftEntry) ref;
+            // only remove if not already replaced by another entry
+            if (_overflow.get(entry._hash) == entry) {
+                _overflow.remove(entry._hash);
+            }
+        }
+    }
+
+    /**
+     * Hash code used for indexing softly held entries: unlike {@link ResolvedTypeKey#hashCode},
+     * covers type parameters, to make collisions unlikely.
+     */
+    protected static Integer _hash(ResolvedTypeKey key)
+    {
+        int h = key.hashCode();
+        for (int i = 0, len = key.getTypeParameterCount(); i < len; ++i) {
+            h = 31 * h + key.getTypeParameter(i).hashCode();
+        }
+        return h;
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Key and type of a softly held entry: only reachable via {@link SoftEntry},
+     * so that key is reclaimed along with type.
+     */
+    protected final static class KeyedType
+    {
+        final ResolvedTypeKey key;
+
+        final ResolvedType type;
+
+        KeyedType(ResolvedTypeKey key, ResolvedType type) {
+            this.key = key;
+            this.type = type;
+        }
+    }
+
+    protected final static class SoftEntry extends SoftReference<KeyedType>
+    {
+        protected final Integer _hash;
+
+        public SoftEntry(Integer hash, KeyedType kt, ReferenceQueue<KeyedType> q) {
+            super(kt, q);
+            _hash = hash;
+        }
+    }
+
+    /**
+     * Adapter for iterating over softly held entries as if they were
+     * regular entries; entries already reclaimed are skipped. Iterates over
+     * a snapshot of entries not yet reclaimed (holding their types strongly
+     * during iteration).
+     */
+    private final class OverflowIterator implements Iterator<Map.Entry<ResolvedTypeKey, ResolvedType>>
+    {
+        private final List<SoftEntry> _entries = new ArrayList<SoftEntry>();
+
+        private final List<KeyedType> _types = new ArrayList<KeyedType>();
+
+        private int _index;
+
+        OverflowIterator() {
+            for (SoftEntry entry : _overflow.values()) {
+                KeyedType kt = entry.get();
+                if (kt != null) {
+                    _entries.add(entry);
+                    _types.add(kt);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _index < _entries.size();
+        }
+
+        @Override
+        public Map.Entry<ResolvedTypeKey, ResolvedType> next() {
+            if (_index >= _entries.size()) {
+                throw new NoSuchElementException();
+            }
+            KeyedType kt = _types.get(_index++);
+            return new AbstractMap.SimpleImmutableEntry<ResolvedTypeKey, ResolvedType>(kt.key, kt.type);
+        }
+
+        @Override
+        public void remove() {
+            SoftEntry entry = _entries.get(_index - 1);
+            if (_overflow.get(entry._hash) == entry) {
+                _overflow.remove(entry._hash);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * Incrementally maintained index from supertypes to resolved types that
+ * extend or implement them, used to find all types seen so far that are
+ * subtypes of given type-erased class (like <code>Handler</code>) or
+ * specific parameterization (like <code>Handler&lt;Order&gt;</code>), without
+ * iterating over all types. Usually attached to a
+ * {@link com.fasterxml.classmate.TypeResolver} (see
+ * {@link com.fasterxml.classmate.TypeResolver#withSubtypeIndex()}), which adds
+ * all types it constructs; but types may also be added explicitly.
+ *<p>
+ * Note that index retains references to all types added, regardless of whether
+ * they are still contained in type caches; types of classes that are to be
+ * reloaded or unloaded (and, with them, their class loaders) need to be
+ * removed explicitly using {@link #removeDependents}.
+ *<p>
+ * Instances are thread-safe.
+ *
+ * @since 1.7.4
+ */
+public class SubtypeIndex
+{
+    /**
+     * Keys of all types added so far (including supertypes of types added)
+     */
+    protected final Set<CanonicalTypeKey> _types
+        = Collections.newSetFromMap(new ConcurrentHashMap<CanonicalTypeKey, Boolean>());
+
+    /**
+     * Subtypes by type-erased class of supertype
+     */
+    protected final ConcurrentHashMap<Class<?>, Set<ResolvedType>> _byClass
+        = new ConcurrentHashMap<Class<?>, Set<ResolvedType>>();
+
+    /**
+     * Subtypes by (parameterized) supertype; keyed by structure, since supertypes
+     * may have self-references (like <code>Comparable&lt;String&gt;</code> of
+     * <code>String</code>) as type parameters
+     */
+    protected final ConcurrentHashMap<CanonicalTypeKey, Set<ResolvedType>> _byType
+        = new ConcurrentHashMap<CanonicalTypeKey, Set<ResolvedType>>();
+
+    public SubtypeIndex() { }
+
+    /*
+    /**********************************************************************
+    /* Mutators
+    /**********************************************************************
+     */
+
+    /**
+     * Method for adding given type (and all of its supertypes, since they are
+     * resolved types as well) to index, if not already added.
+     */
+    public void add(ResolvedType type)
+    {
+        ResolvedType ref = type.getSelfReferencedType();
+        if (ref != null) {
+            type = ref;
+        }
+        if (!_types.add(CanonicalTypeKey.of(type))) {
+            return;
+        }
+        Map<CanonicalTypeKey, ResolvedType> seen = new LinkedHashMap<CanonicalTypeKey, ResolvedType>();
+        _addSupertypes(type, type, seen);
+        // Supertypes need to be indexed as subtypes of their own supertypes as well
+        for (ResolvedType supertype : seen.values()) {
+            add(supertype);
+        }
+    }
+
+    private void _addSupertypes(ResolvedType subtype, ResolvedType type, Map<CanonicalTypeKey, ResolvedType> seen)
+    {
+        ResolvedType parent = type.getParentClass();
+        if (parent != null) {
+            _addSupertype(subtype, parent, seen);
+        }
+        for (ResolvedType intf : type.getImplementedInterfaces()) {
+            _addSupertype(subtype, intf, seen);
+        }
+    }
+
+    private void _addSupertype(ResolvedType subtype, ResolvedType supertype, Map<CanonicalTypeKey, ResolvedType> seen)
+    {
+        CanonicalTypeKey key = CanonicalTypeKey.of(supertype);
+        if (seen.containsKey(key)) {
+            return;
+        }
+        seen.put(key, supertype);
+        _subtypes(_byClass, supertype.getErasedType()).add(subtype);
+        _subtypes(_byType, key).add(subtype);
+        _addSupertypes(subtype, supertype, seen);
+    }
+
+    /**
+     * Method for removing all types that depend on given type-erased class: types
+     * of that class (with any parameterization), types with it as a type parameter,
+     * and all subtypes of such types; same as what
+     * {@link ResolvedTypeCache#removeDependents} removes from type caches.
+     * Types being added concurrently with removal may or may not be removed.
+     *
+     * @return Number of types removed
+     */
+    public int removeDependents(Class<?> erasedType)
+    {
+        Set<CanonicalTypeKey> removed = new HashSet<CanonicalTypeKey>();
+        for (CanonicalTypeKey key : _types) {
+            if (key.refersTo(erasedType)) {
+                removed.add(key);
+            }
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        // Subtypes of removed types refer to them, so they need to go as well;
+        // no need to recurse, as sets contain indirect subtypes too
+        for (CanonicalTypeKey key : new ArrayList<CanonicalTypeKey>(removed)) {
+            Set<ResolvedType> subtypes = _byType.get(key);
+            if (subtypes != null) {
+                for (ResolvedType subtype : subtypes) {
+                    removed.add(CanonicalTypeKey.of(subtype));
+                }
+            }
+        }
+        _types.removeAll(removed);
+        for (CanonicalTypeKey key : removed) {
+            _byType.remove(key);
+        }
+        _byClass.remove(erasedType);
+        _removeSubtypes(_byClass, removed);
+        _removeSubtypes(_byType, removed);
+        return removed.size();
+    }
+
+    public void clear() {
+        _types.clear();
+        _byClass.clear();
+        _byType.clear();
+    }
+
+    /*
+    /**********************************************************************
+    /* Queries
+    /**********************************************************************
+     */
+
+    /**
+     * Method for finding all types added so far that extend or implement
+     * given type-erased class (with any parameterization); not including
+     * types with that class itself.
+     */
+    public List<ResolvedType> findSubtypes(Class<?> erasedSupertype) {
+        return _copy(_byClass.get(erasedSupertype));
+    }
+
+    /**
+     * Method for finding all types added so far that extend or implement
+     * given supertype, with exactly the same type parameters.
+     */
+    public List<ResolvedType> findSubtypes(ResolvedType supertype) {
+        return _copy(_byType.get(CanonicalTypeKey.of(supertype)));
+    }
+
+    /**
+     * @return Number of types added (including supertypes of types explicitly added)
+     */
+    public int size() {
+        return _types.size();
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private static <K> Set<ResolvedType> _subtypes(ConcurrentHashMap<K, Set<ResolvedType>> map, K key)
+    {
+        Set<ResolvedType> subtypes = map.get(key);
+        if (subtypes == null) {
+            Set<ResolvedType> old = map.putIfAbsent(key, subtypes = _newSet());
+            if (old != null) {
+                subtypes = old;
+            }
+        }
+        return subtypes;
+    }
+
+    private static <K> void _removeSubtypes(ConcurrentHashMap<K, Set<ResolvedType>> map,
+            Set<CanonicalTypeKey> removed)
+    {
+        for (Iterator<Set<ResolvedType>> it = map.values().iterator(); it.hasNext(); ) {
+            Set<ResolvedType> subtypes = it.next();
+            for (Iterator<ResolvedType> it2 = subtypes.iterator(); it2.hasNext(); ) {
+                if (removed.contains(CanonicalTypeKey.of(it2.next()))) {
+                    it2.remove();
+                }
+            }
+            if (subtypes.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static Set<ResolvedType> _newSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<ResolvedType, Boolean>());
+    }
+
+    private static List<ResolvedType> _copy(Set<ResolvedType> subtypes) {
+        if (subtypes == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<ResolvedType>(subtypes);
+    }
+}
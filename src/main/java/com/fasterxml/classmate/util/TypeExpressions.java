@@ -0,0 +1,219 @@
+package com.fasterxml.classmate.util;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+import com.fasterxml.classmate.types.ResolvedPrimitiveType;
+
+/**
+ * Helper class for resolving types from type expressions that use Java source
+ * syntax (with fully-qualified class names), like
+ *<pre>
+ *  java.util.Map&lt;java.lang.String, java.util.List&lt;com.acme.Foo&gt;&gt;
+ *</pre>
+ * without constructing intermediate {@link java.lang.reflect.ParameterizedType}s.
+ * Array types (<code>java.lang.String[][]</code>), primitive types and
+ * nested classes (either <code>com.acme.Outer.Inner</code> or
+ * <code>com.acme.Outer$Inner</code>) are supported; as are wildcard type
+ * arguments, which are resolved to their upper bound, as done by
+ * {@link TypeResolver} when resolving wildcards.
+ * Type variables are not supported.
+ *<p>
+ * Usually accessed via {@link TypeResolver#resolve(String, ClassLoader)},
+ * which also caches resolved types.
+ *
+ * @since 1.7.4
+ */
+public class TypeExpressions
+{
+    private TypeExpressions() { }
+
+    /**
+     * Method for resolving type with given type expression, loading classes
+     * referenced (without initializing them) using specified class loader.
+     *
+     * @throws IllegalArgumentException If expression is invalid, or refers to
+     *    a class that can not be loaded
+     */
+    public static ResolvedType resolve(TypeResolver resolver, String expression, ClassLoader loader)
+        throws IllegalArgumentException
+    {
+        Parser p = new Parser(resolver, expression, loader);
+        ResolvedType type = p.parseType();
+        p._skipSpace();
+        if (p._offset != expression.length()) {
+            throw p.problem("Unexpected trailing content");
+        }
+        return type;
+    }
+
+    /**
+     * Helper class that does actual parsing, for a single expression
+     */
+    private final static class Parser
+    {
+        private final TypeResolver _resolver;
+        private final String _input;
+        private final ClassLoader _loader;
+
+        protected int _offset;
+
+        public Parser(TypeResolver resolver, String input, ClassLoader loader) {
+            _resolver = resolver;
+            _input = input;
+            _loader = loader;
+        }
+
+        public ResolvedType parseType()
+        {
+            _skipSpace();
+            final int start = _offset;
+            String name = _parseName();
+            ResolvedType type = null;
+            for (ResolvedPrimitiveType prim : ResolvedPrimitiveType.all()) {
+                if (prim.getErasedType().getName().equals(name)) {
+                    // resolve via resolver, to get canonical instance
+                    type = _resolver.resolve(prim.getErasedType());
+                    break;
+                }
+            }
+            if (type == null) {
+                if ("void".equals(name)) {
+                    type = _resolver.resolve(Void.TYPE);
+                } else {
+                    Class<?> raw = _findClass(name, start);
+                    _skipSpace();
+                    if (_peek() == '<') {
+                        ++_offset;
+                        ArrayList<ResolvedType> params = _parseTypeArguments();
+                        type = _resolver.resolve(raw, params.toArray(new Type[0]));
+                    } else {
+                        type = _resolver.resolve(raw);
+                    }
+                }
+            }
+            // and then possible array dimensions
+            while (true) {
+                _skipSpace();
+                if (_peek() != '[') {
+                    return type;
+                }
+                ++_offset;
+                _skipSpace();
+                if (_next() != ']') {
+                    --_offset;
+                    throw problem("Expected ']'");
+                }
+                type = _resolver.arrayType(type);
+            }
+        }
+
+        private ArrayList<ResolvedType> _parseTypeArguments()
+        {
+            ArrayList<ResolvedType> params = new ArrayList<ResolvedType>();
+            while (true) {
+                _skipSpace();
+                if (_peek() == '?') {
+                    ++_offset;
+                    _skipSpace();
+                    if (_matchKeyword("extends")) {
+                        params.add(parseType());
+                    } else {
+                        // unbounded or lower-bounded; upper bound Object
+                        if (_matchKeyword("super")) {
+                            parseType();
+                        }
+                        params.add(_resolver.resolve(Object.class));
+                    }
+                } else {
+                    params.add(parseType());
+                }
+                _skipSpace();
+                char c = _next();
+                if (c == '>') {
+                    return params;
+                }
+                if (c != ',') {
+                    --_offset;
+                    throw problem("Expected ',' or '>'");
+                }
+            }
+        }
+
+        private String _parseName()
+        {
+            final int start = _offset;
+            while (_offset < _input.length()) {
+                char c = _input.charAt(_offset);
+                if (Character.isJavaIdentifierPart(c)
+                        || (c == '.' && _offset > start)) {
+                    ++_offset;
+                } else {
+                    break;
+                }
+            }
+            if (_offset == start) {
+                throw problem("Expected type name");
+            }
+            return _input.substring(start, _offset);
+        }
+
+        private boolean _matchKeyword(String keyword)
+        {
+            final int end = _offset + keyword.length();
+            if (_input.startsWith(keyword, _offset)
+                    && (end == _input.length() || !Character.isJavaIdentifierPart(_input.charAt(end)))) {
+                _offset = end;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Method for loading class with given name; if not found, tries interpreting
+         * trailing name segments as names of nested classes.
+         */
+        private Class<?> _findClass(String name, int start)
+        {
+            String binaryName = name;
+            while (true) {
+                try {
+                    return Class.forName(binaryName, false, _loader);
+                } catch (ClassNotFoundException e) {
+                    int ix = binaryName.lastIndexOf('.');
+                    if (ix < 0) {
+                        throw new IllegalArgumentException("Can not resolve type expression \""+_input
+                                +"\": class "+name+" not found", e);
+                    }
+                    binaryName = binaryName.substring(0, ix) + '$' + binaryName.substring(ix+1);
+                }
+            }
+        }
+
+        void _skipSpace()
+        {
+            while (_offset < _input.length() && Character.isWhitespace(_input.charAt(_offset))) {
+                ++_offset;
+            }
+        }
+
+        private char _peek() {
+            return (_offset < _input.length()) ? _input.charAt(_offset) : 0;
+        }
+
+        private char _next()
+        {
+            if (_offset >= _input.length()) {
+                throw problem("Unexpected end of expression");
+            }
+            return _input.charAt(_offset++);
+        }
+
+        public IllegalArgumentException problem(String msg) {
+            return new IllegalArgumentException("Invalid type expression \""+_input
+                    +"\" (at offset "+_offset+"): "+msg);
+        }
+    }
+}
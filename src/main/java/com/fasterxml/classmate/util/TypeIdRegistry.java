@@ -0,0 +1,343 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.classmate.ResolvedType;
+
+/**
+ * Optional registry that assigns dense <code>int</code> ids to resolved types
+ * (as well as to their type-erased classes), so that callers may use
+ * id-indexed arrays instead of {@link java.util.HashMap}s keyed by types,
+ * and answer subtype checks with a single bit test.
+ *<p>
+ * When a type is registered, all of its supertypes are registered first, and the
+ * type gets tables of ids of all of its supertypes (including itself), both for
+ * resolved (parameterized) supertypes and for type-erased classes of supertypes.
+ * Supertypes in the chain of parent classes are stored in a "display": array
+ * indexed by depth of the class in the chain (0 for root class), so that
+ * checking for a class supertype is a single comparison at depth of that class.
+ * Interface supertypes are stored in sorted arrays, for binary search.
+ * Memory needed is thus linear in the number of supertypes of each type.
+ *<p>
+ * Types should be ones resolved by a {@link com.fasterxml.classmate.TypeResolver}
+ * (any resolver works, since types are matched by structure: type-erased classes
+ * and type parameters); self-references, including ones in type parameters of
+ * supertypes, are matched with the types they refer to.
+ *<p>
+ * Instances are thread-safe: registration is synchronized, lookups are not.
+ *
+ * @since 1.7.4
+ */
+public class TypeIdRegistry
+{
+    /**
+     * Ids of types, keyed by structure so that self-references (and equal types
+     * resolved differently) map to the same id
+     */
+    protected final ConcurrentHashMap<CanonicalTypeKey, Integer> _typeIds
+        = new ConcurrentHashMap<CanonicalTypeKey, Integer>();
+
+    protected final ConcurrentHashMap<Class<?>, Integer> _classIds
+        = new ConcurrentHashMap<Class<?>, Integer>();
+
+    /**
+     * Entries indexed by type id; replaced with a larger copy when full.
+     * Entries are immutable, so they may be read without synchronization.
+     */
+    protected volatile Entry[] _entries = new Entry[64];
+
+    protected int _classCount;
+
+    /**
+     * Depths of type-erased classes (in chain of parent classes), indexed by class id;
+     * -1 for interfaces. Replaced with a larger copy when full.
+     */
+    protected volatile int[] _classDepths = new int[64];
+
+    public TypeIdRegistry() { }
+
+    /*
+    /**********************************************************************
+    /* Registration
+    /**********************************************************************
+     */
+
+    /**
+     * Method for registering given type (and all of its supertypes), if not
+     * yet registered.
+     *
+     * @return Id of the type
+     */
+    public int register(ResolvedType type)
+    {
+        CanonicalTypeKey key = CanonicalTypeKey.of(type);
+        Integer id = _typeIds.get(key);
+        if (id != null) {
+            return id.intValue();
+        }
+        synchronized (this) {
+            return _register(_canonical(type), key).id;
+        }
+    }
+
+    private Entry _register(ResolvedType type) {
+        return _register(_canonical(type), CanonicalTypeKey.of(type));
+    }
+
+    private Entry _register(ResolvedType type, CanonicalTypeKey key)
+    {
+        Integer existing = _typeIds.get(key);
+        if (existing != null) {
+            return _entries[existing.intValue()];
+        }
+        // Supertypes first, to get lower ids (and tables to merge)
+        Entry parentEntry = null;
+        ResolvedType parent = type.getParentClass();
+        if (parent != null) {
+            parentEntry = _register(parent);
+        }
+        List<Entry> interfaces = new ArrayList<Entry>();
+        for (ResolvedType intf : type.getImplementedInterfaces()) {
+            interfaces.add(_register(intf));
+        }
+        final boolean isInterface = type.isInterface();
+        final int depth;
+        if (isInterface) {
+            depth = -1;
+        } else {
+            depth = (parentEntry == null) ? 0 : parentEntry.display.length;
+        }
+        Class<?> cls = type.getErasedType();
+        Integer classId = _classIds.get(cls);
+        if (classId == null) {
+            classId = _classCount++;
+            int[] depths = _classDepths;
+            if (classId >= depths.length) {
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            depths[classId] = depth;
+            // as with entries, publish depth before id
+            _classDepths = depths;
+            _classIds.put(cls, classId);
+        }
+        final int id = _typeIds.size();
+        int[] display = _NO_IDS, classDisplay = _NO_IDS;
+        int[] intfIds = _NO_IDS, intfClassIds = _NO_IDS;
+        if (parentEntry != null) {
+            display = parentEntry.display;
+            classDisplay = parentEntry.classDisplay;
+            intfIds = parentEntry.interfaces;
+            intfClassIds = parentEntry.classInterfaces;
+        }
+        for (Entry entry : interfaces) {
+            intfIds = _union(intfIds, entry.interfaces);
+            intfClassIds = _union(intfClassIds, entry.classInterfaces);
+        }
+        if (isInterface) {
+            intfIds = _union(intfIds, new int[] { id });
+            intfClassIds = _union(intfClassIds, new int[] { classId.intValue() });
+        } else {
+            display = _append(display, id);
+            classDisplay = _append(classDisplay, classId.intValue());
+        }
+        Entry[] entries = _entries;
+        if (id >= entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        entries[id] = new Entry(id, type, depth, display, intfIds, classDisplay, intfClassIds);
+        // publish entry before id, so that anyone seeing id also sees entry
+        _entries = entries;
+        _typeIds.put(key, id);
+        return entries[id];
+    }
+
+    /*
+    /**********************************************************************
+    /* Lookups
+    /**********************************************************************
+     */
+
+    /**
+     * @return Id of given type, if registered; -1 if not
+     */
+    public int idOf(ResolvedType type) {
+        Integer id = _typeIds.get(CanonicalTypeKey.of(type));
+        return (id == null) ? -1 : id.intValue();
+    }
+
+    /**
+     * @return Id of given type-erased class, if any type with it (or any of its
+     *    subtypes) has been registered; -1 if not
+     */
+    public int classIdOf(Class<?> cls) {
+        Integer id = _classIds.get(cls);
+        return (id == null) ? -1 : id.intValue();
+    }
+
+    /**
+     * @return Type with given id
+     *
+     * @throws IllegalArgumentException If no type has given id
+     */
+    public ResolvedType typeOf(int id) {
+        return _entry(id).type;
+    }
+
+    /**
+     * @return Number of registered types; ids are between 0 (inclusive) and
+     *    this number (exclusive)
+     */
+    public int size() {
+        return _typeIds.size();
+    }
+
+    /**
+     * Method for checking whether type with id <code>typeId</code> has type with
+     * id <code>supertypeId</code> as its supertype (with exactly same type
+     * parameters), or is that type itself.
+     */
+    public boolean isSubtype(int typeId, int supertypeId) {
+        Entry entry = _entry(typeId);
+        Entry[] entries = _entries;
+        if (supertypeId < 0 || supertypeId >= entries.length || entries[supertypeId] == null) {
+            return false;
+        }
+        return _contains(entry.display, entry.interfaces, entries[supertypeId].depth, supertypeId);
+    }
+
+    /**
+     * Method for checking whether type with id <code>typeId</code> is an instance
+     * of class with id <code>classId</code>: that is, whether type-erased class
+     * of type or any of its supertypes is that class.
+     */
+    public boolean isInstanceOf(int typeId, int classId) {
+        Entry entry = _entry(typeId);
+        int[] depths = _classDepths;
+        if (classId < 0 || classId >= depths.length) {
+            return false;
+        }
+        return _contains(entry.classDisplay, entry.classInterfaces, depths[classId], classId);
+    }
+
+    public boolean isInstanceOf(int typeId, Class<?> cls) {
+        return isInstanceOf(typeId, classIdOf(cls));
+    }
+
+    /**
+     * Method for checking how many slots tables of supertype ids of all registered
+     * types take; used for verifying that memory needed grows linearly.
+     */
+    int tableSlots() {
+        int slots = 0;
+        for (Entry entry : _entries) {
+            if (entry != null) {
+                slots += entry.display.length + entry.interfaces.length
+                        + entry.classDisplay.length + entry.classInterfaces.length;
+            }
+        }
+        return slots;
+    }
+
+    /*
+    /**********************************************************************
+    /* Internal methods
+    /**********************************************************************
+     */
+
+    private Entry _entry(int id) {
+        Entry[] entries = _entries;
+        Entry entry = (id < 0 || id >= entries.length) ? null : entries[id];
+        if (entry == null) {
+            throw new IllegalArgumentException("No type registered with id "+id);
+        }
+        return entry;
+    }
+
+    private static ResolvedType _canonical(ResolvedType type) {
+        ResolvedType ref = type.getSelfReferencedType();
+        return (ref == null) ? type : ref;
+    }
+
+    private final static int[] _NO_IDS = new int[0];
+
+    private static boolean _contains(int[] display, int[] interfaces, int depth, int id) {
+        if (depth < 0) {
+            return Arrays.binarySearch(interfaces, id) >= 0;
+        }
+        return (depth < display.length) && (display[depth] == id);
+    }
+
+    private static int[] _append(int[] display, int id) {
+        int[] result = Arrays.copyOf(display, display.length + 1);
+        result[display.length] = id;
+        return result;
+    }
+
+    /**
+     * Helper method for merging two sorted id arrays; if either contains all ids
+     * of the other, it is returned as is, so that tables are shared where possible.
+     */
+    private static int[] _union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            int diff = a[i] - b[j];
+            if (diff <= 0) {
+                result[count++] = a[i++];
+                if (diff == 0) {
+                    ++j;
+                }
+            } else {
+                result[count++] = b[j++];
+            }
+        }
+        while (i < a.length) {
+            result[count++] = a[i++];
+        }
+        while (j < b.length) {
+            result[count++] = b[j++];
+        }
+        if (count == a.length) {
+            return a;
+        }
+        if (count == b.length) {
+            return b;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    protected final static class Entry
+    {
+        final int id;
+
+        final ResolvedType type;
+
+        /**
+         * Depth of type in chain of parent classes; -1 for interfaces
+         */
+        final int depth;
+
+        /**
+         * Ids of types in chain of parent classes, indexed by depth; and sorted
+         * ids of interface types
+         */
+        final int[] display, interfaces;
+
+        /**
+         * Same as {@link #display} and {@link #interfaces}, but for type-erased classes
+         */
+        final int[] classDisplay, classInterfaces;
+
+        Entry(int id, ResolvedType type, int depth, int[] display, int[] interfaces,
+                int[] classDisplay, int[] classInterfaces) {
+            this.id = id;
+            this.type = type;
+            this.depth = depth;
+            this.display = display;
+            this.interfaces = interfaces;
+            this.classDisplay = classDisplay;
+            this.classInterfaces = classInterfaces;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.fasterxml.classmate.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Helper object that can be attached to a {@link com.fasterxml.classmate.TypeResolver}
+ * (see {@link com.fasterxml.classmate.TypeResolver#withProfiler}) to collect
+ * per-class statistics on type resolution: how often a type was resolved, how
+ * often it was not found in the type cache, how much time was spent constructing
+ * it and how many bytes were allocated doing so.
+ *<p>
+ * Construction time and allocation are measured exclusively: they do not contain
+ * costs of supertypes and type parameters that had to be constructed as part of
+ * resolving the type, as those are reported for the types themselves. Types that
+ * need no construction (well-known JDK types, primitive types, and types found
+ * from per-thread caches) are counted as resolutions too.
+ * Allocation is measured using
+ * {@code com.sun.management.ThreadMXBean.getThreadAllocatedBytes()} if it is
+ * available on the running JVM; if not, allocation figures are reported as -1.
+ *<p>
+ * Profiler may either record every resolution (default) or only sample
+ * one in N resolutions at random, in which case reported counts are estimates
+ * scaled up by the sampling rate.
+ *<p>
+ * Instances are thread-safe and may be shared by multiple resolvers.
+ *
+ * @since 1.7.4
+ */
+public class TypeResolutionProfiler
+{
+    /**
+     * Accessor for thread allocation counter, if (and only if) JVM has one
+     */
+    private final static AllocationCounter ALLOCATION_COUNTER = AllocationCounter.find();
+
+    protected final int _sampleRate;
+
+    protected final ConcurrentHashMap<Class<?>, Stats> _stats = new ConcurrentHashMap<Class<?>, Stats>();
+
+    /*
+    /**********************************************************************
+    /* Life cycle
+    /**********************************************************************
+     */
+
+    /**
+     * Constructor for profiler that records every resolution.
+     */
+    public TypeResolutionProfiler() {
+        this(1);
+    }
+
+    /**
+     * @param sampleRate Sampling rate to use: 1 means every resolution is
+     *    recorded, N that one in N (chosen randomly) is.
+     */
+    public TypeResolutionProfiler(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1, was "+sampleRate);
+        }
+        _sampleRate = sampleRate;
+    }
+
+    /**
+     * Method for clearing out all statistics collected so far.
+     */
+    public void reset() {
+        _stats.clear();
+    }
+
+    /*
+    /**********************************************************************
+    /* Methods called by TypeResolver
+    /**********************************************************************
+     */
+
+    /**
+     * Method called to see whether resolution about to happen should be recorded.
+     */
+    public boolean sample() {
+        return (_sampleRate == 1) || (ThreadLocalRandom.current().nextInt(_sampleRate) == 0);
+    }
+
+    /**
+     * Method for accessing number of bytes allocated by the current thread so far,
+     * if known; -1 if not.
+     */
+    public long allocatedBytes() {
+        return (ALLOCATION_COUNTER == null) ? -1L : ALLOCATION_COUNTER.currentThreadAllocatedBytes();
+    }
+
+    /**
+     * Method called when type was found from cache (or otherwise did not have to
+     * be constructed).
+     */
+    public void recordHit(Class<?> erasedType) {
+        _stats(erasedType)._resolutions.incrementAndGet();
+    }
+
+    /**
+     * Method called when type had to be constructed.
+     *
+     * @param nanos Time taken to construct the type, in nanoseconds, excluding
+     *    construction of other types it refers to
+     * @param bytes Number of bytes allocated during construction (also excluding
+     *    other types), if known; -1 if not
+     */
+    public void recordMiss(Class<?> erasedType, long nanos, long bytes) {
+        Stats stats = _stats(erasedType);
+        stats._resolutions.incrementAndGet();
+        stats._misses.incrementAndGet();
+        stats._constructionNanos.addAndGet(nanos);
+        if (bytes >= 0L) {
+            stats._allocatedBytes.addAndGet(bytes);
+        }
+    }
+
+    private Stats _stats(Class<?> erasedType) {
+        Stats stats = _stats.get(erasedType);
+        if (stats == null) {
+            stats = new Stats(erasedType);
+            Stats old = _stats.putIfAbsent(erasedType, stats);
+            if (old != null) {
+                stats = old;
+            }
+        }
+        return stats;
+    }
+
+    /*
+    /**********************************************************************
+    /* Accessors
+    /**********************************************************************
+     */
+
+    public int getSampleRate() { return _sampleRate; }
+
+    /**
+     * Accessor for checking whether allocated bytes can be measured on this JVM.
+     */
+    public boolean isAllocationTrackingSupported() {
+        return ALLOCATION_COUNTER != null;
+    }
+
+    /**
+     * Accessor for statistics recorded for given type-erased class, if any.
+     *
+     * @return Statistics for the class, if any recorded; null if not
+     */
+    public Stats getStats(Class<?> erasedType) {
+        return _stats.get(erasedType);
+    }
+
+    /**
+     * Method for getting statistics for types with the highest cumulative
+     * construction time (and, for ties, highest resolution count).
+     *
+     * @param maxEntries Maximum number of entries to return
+     */
+    public List<Stats> getTopTypes(int maxEntries) {
+        ArrayList<Stats> all = new ArrayList<Stats>(_stats.values());
+        Collections.sort(all, new Comparator<Stats>() {
+            @Override
+            public int compare(Stats s1, Stats s2) {
+                long diff = s2.getConstructionNanos() - s1.getConstructionNanos();
+                if (diff == 0L) {
+                    diff = s2.getResolutions() - s1.getResolutions();
+                }
+                return (diff < 0L) ? -1 : ((diff == 0L) ? 0 : 1);
+            }
+        });
+        if (all.size() > maxEntries) {
+            return new ArrayList<Stats>(all.subList(0, maxEntries));
+        }
+        return all;
+    }
+
+    /*
+    /**********************************************************************
+    /* Reporting
+    /**********************************************************************
+     */
+
+    /**
+     * Method for producing JSON report of up to specified number of
+     * "hottest" types (as per {@link #getTopTypes}).
+     */
+    public String reportAsJson(int maxEntries) {
+        StringWriter w = new StringWriter();
+        try {
+            writeReport(w, maxEntries);
+        } catch (IOException e) { // never happens with StringWriter
+            throw new IllegalStateException(e);
+        }
+        return w.toString();
+    }
+
+    /**
+     * Method for writing JSON report of up to specified number of
+     * "hottest" types (as per {@link #getTopTypes}) using given {@link Writer}.
+     */
+    public void writeReport(Writer w, int maxEntries) throws IOException
+    {
+        w.write("{\"sampleRate\":");
+        w.write(String.valueOf(_sampleRate));
+        w.write(",\"allocationTracking\":");
+        w.write(String.valueOf(isAllocationTrackingSupported()));
+        w.write(",\"types\":[");
+        int i = 0;
+        for (Stats stats : getTopTypes(maxEntries)) {
+            if (i++ > 0) {
+                w.write(',');
+            }
+            w.write("{\"type\":\"");
+            _writeEscaped(w, stats.getErasedType().getName());
+            w.write("\",\"resolutions\":");
+            w.write(String.valueOf(stats.getResolutions() * _sampleRate));
+            w.write(",\"misses\":");
+            w.write(String.valueOf(stats.getMisses() * _sampleRate));
+            w.write(",\"constructionNanos\":");
+            w.write(String.valueOf(stats.getConstructionNanos() * _sampleRate));
+            w.write(",\"allocatedBytes\":");
+            w.write(String.valueOf(isAllocationTrackingSupported()
+                    ? (stats.getAllocatedBytes() * _sampleRate) : -1L));
+            w.write('}');
+        }
+        w.write("]}");
+    }
+
+    private static void _writeEscaped(Writer w, String str) throws IOException
+    {
+        for (int i = 0, len = str.length(); i < len; ++i) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                w.write('\\');
+                w.write(c);
+            } else if (c < 0x20) {
+                w.write(String.format("\\u%04x", (int) c));
+            } else {
+                w.write(c);
+            }
+        }
+    }
+
+    /*
+    /**********************************************************************
+    /* Helper classes
+    /**********************************************************************
+     */
+
+    /**
+     * Container for statistics for a single type-erased class.
+     * Note that counts are raw sampled counts, not scaled by sampling rate.
+     */
+    public final static class Stats
+    {
+        protected final Class<?> _erasedType;
+
+        protected final AtomicLong _resolutions = new AtomicLong();
+        protected final AtomicLong _misses = new AtomicLong();
+        protected final AtomicLong _constructionNanos = new AtomicLong();
+        protected final AtomicLong _allocatedBytes = new AtomicLong();
+
+        protected Stats(Class<?> erasedType) {
+            _erasedType = erasedType;
+        }
+
+        public Class<?> getErasedType() { return _erasedType; }
+        public long getResolutions() { return _resolutions.get(); }
+        public long getMisses() { return _misses.get(); }
+        public long getConstructionNanos() { return _constructionNanos.get(); }
+        public long getAllocatedBytes() { return _allocatedBytes.get(); }
+
+        @Override
+        public String toString() {
+            return "[Stats for "+_erasedType.getName()+": resolutions="+getResolutions()
+                    +", misses="+getMisses()+", constructionNanos="+getConstructionNanos()
+                    +", allocatedBytes="+getAllocatedBytes()+"]";
+        }
+    }
+
+    /**
+     * Accessor for per-thread allocation counter of HotSpot-based JVMs; accessed
+     * reflectively as it is neither part of standard JDK API nor of
+     * modules ClassMate depends on.
+     */
+    private final static class AllocationCounter
+    {
+        private final Object _threadBean;
+        private final Method _allocatedBytesMethod;
+
+        private AllocationCounter(Object threadBean, Method m) {
+            _threadBean = threadBean;
+            _allocatedBytesMethod = m;
+        }
+
+        public static AllocationCounter find()
+        {
+            try {
+                Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+                Object bean = factory.getMethod("getThreadMXBean").invoke(null);
+                Class<?> beanType = Class.forName("com.sun.management.ThreadMXBean");
+                if (!beanType.isInstance(bean)) {
+                    return null;
+                }
+                if (!((Boolean) beanType.getMethod("isThreadAllocatedMemorySupported").invoke(bean))) {
+                    return null;
+                }
+                if (!((Boolean) beanType.getMethod("isThreadAllocatedMemoryEnabled").invoke(bean))) {
+                    return null;
+                }
+                AllocationCounter counter = new AllocationCounter(bean,
+                        beanType.getMethod("getThreadAllocatedBytes", Long.TYPE));
+                // one more sanity check, to avoid failing later on
+                if (counter.currentThreadAllocatedBytes() < 0L) {
+                    return null;
+                }
+                return counter;
+            } catch (Throwable t) { // most likely module not available, security manager
+                return null;
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        public long currentThreadAllocatedBytes() {
+            try {
+                return ((Long) _allocatedBytesMethod.invoke(_threadBean,
+                        Thread.currentThread().getId())).longValue();
+            } catch (Exception e) {
+                return -1L;
+            }
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.fasterxml.classmate.util;
+
+import java.lang.reflect.Type;
+import java.util.*;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeBindings;
+import com.fasterxml.classmate.TypeResolver;
+import com.fasterxml.classmate.types.ResolvedPrimitiveType;
+
+/**
+ * Helper class for converting between fully resolved types and their
+ * JVM generic type signatures (as used in <code>Signature</code> class
+ * file attributes), like
+ *<pre>
+ *  Ljava/util/Map&lt;Ljava/lang/String;Ljava/util/List&lt;Ljava/lang/Long;&gt;;&gt;;
+ *</pre>
+ * Unlike {@link ResolvedType#getSignature()}, type parameters are included
+ * at all levels, so that signature contains everything needed to re-create
+ * the type.
+ *<p>
+ * Besides type (field) signatures, method and class signatures may be parsed
+ * as well (since 1.7.4). Type variables are resolved using given bindings,
+ * or to bounds of variables declared by signature itself; or, if neither is
+ * available, to <code>java.lang.Object</code>. Wildcard type arguments are
+ * resolved to their upper bound, as done by {@link TypeResolver} when resolving
+ * wildcards.
+ *<p>
+ * Note that this is only a parser: classes signature refers to are loaded, and
+ * resolved by {@link TypeResolver} as usual, including their supertypes (from
+ * generic supertypes of classes, using <code>java.lang.reflect</code> types).
+ * For resolution without loading classes, see
+ * {@link com.fasterxml.classmate.classfile.ClassFileTypeResolver}.
+ *
+ * @since 1.7.4
+ */
+public class TypeSignatures
+{
+    private TypeSignatures() { }
+
+    /*
+    /**********************************************************************
+    /* Writing
+    /**********************************************************************
+     */
+
+    /**
+     * Method for constructing full generic signature of given type.
+     */
+    public static String genericSignatureOf(ResolvedType type) {
+        return appendGenericSignature(new StringBuilder(), type).toString();
+    }
+
+    public static StringBuilder appendGenericSignature(StringBuilder sb, ResolvedType type)
+    {
+        if (type.isPrimitive()) {
+            return type.appendSignature(sb);
+        }
+        ResolvedType elem = type.getArrayElementType();
+        if (elem != null) {
+            sb.append('[');
+            return appendGenericSignature(sb, elem);
+        }
+        sb.append('L');
+        String name = type.getErasedType().getName();
+        for (int i = 0, len = name.length(); i < len; ++i) {
+            char c = name.charAt(i);
+            sb.append((c == '.') ? '/' : c);
+        }
+        // note: ResolvedRecursiveType does expose bindings, and those are never
+        // cyclic, so it is safe to include them
+        int count = type.getTypeBindings().size();
+        if (count > 0) {
+            sb.append('<');
+            for (int i = 0; i < count; ++i) {
+                appendGenericSignature(sb, type.getTypeBindings().getBoundType(i));
+            }
+            sb.append('>');
+        }
+        return sb.append(';');
+    }
+
+    /*
+    /**********************************************************************
+    /* Parsing
+    /**********************************************************************
+     */
+
+    /**
+     * Method for resolving type with given generic signature, loading classes
+     * referenced (without initializing them) using specified class loader.
+     * Type variables are resolved to <code>java.lang.Object</code>; use
+     * {@link #resolve(TypeResolver, String, ClassLoader, TypeBindings)} to
+     * specify bindings for them.
+     *
+     * @throws IllegalArgumentException If signature is invalid, or refers to
+     *    a class that can not be loaded
+     */
+    public static ResolvedType resolve(TypeResolver resolver, String signature, ClassLoader loader)
+        throws IllegalArgumentException
+    {
+        return resolve(resolver, signature, loader, null);
+    }
+
+    /**
+     * Method for resolving type with given generic signature (like one of a field),
+     * using given bindings for type variables signature refers to (ones not bound
+     * are resolved to <code>java.lang.Object</code>).
+     *
+     * @param bindings Bindings for type variables (usually those of the type that
+     *    declares field with signature); may be null
+     *
+     * @since 1.7.4
+     */
+    public static ResolvedType resolve(TypeResolver resolver, String signature, ClassLoader loader,
+            TypeBindings bindings)
+        throws IllegalArgumentException
+    {
+        Parser p = new Parser(resolver, signature, loader, bindings);
+        ResolvedType type = p.parseType();
+        p.verifyEnd();
+        return type;
+    }
+
+    /**
+     * Method for resolving method signature (like
+     * <code>&lt;T:Ljava/lang/Object;&gt;(TT;Ljava/util/List&lt;TT;&gt;;)V</code>),
+     * using given bindings for type variables of declaring class. Type variables
+     * declared by method itself are resolved to their (first) bounds.
+     *
+     * @param bindings Bindings for type variables of declaring class; may be null
+     *
+     * @since 1.7.4
+     */
+    public static MethodSignature resolveMethodSignature(TypeResolver resolver, String signature,
+            ClassLoader loader, TypeBindings bindings)
+        throws IllegalArgumentException
+    {
+        Parser p = new Parser(resolver, signature, loader, bindings);
+        p.parseFormalTypeParameters(false);
+        p.expect('(');
+        ArrayList<ResolvedType> params = new ArrayList<ResolvedType>();
+        while (p.peek() != ')') {
+            params.add(p.parseType());
+        }
+        p.expect(')');
+        ResolvedType returnType = p.parseType();
+        ArrayList<ResolvedType> exceptions = new ArrayList<ResolvedType>();
+        while (p.peek() == '^') {
+            p.expect('^');
+            exceptions.add(p.parseType());
+        }
+        p.verifyEnd();
+        return new MethodSignature(params, returnType, exceptions);
+    }
+
+    /**
+     * Method for resolving class signature (like
+     * <code>&lt;E:Ljava/lang/Object;&gt;Ljava/util/AbstractList&lt;TE;&gt;;Ljava/util/List&lt;TE;&gt;;</code>)
+     * into supertypes of the class, using given bindings for type variables of
+     * class itself; variables not bound are resolved to their (first) bounds.
+     *
+     * @param bindings Bindings for type variables of class; may be null
+     *
+     * @since 1.7.4
+     */
+    public static ClassSignature resolveClassSignature(TypeResolver resolver, String signature,
+            ClassLoader loader, TypeBindings bindings)
+        throws IllegalArgumentException
+    {
+        Parser p = new Parser(resolver, signature, loader, bindings);
+        List<ResolvedType> typeParams = p.parseFormalTypeParameters(true);
+        ResolvedType superclass = p.parseType();
+        ArrayList<ResolvedType> interfaces = new ArrayList<ResolvedType>();
+        while (p.peek() != 0) {
+            interfaces.add(p.parseType());
+        }
+        return new ClassSignature(typeParams, superclass, interfaces);
+    }
+
+    /**
+     * Resolved types of a method signature
+     *
+     * @since 1.7.4
+     */
+    public final static class MethodSignature
+    {
+        private final List<ResolvedType> _parameterTypes;
+        private final ResolvedType _returnType;
+        private final List<ResolvedType> _exceptionTypes;
+
+        MethodSignature(List<ResolvedType> params, ResolvedType returnType, List<ResolvedType> exceptions) {
+            _parameterTypes = Collections.unmodifiableList(params);
+            _returnType = returnType;
+            _exceptionTypes = Collections.unmodifiableList(exceptions);
+        }
+
+        public List<ResolvedType> getParameterTypes() { return _parameterTypes; }
+
+        /**
+         * @return Return type; <code>void</code> primitive type if method returns nothing
+         */
+        public ResolvedType getReturnType() { return _returnType; }
+
+        public List<ResolvedType> getExceptionTypes() { return _exceptionTypes; }
+    }
+
+    /**
+     * Resolved types of a class signature
+     *
+     * @since 1.7.4
+     */
+    public final static class ClassSignature
+    {
+        private final List<ResolvedType> _typeParameters;
+        private final ResolvedType _superclass;
+        private final List<ResolvedType> _interfaces;
+
+        ClassSignature(List<ResolvedType> typeParams, ResolvedType superclass, List<ResolvedType> interfaces) {
+            _typeParameters = Collections.unmodifiableList(typeParams);
+            _superclass = superclass;
+            _interfaces = Collections.unmodifiableList(interfaces);
+        }
+
+        /**
+         * @return Types of type parameters of class: either bound types, or bounds of
+         *    type parameters
+         */
+        public List<ResolvedType> getTypeParameters() { return _typeParameters; }
+
+        public ResolvedType getSuperclass() { return _superclass; }
+
+        public List<ResolvedType> getInterfaces() { return _interfaces; }
+    }
+
+    /**
+     * Helper class that does actual parsing, for a single signature
+     */
+    private final static class Parser
+    {
+        private final TypeResolver _resolver;
+        private final String _input;
+        private final ClassLoader _loader;
+        private final TypeBindings _bindings;
+
+        /**
+         * Type variables declared by signature itself (formal type parameters),
+         * if any, mapped to their resolved bounds
+         */
+        private Map<String, ResolvedType> _variables;
+
+        protected int _offset;
+
+        public Parser(TypeResolver resolver, String input, ClassLoader loader, TypeBindings bindings) {
+            _resolver = resolver;
+            _input = input;
+            _loader = loader;
+            _bindings = (bindings == null) ? TypeBindings.emptyBindings() : bindings;
+        }
+
+        public ResolvedType parseType()
+        {
+            char c = _next();
+            switch (c) {
+            case 'L':
+                return _parseClassType();
+            case '[':
+                return _resolver.arrayType(parseType());
+            case 'T':
+                return _parseTypeVariable();
+            case 'V':
+                return _resolver.resolve(Void.TYPE);
+            default:
+            }
+            for (ResolvedPrimitiveType prim : ResolvedPrimitiveType.all()) {
+                if (prim.getSignature().charAt(0) == c) {
+                    // resolve via resolver, to get canonical instance
+                    return _resolver.resolve(prim.getErasedType());
+                }
+            }
+            --_offset;
+            throw problem("Unrecognized type signature character '"+c+"'");
+        }
+
+        /**
+         * Method for parsing optional formal type parameters; resolving each to its
+         * first bound (or, for class signatures, to type bound by bindings, if any).
+         * Variables referenced by bounds of variables declared at or after them are
+         * resolved to <code>java.lang.Object</code>, to avoid cycles.
+         *
+         * @return Resolved types of type parameters, in declaration order
+         */
+        public List<ResolvedType> parseFormalTypeParameters(boolean classSignature)
+        {
+            ArrayList<ResolvedType> result = new ArrayList<ResolvedType>();
+            if (peek() != '<') {
+                return result;
+            }
+            expect('<');
+            _variables = new HashMap<String, ResolvedType>();
+            do {
+                int ix = _input.indexOf(':', _offset);
+                if (ix <= _offset) {
+                    throw problem("Expected type parameter name");
+                }
+                String name = _input.substring(_offset, ix);
+                _offset = ix;
+                ResolvedType bound = null;
+                // first class bound (which may be missing), then interface bounds
+                while (peek() == ':') {
+                    expect(':');
+                    char c = peek();
+                    if (c == ':' || c == '>') {
+                        continue;
+                    }
+                    ResolvedType type = parseType();
+                    if (bound == null) {
+                        bound = type;
+                    }
+                }
+                if (classSignature) {
+                    ResolvedType boundType = _bindings.findBoundType(name);
+                    if (boundType != null) {
+                        bound = boundType;
+                    }
+                }
+                if (bound == null) {
+                    bound = _resolver.resolve(Object.class);
+                }
+                _variables.put(name, bound);
+                result.add(bound);
+            } while (peek() != '>');
+            expect('>');
+            return result;
+        }
+
+        private ResolvedType _parseTypeVariable()
+        {
+            int ix = _input.indexOf(';', _offset);
+            if (ix < 0) {
+                _offset = _input.length();
+                throw problem("Unexpected end of signature");
+            }
+            String name = _input.substring(_offset, ix);
+            _offset = ix+1;
+            ResolvedType type = (_variables == null) ? null : _variables.get(name);
+            if (type == null) {
+                type = _bindings.findBoundType(name);
+                if (type == null) {
+                    type = _resolver.resolve(Object.class);
+                }
+            }
+            return type;
+        }
+
+        private ResolvedType _parseClassType()
+        {
+            StringBuilder name = new StringBuilder();
+            ArrayList<ResolvedType> params = null;
+            while (true) {
+                char c = _next();
+                if (c == ';') {
+                    break;
+                }
+                if (c == '<') {
+                    params = _parseTypeArguments();
+                    continue;
+                }
+                if (c == '/') {
+                    c = '.';
+                } else if (c == '.') { // inner class of (generic) outer class
+                    c = '$';
+                    params = null;
+                }
+                name.append(c);
+            }
+            Class<?> raw = _findClass(name.toString());
+            if (params == null) {
+                return _resolver.resolve(raw);
+            }
+            return _resolver.resolve(raw, params.toArray(new Type[0]));
+        }
+
+        private ArrayList<ResolvedType> _parseTypeArguments()
+        {
+            ArrayList<ResolvedType> params = new ArrayList<ResolvedType>();
+            while (true) {
+                char c = _next();
+                if (c == '>') {
+                    return params;
+                }
+                switch (c) {
+                case '*': // unbounded wildcard
+                case '-': // lower-bounded; upper bound still Object
+                    if (c == '-') {
+                        parseType();
+                    }
+                    params.add(_resolver.resolve(Object.class));
+                    break;
+                case '+':
+                    params.add(parseType());
+                    break;
+                default:
+                    --_offset;
+                    params.add(parseType());
+                }
+            }
+        }
+
+        private Class<?> _findClass(String name)
+        {
+            try {
+                return Class.forName(name, false, _loader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Can not resolve signature \""+_input
+                        +"\": class "+name+" not found", e);
+            }
+        }
+
+        public char peek() {
+            return (_offset < _input.length()) ? _input.charAt(_offset) : 0;
+        }
+
+        public void expect(char exp) {
+            if (_next() != exp) {
+                --_offset;
+                throw problem("Expected '"+exp+"'");
+            }
+        }
+
+        public void verifyEnd() {
+            if (_offset != _input.length()) {
+                throw problem("Unexpected trailing content");
+            }
+        }
+
+        private char _next()
+        {
+            if (_offset >= _input.length()) {
+                throw problem("Unexpected end of signature");
+            }
+            return _input.charAt(_offset++);
+        }
+
+        public IllegalArgumentException problem(String msg) {
+            return new IllegalArgumentException("Invalid type signature \""+_input
+                    +"\" (at offset "+_offset+"): "+msg);
+        }
+    }
+}
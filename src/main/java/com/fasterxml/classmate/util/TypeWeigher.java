@@ -0,0 +1,89 @@
+package com.fasterxml.classmate.util;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeBindings;
+
+/**
+ * Interface for objects that calculate "weight" of cached types, used by
+ * {@link ResolvedTypeCache} implementations that bound cache size by total weight
+ * instead of entry count (see {@link ResolvedTypeCache#lruCache(TypeWeigher, long)}
+ * and {@link ResolvedTypeCache#concurrentCache(TypeWeigher, long)}).
+ *<p>
+ * Weighers must be deterministic: that is, return the same weight for the same
+ * entry every time, as caches re-calculate weights of entries they evict.
+ * They also need to be serializable, as caches (which retain their weighers)
+ * are.
+ *
+ * @since 1.7.4
+ */
+public interface TypeWeigher extends Serializable
+{
+    /**
+     * @return Weight of the entry; must be non-negative
+     */
+    public long weigh(ResolvedTypeKey key, ResolvedType type);
+
+    /**
+     * Default weigher, which estimates retained size of a cache entry in bytes:
+     * the type instance and its cache key, type bindings (including all levels of
+     * type parameters) and references to supertypes. Supertypes themselves are
+     * not included, as they are cached (and weighed) separately.
+     *<p>
+     * Note that sizes of member arrays (fields, methods, constructors) are not
+     * included as they are only lazily populated after a type is cached.
+     */
+    public final static TypeWeigher DEFAULT = new DefaultWeigher();
+
+    /**
+     * Implementation of the {@link #DEFAULT} weigher
+     */
+    final static class DefaultWeigher implements TypeWeigher
+    {
+        private static final long serialVersionUID = 1L;
+
+        // type instance, its cache key and cache entry
+        private final static int BASE_SIZE = 96;
+
+        // TypeBindings instance and its two arrays
+        private final static int BINDINGS_SIZE = 64;
+
+        // per type parameter: entries in arrays of both key and bindings, and
+        // the parameter type instance (which may or may not be shared)
+        private final static int PARAMETER_SIZE = 64;
+
+        private final static int REFERENCE_SIZE = 8;
+
+        @Override
+        public long weigh(ResolvedTypeKey key, ResolvedType type)
+        {
+            long weight = BASE_SIZE + _parametersSize(type.getTypeBindings(), 0);
+            List<ResolvedType> interfaces = type.getImplementedInterfaces();
+            weight += REFERENCE_SIZE * (interfaces.size() + 1);
+            return weight;
+        }
+
+        private long _parametersSize(TypeBindings bindings, int depth)
+        {
+            int count = bindings.size();
+            if (count == 0) {
+                return 0L;
+            }
+            long size = BINDINGS_SIZE + count * PARAMETER_SIZE;
+            // type parameters are retained via bindings, but just in case, limit depth
+            if (depth < 100) {
+                for (int i = 0; i < count; ++i) {
+                    size += _parametersSize(bindings.getBoundType(i).getTypeBindings(), depth+1);
+                }
+            }
+            return size;
+        }
+
+        // Ensure singleton-ness on deserialization
+        Object readResolve() {
+            return DEFAULT;
+        }
+    }
+}
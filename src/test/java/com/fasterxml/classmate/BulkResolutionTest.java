@@ -0,0 +1,133 @@
+package com.fasterxml.classmate;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.classmate.util.ResolvedTypeCache;
+
+/**
+ * Unit tests for {@link TypeResolver#resolveAll}.
+ */
+@SuppressWarnings("serial")
+public class BulkResolutionTest extends BaseTest
+{
+    static class StringList extends ArrayList<String> { }
+    static class IntList extends ArrayList<Integer> { }
+    static class StringSet extends HashSet<String> { }
+    static class StringList2 extends ArrayList<String> { }
+    static class StringList3 extends LinkedList<String> { }
+    static class MutualA extends ArrayList<MutualB> { }
+    static class MutualB extends ArrayList<MutualA> { }
+
+    public void testSequential()
+    {
+        TypeResolver resolver = new TypeResolver();
+        List<Type> input = Arrays.<Type>asList(StringList.class, IntList.class,
+                new GenericType<Map<String,Long>>() { }, StringList.class, String.class);
+        List<ResolvedType> result = resolver.resolveAll(input);
+        _verify(resolver, result);
+        // duplicates resolve to same instance
+        assertSame(result.get(0), result.get(3));
+    }
+
+    public void testParallel() throws Exception
+    {
+        TypeResolver resolver = new TypeResolver();
+        List<Type> input = new ArrayList<Type>();
+        for (int i = 0; i < 20; ++i) {
+            input.add(StringList.class);
+            input.add(IntList.class);
+            input.add(new GenericType<Map<String,Long>>() { });
+            input.add(StringList.class);
+            input.add(String.class);
+        }
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            List<ResolvedType> result = resolver.resolveAll(input, exec);
+            assertEquals(input.size(), result.size());
+            for (int i = 0; i < result.size(); i += 5) {
+                _verify(resolver, result.subList(i, i+5));
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    public void testParallelSharedSupertypes() throws Exception
+    {
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; ++round) {
+                TypeResolver resolver = new TypeResolver();
+                List<ResolvedType> result = resolver.resolveAll(Arrays.<Type>asList(StringList.class,
+                        StringList2.class, StringList3.class, MutualA.class, MutualB.class), exec);
+                // supertypes shared by tasks are the same instances in all results
+                ResolvedType coll = result.get(0).findSupertype(AbstractCollection.class);
+                assertSame(coll, result.get(1).findSupertype(AbstractCollection.class));
+                assertSame(coll, result.get(2).findSupertype(AbstractCollection.class));
+                assertSame(result.get(0).getParentClass(), result.get(1).getParentClass());
+                // including types referring to each other
+                ResolvedType a = result.get(3), b = result.get(4);
+                ResolvedType aParam = a.typeParametersFor(List.class).get(0);
+                ResolvedType bParam = b.typeParametersFor(List.class).get(0);
+                // (one of which is a self-reference, depending on which got constructed first)
+                assertTrue(aParam == b || aParam.getSelfReferencedType() == b);
+                assertTrue(bParam == a || bParam.getSelfReferencedType() == a);
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    public void testSharedSupertypesRetained()
+    {
+        // tiny cache: shared supertypes would be evicted without batch-local retention
+        TypeResolver resolver = new TypeResolver(ResolvedTypeCache.lruCache(2));
+        List<ResolvedType> result = resolver.resolveAll(Arrays.<Type>asList(StringList.class,
+                StringSet.class, IntList.class));
+        ResolvedType list1 = result.get(0).findSupertype(AbstractCollection.class);
+        ResolvedType list2 = result.get(2).findSupertype(AbstractCollection.class);
+        ResolvedType set = result.get(1).findSupertype(AbstractCollection.class);
+        assertSame(list1.getParentClass(), list2.getParentClass());
+        assertSame(list1.getParentClass(), set.getParentClass());
+        assertEquals(2, resolver._resolvedTypes.size());
+    }
+
+    public void testThreadCachesShared()
+    {
+        TypeResolver resolver = new TypeResolver().withThreadLocalCache();
+        List<ResolvedType> result = resolver.resolveAll(Arrays.<Type>asList(StringList.class));
+        // batch resolution populates per-thread cache of resolver itself
+        ResolvedTypeCache cache = resolver._resolvedTypes;
+        assertSame(result.get(0), resolver._threadCaches.get().find(
+                cache.key(StringList.class, new ResolvedType[0]), cache.generation()));
+    }
+
+    public void testFailurePropagated()
+    {
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            new TypeResolver().resolveAll(Arrays.<Type>asList(String.class, new BogusType()), exec);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Unrecognized type class");
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    static class BogusType implements Type { }
+
+    private void _verify(TypeResolver resolver, List<ResolvedType> result)
+    {
+        assertEquals(5, result.size());
+        assertEquals(StringList.class, result.get(0).getErasedType());
+        assertEquals(IntList.class, result.get(1).getErasedType());
+        assertEquals(resolver.resolve(Map.class, String.class, Long.class), result.get(2));
+        assertEquals(StringList.class, result.get(3).getErasedType());
+        assertEquals(String.class, result.get(4).getErasedType());
+        assertEquals(Integer.class, result.get(1).typeParametersFor(List.class).get(0).getErasedType());
+    }
+}
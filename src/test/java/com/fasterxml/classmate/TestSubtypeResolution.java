@@ -1,6 +1,10 @@
 package com.fasterxml.classmate;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.classmate.util.ResolvedTypeCache;
 
 /**
  * Unit tests to verify that {@link TypeResolver#resolveSubtype(ResolvedType, Class)}
@@ -289,4 +293,126 @@ public class TestSubtypeResolution extends BaseTest
             verifyException(e, "Type parameter #2/2 differs; expected java.lang.Integer");
         }
     }
+
+    /*
+    /**********************************************************************
+    /* Unit tests, batch resolution
+    /**********************************************************************
+     */
+
+    public void testBatchResolution()
+    {
+        ResolvedType supertype = typeResolver.resolve(List.class, Integer.class);
+        List<Class<?>> candidates = Arrays.<Class<?>>asList(ArrayList.class, HashMap.class,
+                IntArrayList.class, LinkedList.class, ArrayList.class);
+        ResolvedSubtypes results = typeResolver.resolveSubtypes(supertype, candidates);
+        _verifyBatch(supertype, results);
+
+        // and with executor, results should be the same
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            _verifyBatch(supertype, typeResolver.resolveSubtypes(supertype, candidates, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void _verifyBatch(ResolvedType supertype, ResolvedSubtypes results)
+    {
+        assertSame(supertype, results.getSupertype());
+        assertEquals(Arrays.<Class<?>>asList(ArrayList.class, IntArrayList.class, LinkedList.class),
+                new ArrayList<Class<?>>(results.getResolved().keySet()));
+        assertSame(typeResolver.resolve(ArrayList.class, Integer.class), results.get(ArrayList.class));
+        assertSame(typeResolver.resolve(IntArrayList.class), results.get(IntArrayList.class));
+        assertTrue(results.hasFailures());
+        assertEquals(1, results.getFailures().size());
+        assertNull(results.get(HashMap.class));
+        verifyException(results.getFailure(HashMap.class), "Can not sub-class java.util.List");
+    }
+
+    public void testBatchResolutionUnsupported()
+    {
+        ResolvedType supertype = typeResolver.resolve(int.class);
+        ResolvedSubtypes results = typeResolver.resolveSubtypes(supertype,
+                Collections.<Class<?>>singletonList(Integer.class));
+        assertTrue(results.getResolved().isEmpty());
+        assertTrue(results.getFailure(Integer.class) instanceof UnsupportedOperationException);
+    }
+
+    /*
+    /**********************************************************************
+    /* Unit tests, caching
+    /**********************************************************************
+     */
+
+    public void testCachedSubtype()
+    {
+        ResolvedType supertype = typeResolver.resolve(List.class, Integer.class);
+        ResolvedType subtype = typeResolver.resolveSubtype(supertype, ArrayList.class);
+        assertSame(subtype, typeResolver.resolveSubtype(supertype, ArrayList.class));
+        // equal (not just same) supertype works as key as well
+        ResolvedType supertype2 = new TypeResolver().resolve(List.class, Integer.class);
+        assertNotSame(supertype, supertype2);
+        assertSame(subtype, typeResolver.resolveSubtype(supertype2, ArrayList.class));
+        // but different subtype does not
+        assertNotSame(subtype, typeResolver.resolveSubtype(supertype, LinkedList.class));
+    }
+
+    public void testCachedFailure()
+    {
+        ResolvedType supertype = typeResolver.resolve(ArrayList.class, String.class);
+        for (int i = 0; i < 3; ++i) {
+            try {
+                typeResolver.resolveSubtype(supertype, IntArrayList.class);
+                fail("Expected failure");
+            } catch (IllegalArgumentException e) {
+                verifyException(e, "Type parameter #1/1 differs; expected java.lang.String");
+            }
+        }
+    }
+
+    // Templates are shared by different parameterizations of the same supertype
+    public void testSubtypeTemplateReuse()
+    {
+        ResolvedType sub1 = typeResolver.resolveSubtype(typeResolver.resolve(Wrapper.class,
+                typeResolver.resolve(List.class, String.class)), ListWrapper.class);
+        ResolvedType sub2 = typeResolver.resolveSubtype(typeResolver.resolve(Wrapper.class,
+                typeResolver.resolve(List.class, Long.class)), ListWrapper.class);
+        assertSame(sub1, typeResolver.resolve(ListWrapper.class, String.class));
+        assertSame(sub2, typeResolver.resolve(ListWrapper.class, Long.class));
+        try {
+            typeResolver.resolveSubtype(typeResolver.resolve(Wrapper.class,
+                    typeResolver.resolve(Set.class, Long.class)), ListWrapper.class);
+            fail("Expected failure");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Type parameter #1/1 differs; expected java.util.Set<java.lang.Long>, got java.util.List<<0>>");
+        }
+    }
+
+    public void testCacheInvalidation()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        ResolvedType supertype = resolver.resolve(List.class, Integer.class);
+        ResolvedType subtype = resolver.resolveSubtype(supertype, ArrayList.class);
+        assertSame(subtype, resolver.resolveSubtype(supertype, ArrayList.class));
+        cache.clear();
+        ResolvedType subtype2 = resolver.resolveSubtype(supertype, ArrayList.class);
+        assertNotSame(subtype, subtype2);
+        assertEquals(subtype, subtype2);
+    }
+
+    public void testTemplateInvalidation()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        resolver.resolveSubtype(resolver.resolve(Wrapper.class,
+                resolver.resolve(List.class, String.class)), ListWrapper.class);
+        assertEquals(1, resolver._subtypeCache.templateCount());
+        // templates refer to classes (and thereby their loaders), so must go as well
+        cache.removeDependents(ListWrapper.class);
+        resolver.resolveSubtype(resolver.resolve(List.class, Integer.class), ArrayList.class);
+        // (only the new one for ArrayList remaining)
+        assertEquals(1, resolver._subtypeCache.templateCount());
+    }
 }
@@ -0,0 +1,100 @@
+package com.fasterxml.classmate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.classmate.util.CacheExpiry;
+import com.fasterxml.classmate.util.LayeredTypeCache;
+import com.fasterxml.classmate.util.ResolvedTypeCache;
+
+/**
+ * Unit tests for per-thread caches enabled using {@link TypeResolver#withThreadLocalCache}.
+ */
+@SuppressWarnings("serial")
+public class ThreadLocalCacheTest extends BaseTest
+{
+    static class StringList extends ArrayList<String> { }
+
+    public void testSimple()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache).withThreadLocalCache();
+        ResolvedType type = resolver.resolve(StringList.class);
+        assertSame(type, resolver.resolve(StringList.class));
+        assertSame(type.getParentClass(), resolver.resolve(ArrayList.class, String.class));
+        // and shared cache still populated
+        assertSame(type, new TypeResolver(cache).resolve(StringList.class));
+        // as well as other resolvers that share cache
+        assertSame(type, resolver.withProfiler(null).resolve(StringList.class));
+    }
+
+    public void testInvalidation()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.concurrentCache(100);
+        TypeResolver resolver = new TypeResolver(cache).withThreadLocalCache(10);
+        ResolvedType type = resolver.resolve(StringList.class);
+        assertSame(type, resolver.resolve(StringList.class));
+
+        int generation = cache.generation();
+        cache.removeDependents(StringList.class);
+        assertTrue(generation != cache.generation());
+        ResolvedType type2 = resolver.resolve(StringList.class);
+        assertNotSame(type, type2);
+        assertSame(type2, resolver.resolve(StringList.class));
+
+        cache.clear();
+        assertNotSame(type2, resolver.resolve(StringList.class));
+    }
+
+    public void testNotUsedWithExpiry()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100,
+                CacheExpiry.afterAccess(1, TimeUnit.MINUTES));
+        assertTrue(cache.needsAllLookups());
+        // caches with expiration must see all lookups, so no per-thread caches used
+        TypeResolver resolver = new TypeResolver(cache).withThreadLocalCache();
+        assertNull(resolver._threadCaches);
+        assertNull(new TypeResolver().withThreadLocalCache().snapshot(cache)._threadCaches);
+        // but are for others
+        assertFalse(ResolvedTypeCache.lruCache(100).needsAllLookups());
+        assertNotNull(new TypeResolver(ResolvedTypeCache.lruCache(100)).withThreadLocalCache()._threadCaches);
+        assertTrue(new LayeredTypeCache(ResolvedTypeCache.lruCache(10), cache, null).needsAllLookups());
+    }
+
+    public void testPerThread() throws Exception
+    {
+        final TypeResolver resolver = new TypeResolver().withThreadLocalCache();
+        final ResolvedType type = resolver.resolve(StringList.class);
+        final AtomicReference<Object> result = new AtomicReference<Object>();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // found from shared cache, and then per-thread cache
+                    ResolvedType type2 = resolver.resolve(StringList.class);
+                    result.set((type2 == type && resolver.resolve(StringList.class) == type)
+                            ? Boolean.TRUE : "Different instance");
+                } catch (Throwable e) {
+                    result.set(e);
+                }
+            }
+        });
+        t.start();
+        t.join();
+        assertEquals(Boolean.TRUE, result.get());
+    }
+
+    public void testInvalidSize()
+    {
+        try {
+            new TypeResolver().withThreadLocalCache(-1);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "can not be negative");
+        }
+        // but 0 is fine, disables
+        TypeResolver resolver = new TypeResolver().withThreadLocalCache().withThreadLocalCache(0);
+        assertNotNull(resolver.resolve(StringList.class));
+    }
+}
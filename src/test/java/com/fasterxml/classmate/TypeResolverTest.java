@@ -7,6 +7,7 @@ import com.fasterxml.classmate.members.RawMethod;
 import com.fasterxml.classmate.members.ResolvedMethod;
 import com.fasterxml.classmate.types.*;
 import com.fasterxml.classmate.util.ClassKey;
+import com.fasterxml.classmate.util.ResolvedTypeCache;
 import com.fasterxml.classmate.util.ResolvedTypeKey;
 
 @SuppressWarnings("serial")
@@ -72,6 +73,14 @@ public class TypeResolverTest extends BaseTest
 
     static interface MatchB<T extends List<?>> { }
 
+    static class MatchAImpl<T extends Collection<?>> implements MatchA<T, Comparator<T>> { }
+
+    static class MatchBImpl<T extends List<?>> implements MatchB<T> { }
+
+    static class MatchABImpl<T extends List<?>> implements MatchA<T, Comparator<T>>, MatchB<T> { }
+
+    static class MatchASetImpl implements MatchA<Set<?>, Comparator<Set<?>>> { }
+
     // From [https://github.com/FasterXML/jackson-databind/issues/76]
     static class HashTree<K, V> extends HashMap<K, HashTree<K, V>> { }
     
@@ -139,6 +148,149 @@ public class TypeResolverTest extends BaseTest
         }
     }
     
+    public void testBootstrapTypes()
+    {
+        ResolvedTypeCache cache1 = ResolvedTypeCache.lruCache(10);
+        TypeResolver r1 = new TypeResolver(cache1);
+        TypeResolver r2 = new TypeResolver();
+        // well-known JDK types are shared by all resolvers, and not cached separately
+        for (Class<?> cls : new Class<?>[] { String.class, Integer.class, List.class, Map.class,
+                Optional.class, Comparable.class, java.io.Serializable.class, Object.class, Integer.TYPE }) {
+            ResolvedType type = r1.resolve(cls);
+            assertSame(cls, type.getErasedType());
+            assertSame(type, r2.resolve(cls));
+        }
+        assertEquals(0, cache1.size());
+        ResolvedType comparable = r1.resolve(String.class).findSupertype(Comparable.class);
+        assertEquals(String.class, comparable.getTypeParameters().get(0).getErasedType());
+
+        // but not parameterized ones
+        ResolvedType listType = r1.resolve(List.class, String.class);
+        assertNotSame(listType, r2.resolve(List.class, String.class));
+        assertSame(listType, r1.resolve(List.class, String.class));
+        // List<String>, Collection<String>, Iterable<String>
+        assertEquals(3, cache1.size());
+    }
+
+    public void testBootstrapSupertypes()
+    {
+        ResolvedTypeCache cache1 = ResolvedTypeCache.lruCache(20);
+        TypeResolver r1 = new TypeResolver(cache1);
+        TypeResolver r2 = new TypeResolver();
+        ResolvedType list1 = r1.resolve(ArrayList.class, String.class);
+        ResolvedType list2 = r2.resolve(ArrayList.class, String.class);
+        assertNotSame(list1, list2);
+        // non-generic supertypes of generic types are shared as well
+        for (Class<?> cls : new Class<?>[] { java.io.Serializable.class, Cloneable.class,
+                RandomAccess.class, Object.class }) {
+            ResolvedType type = list1.findSupertype(cls);
+            assertNotNull(type);
+            assertSame(type, list2.findSupertype(cls));
+            assertTrue(type.getTypeBindings().isEmpty());
+            assertNull(cache1.find(cache1.key(cls, new ResolvedType[] { r1.resolve(String.class) })));
+        }
+    }
+
+    public void testSnapshot()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        ResolvedType mapType = resolver.resolve(MyStringLongMap.class);
+        final int size = cache.size();
+
+        TypeResolver snapshot = resolver.snapshot();
+        assertSame(mapType, snapshot.resolve(MyStringLongMap.class));
+        // new types are only added to snapshot's own cache
+        ResolvedType listType = snapshot.resolve(StringListWrapper.class);
+        assertSame(listType, snapshot.resolve(StringListWrapper.class));
+        assertEquals(size, cache.size());
+
+        // and snapshots are independent of each other, as well as of the original
+        TypeResolver snapshot2 = resolver.snapshot(ResolvedTypeCache.concurrentCache(10));
+        assertSame(mapType, snapshot2.resolve(MyStringLongMap.class));
+        assertNotSame(listType, snapshot2.resolve(StringListWrapper.class));
+        cache.clear();
+        assertSame(mapType, snapshot.resolve(MyStringLongMap.class));
+    }
+
+    public void testAssignability()
+    {
+        ResolvedType arrayList = typeResolver.resolve(new GenericType<ArrayList<String>>() { });
+        ResolvedType strings = typeResolver.resolve(new GenericType<Collection<String>>() { });
+        ResolvedType charSeqs = typeResolver.resolve(new GenericType<Collection<CharSequence>>() { });
+        ResolvedType longs = typeResolver.resolve(new GenericType<Collection<Long>>() { });
+        assertTrue(strings.isAssignableFrom(arrayList));
+        assertFalse(arrayList.isAssignableFrom(strings));
+        assertFalse(longs.isAssignableFrom(arrayList));
+        // type parameters are invariant
+        assertFalse(charSeqs.isAssignableFrom(arrayList));
+        assertFalse(typeResolver.resolve(new GenericType<List<Object>>() { })
+                .isAssignableFrom(typeResolver.resolve(new GenericType<List<String>>() { })));
+        // raw types are resolved using bounds of type parameters, so same applies to them
+        assertFalse(typeResolver.resolve(Collection.class).isAssignableFrom(arrayList));
+        assertTrue(typeResolver.resolve(Collection.class).isAssignableFrom(typeResolver.resolve(ArrayList.class)));
+        // parameterization via subclass
+        ResolvedType longMaps = typeResolver.resolve(new GenericType<Map<String, Long>>() { });
+        assertTrue(longMaps.isAssignableFrom(typeResolver.resolve(MyStringLongMap.class)));
+        assertFalse(typeResolver.resolve(new GenericType<Map<String, Number>>() { })
+                .isAssignableFrom(typeResolver.resolve(MyStringLongMap.class)));
+        assertFalse(typeResolver.resolve(new GenericType<Map<String, String>>() { })
+                .isAssignableFrom(typeResolver.resolve(MyStringLongMap.class)));
+        // arrays, primitives
+        assertTrue(typeResolver.resolve(CharSequence[].class).isAssignableFrom(typeResolver.resolve(String[].class)));
+        assertFalse(typeResolver.resolve(long[].class).isAssignableFrom(typeResolver.resolve(int[].class)));
+        assertFalse(typeResolver.resolve(long.class).isAssignableFrom(typeResolver.resolve(int.class)));
+        assertFalse(typeResolver.resolve(Integer.class).isAssignableFrom(typeResolver.resolve(int.class)));
+        assertTrue(typeResolver.resolve(Object.class).isAssignableFrom(typeResolver.resolve(int[].class)));
+        // self-references
+        assertTrue(typeResolver.resolve(new GenericType<Comparable<String>>() { })
+                .isAssignableFrom(typeResolver.resolve(String.class)));
+        assertFalse(typeResolver.resolve(new GenericType<Comparable<CharSequence>>() { })
+                .isAssignableFrom(typeResolver.resolve(String.class)));
+
+        // and memoized variant
+        for (int i = 0; i < 2; ++i) {
+            assertTrue(typeResolver.isAssignableFrom(strings, arrayList));
+            assertFalse(typeResolver.isAssignableFrom(arrayList, strings));
+            assertFalse(typeResolver.isAssignableFrom(longs, arrayList));
+        }
+    }
+
+    public void testParseKeys()
+    {
+        ClassLoader loader = getClass().getClassLoader();
+        TypeResolver.ParseKey key = new TypeResolver.ParseKey(TypeResolver.ParseKey.EXPRESSION,
+                "java.lang.String", loader);
+        TypeResolver.ParseKey key2 = new TypeResolver.ParseKey(TypeResolver.ParseKey.EXPRESSION,
+                "java.lang.String", loader);
+        assertEquals(key, key2);
+        assertFalse(key.equals(new TypeResolver.ParseKey(TypeResolver.ParseKey.EXPRESSION,
+                "java.lang.String", null)));
+        assertEquals(new TypeResolver.ParseKey(TypeResolver.ParseKey.SIGNATURE, "I", null),
+                new TypeResolver.ParseKey(TypeResolver.ParseKey.SIGNATURE, "I", null));
+        // loaders are only weakly referenced, and once collected, keys no longer match
+        key._loaderRef.clear();
+        assertFalse(key.equals(key2));
+        assertFalse(key2.equals(key));
+    }
+
+    public void testAssignabilityInvalidation()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        ResolvedType strings = resolver.resolve(Collection.class, String.class);
+        ResolvedType arrayList = resolver.resolve(ArrayList.class, String.class);
+        assertTrue(resolver.isAssignableFrom(strings, arrayList));
+        assertEquals(1, resolver._assignabilityCache.size());
+        // memoized results refer to cached types, so they must go when types do
+        cache.clear();
+        assertTrue(resolver.isAssignableFrom(resolver.resolve(Collection.class, String.class),
+                resolver.resolve(ArrayList.class, String.class)));
+        assertEquals(1, resolver._assignabilityCache.size());
+        // and resolvers with different type caches do not share results
+        assertNull(resolver.snapshot(ResolvedTypeCache.lruCache(10))._assignabilityCache);
+    }
+
     public void testSimpleTypes()
     {
         // let's check some default java types
@@ -460,43 +612,55 @@ public class TypeResolverTest extends BaseTest
         assertNull(resolveSuperClassMethod.invoke(typeResolver, null, Comparator.class, null));
     }
 
-    public void testTypesMatch() throws IllegalAccessException, InvocationTargetException
+    public void testTypesMatch()
     {
-        ResolvedType resolvedType = typeResolver.resolve(TypeResolver.class);
-        MemberResolver memberResolver = new MemberResolver(typeResolver);
-        memberResolver.setMethodFilter(new Filter<RawMethod>() {
-            // 26-Oct-2015, tatu: Quite fragile, probably shouldn't use
-            @Override public boolean include(RawMethod element) {
-                return "_verifyAndResolve".equals(element.getName());
-            }
-        });
-        ResolvedTypeWithMembers resolvedTypeWithMembers = memberResolver.resolve(resolvedType, null, null);
-        ResolvedMethod[] methods = resolvedTypeWithMembers.getMemberMethods();
-        if (methods.length == 0) {
-            fail("Missing methods: should find one");
-        }
-        ResolvedMethod typesMatchResolvedMethod = methods[0];
-        Method typesMatchMethod = typesMatchResolvedMethod.getRawMember();
-        typesMatchMethod.setAccessible(true);
-
-        // first test equality
-        GenericType<MatchB<List<?>>> matchBList = new GenericType<MatchB<List<?>>>() { };
-        ResolvedType matchBListResolved = typeResolver.resolve(matchBList);
-        assertTrue((Boolean) typesMatchMethod.invoke(typeResolver, matchBListResolved, matchBListResolved));
-        GenericType<MatchA<Set<?>, Comparator<Set<?>>>> matchASet = new GenericType<MatchA<Set<?>, Comparator<Set<?>>>>() { };
-        GenericType<MatchA<Set<?>, Comparator<Set<?>>>> matchASet1 = new GenericType<MatchA<Set<?>, Comparator<Set<?>>>>() { };
-        ResolvedType matchASetResolved = typeResolver.resolve(matchASet);
-        ResolvedType matchASetResolved1 = typeResolver.resolve(matchASet1);
-        assertTrue((Boolean) typesMatchMethod.invoke(typeResolver, matchASetResolved, matchASetResolved1));
+        // equality of types with (equivalent) wildcard type parameters
+        ResolvedType matchBListResolved = typeResolver.resolve(new GenericType<MatchB<List<?>>>() { });
+        assertEquals(matchBListResolved, typeResolver.resolve(new GenericType<MatchB<List<?>>>() { }));
+        ResolvedType matchASetResolved = typeResolver.resolve(new GenericType<MatchA<Set<?>, Comparator<Set<?>>>>() { });
+        ResolvedType matchASetResolved1 = typeResolver.resolve(new GenericType<MatchA<Set<?>, Comparator<Set<?>>>>() { });
+        assertEquals(matchASetResolved, matchASetResolved1);
 
         // now check inequality
-        GenericType<MatchA<List<?>, Comparator<List<?>>>> matchAList = new GenericType<MatchA<List<?>, Comparator<List<?>>>>() { };
-        ResolvedType matchAListResolved = typeResolver.resolve(matchAList);
-        assertFalse((Boolean) typesMatchMethod.invoke(typeResolver, matchAListResolved, matchASetResolved));
+        ResolvedType matchAListResolved = typeResolver.resolve(new GenericType<MatchA<List<?>, Comparator<List<?>>>>() { });
+        assertFalse(matchAListResolved.equals(matchASetResolved));
 
         // now ensure different number of type-parameters are handled correctly
-        assertFalse((Boolean) typesMatchMethod.invoke(typeResolver, matchAListResolved, matchBListResolved));
-        assertFalse((Boolean) typesMatchMethod.invoke(typeResolver, matchBListResolved, matchAListResolved));
+        assertFalse(matchAListResolved.equals(matchBListResolved));
+        assertFalse(matchBListResolved.equals(matchAListResolved));
+
+        // and same cases through template matching of subtype resolution: equal
+        // (wildcard) parameters bind subtype parameters consistently
+        ResolvedType sub = typeResolver.resolveSubtype(matchBListResolved, MatchBImpl.class);
+        assertEquals(typeResolver.resolve(new GenericType<MatchBImpl<List<?>>>() { }), sub);
+        sub = typeResolver.resolveSubtype(matchASetResolved, MatchAImpl.class);
+        assertEquals(typeResolver.resolve(new GenericType<MatchAImpl<Set<?>>>() { }), sub);
+        assertEquals(matchASetResolved1, sub.findSupertype(MatchA.class));
+        sub = typeResolver.resolveSubtype(matchAListResolved, MatchAImpl.class);
+        assertEquals(matchAListResolved, sub.findSupertype(MatchA.class));
+        assertFalse(matchASetResolved.equals(sub.findSupertype(MatchA.class)));
+
+        // as do ones declared by subtype itself
+        sub = typeResolver.resolveSubtype(matchASetResolved, MatchASetImpl.class);
+        assertEquals(matchASetResolved, sub.findSupertype(MatchA.class));
+        // but differing ones do not match
+        try {
+            typeResolver.resolveSubtype(matchAListResolved, MatchASetImpl.class);
+            fail("Expected failure");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "differs");
+        }
+
+        // and subtypes with different number of type parameters than supertype work too
+        sub = typeResolver.resolveSubtype(matchBListResolved, MatchABImpl.class);
+        assertEquals(matchAListResolved, sub.findSupertype(MatchA.class));
+        assertEquals(matchBListResolved, sub.findSupertype(MatchB.class));
+        try {
+            typeResolver.resolveSubtype(matchBListResolved, MatchAImpl.class);
+            fail("Expected failure");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Can not sub-class");
+        }
     }
 
     public void testMultiDimensionalGenericArrays() throws Exception
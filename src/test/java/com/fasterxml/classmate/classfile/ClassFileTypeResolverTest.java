@@ -0,0 +1,217 @@
+package com.fasterxml.classmate.classfile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+@SuppressWarnings("serial")
+public class ClassFileTypeResolverTest extends BaseTest
+{
+    static class Base<K, V> implements Comparable<Base<K, V>> {
+        @Override
+        public int compareTo(Base<K, V> o) { return 0; }
+    }
+
+    static class Sub<T extends Number> extends Base<String, List<T>> { }
+
+    static class Leaf extends Sub<Integer> implements Serializable { }
+
+    // raw self-bounded, as found in legacy code
+    @SuppressWarnings("rawtypes")
+    static class Node<N extends Node> { }
+
+    @SuppressWarnings("rawtypes")
+    static class MutualA<T extends MutualB> { }
+
+    @SuppressWarnings("rawtypes")
+    static class MutualB<T extends MutualA> { }
+
+    private Path testClassRoot() throws Exception {
+        return Paths.get(getClass().getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    public void testClassFileInfo() throws Exception
+    {
+        ClassFileSource src = new ClassFileSource(testClassRoot());
+        try {
+            ByteBuffer buf = src.find(Sub.class.getName());
+            assertNotNull(buf);
+            ClassFileInfo info = ClassFileInfo.parse(buf);
+            assertEquals(Sub.class.getName(), info.getName());
+            assertEquals(Base.class.getName(), info.getSuperclassName());
+            assertEquals(Collections.emptyList(), info.getInterfaceNames());
+            assertFalse(info.isInterface());
+            assertEquals("<T:Ljava/lang/Number;>Lcom/fasterxml/classmate/classfile/ClassFileTypeResolverTest$Base"
+                    +"<Ljava/lang/String;Ljava/util/List<TT;>;>;", info.getSignature());
+
+            // JDK classes are found via class loader
+            info = ClassFileInfo.parse(src.find("java.util.List"));
+            assertTrue(info.isInterface());
+            assertTrue(info.isAbstract());
+            assertEquals(Arrays.asList("java.util.Collection"), info.getInterfaceNames());
+
+            assertNull(src.find("com.fasterxml.classmate.NoSuchClass"));
+        } finally {
+            src.close();
+        }
+    }
+
+    public void testInvalidClassFile()
+    {
+        try {
+            ClassFileInfo.parse(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6 }));
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Invalid class file");
+        }
+    }
+
+    public void testSupertypes() throws Exception
+    {
+        ClassFileTypeResolver resolver = new ClassFileTypeResolver(new ClassFileSource(testClassRoot()));
+        DescribedType leaf = resolver.resolve(Leaf.class.getName());
+        assertEquals(0, leaf.getTypeParameters().size());
+        assertEquals(Arrays.asList(resolver.resolve("java.io.Serializable")), leaf.getImplementedInterfaces());
+
+        DescribedType sub = leaf.getParentClass();
+        assertEquals(Sub.class.getName(), sub.getErasedName());
+        assertEquals(Arrays.asList(resolver.resolve("java.lang.Integer")), sub.getTypeParameters());
+
+        DescribedType base = leaf.findSupertype(Base.class.getName());
+        assertNotNull(base);
+        assertEquals(resolver.resolve("java.util.List", resolver.resolve("java.lang.Integer")),
+                base.getTypeParameters().get(1));
+        DescribedType comparable = leaf.findSupertype("java.lang.Comparable");
+        assertEquals(base, comparable.getTypeParameters().get(0));
+        assertNull(leaf.findSupertype("java.util.Map"));
+
+        // without type parameters, bounds are used
+        DescribedType rawSub = resolver.resolve(Sub.class.getName());
+        assertEquals(Arrays.asList(resolver.resolve("java.lang.Number")), rawSub.getTypeParameters());
+
+        // interfaces have no parent class
+        assertNull(resolver.resolve("java.util.List").getParentClass());
+        assertNull(resolver.resolve("java.lang.Object").getParentClass());
+    }
+
+    public void testSelfBoundedRawType() throws Exception
+    {
+        ClassFileTypeResolver resolver = new ClassFileTypeResolver(new ClassFileSource(testClassRoot()));
+        DescribedType node = resolver.resolve(Node.class.getName());
+        // back-reference to itself is type-erased
+        DescribedType bound = node.getTypeParameters().get(0);
+        assertEquals(Node.class.getName(), bound.getErasedName());
+        assertEquals(0, bound.getTypeParameters().size());
+        assertEquals("Lcom/fasterxml/classmate/classfile/ClassFileTypeResolverTest$Node<"
+                +"Lcom/fasterxml/classmate/classfile/ClassFileTypeResolverTest$Node;>;", node.getSignature());
+        assertEquals(Node.class.getName()+"<"+Node.class.getName()+">", node.toString());
+        assertEquals(node, resolver.resolve(Node.class.getName(), bound));
+        assertEquals(node.hashCode(), resolver.resolve(Node.class.getName(), bound).hashCode());
+    }
+
+    public void testMutuallyBoundedRawTypes() throws Exception
+    {
+        ClassFileTypeResolver resolver = new ClassFileTypeResolver(new ClassFileSource(testClassRoot()));
+        DescribedType a = resolver.resolve(MutualA.class.getName());
+        DescribedType b = a.getTypeParameters().get(0);
+        assertEquals(MutualB.class.getName(), b.getErasedName());
+        // reference back to A is type-erased
+        assertEquals(Arrays.asList(resolver.resolve(MutualA.class.getName(), new DescribedType[0])
+                .getTypeParameters().get(0).getTypeParameters().get(0)), b.getTypeParameters());
+        assertEquals(0, b.getTypeParameters().get(0).getTypeParameters().size());
+        assertEquals(MutualA.class.getName()+"<"+MutualB.class.getName()+"<"+MutualA.class.getName()+">>",
+                a.toString());
+        // and same from the other direction
+        assertEquals(MutualB.class.getName()+"<"+MutualA.class.getName()+"<"+MutualB.class.getName()+">>",
+                resolver.resolve(MutualB.class.getName()).toString());
+        assertNotNull(a.toResolvedType(new TypeResolver(), getClass().getClassLoader()));
+    }
+
+    public void testToResolvedType() throws Exception
+    {
+        ClassFileTypeResolver resolver = new ClassFileTypeResolver(new ClassFileSource(testClassRoot()));
+        TypeResolver typeResolver = new TypeResolver();
+        ClassLoader loader = getClass().getClassLoader();
+
+        DescribedType base = resolver.resolve(Leaf.class.getName()).findSupertype(Base.class.getName());
+        ResolvedType resolved = base.toResolvedType(typeResolver, loader);
+        assertSame(typeResolver.resolve(Leaf.class).findSupertype(Base.class).getErasedType(),
+                resolved.getErasedType());
+        assertEquals(typeResolver.resolve(Leaf.class).findSupertype(Base.class), resolved);
+
+        DescribedType array = resolver.resolveSignature("[[I");
+        assertTrue(array.isArray());
+        assertTrue(array.getArrayElementType().getArrayElementType().isPrimitive());
+        assertEquals("int[][]", array.toString());
+        assertEquals(typeResolver.resolve(int[][].class), array.toResolvedType(typeResolver, loader));
+    }
+
+    public void testDeeplyNestedTypes() throws Exception
+    {
+        ClassFileTypeResolver resolver = new ClassFileTypeResolver(new ClassFileSource(testClassRoot()));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ClassFileTypeResolver.MAX_NESTING_DEPTH - 1; ++i) {
+            sb.append("Ljava/util/List<");
+        }
+        sb.append("Ljava/lang/String;");
+        for (int i = 0; i < ClassFileTypeResolver.MAX_NESTING_DEPTH - 1; ++i) {
+            sb.append(">;");
+        }
+        final String maxSig = sb.toString();
+        assertEquals(maxSig, resolver.resolveSignature(maxSig).getSignature());
+        try {
+            resolver.resolveSignature("Ljava/util/List<"+maxSig+">;");
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "nested too deeply");
+        }
+
+        // types constructed directly are not limited; signatures are built without recursion
+        DescribedType type = resolver.resolve("java.lang.String");
+        for (int i = 0; i < 100000; ++i) {
+            type = resolver.resolve("java.util.List", type);
+        }
+        String sig = type.getSignature();
+        assertEquals(100000 * "Ljava/util/List<>;".length() + "Ljava/lang/String;".length(), sig.length());
+        assertTrue(sig.startsWith("Ljava/util/List<Ljava/util/List<"));
+        assertTrue(sig.contains("<Ljava/lang/String;>;>;"));
+    }
+
+    public void testJarSource() throws Exception
+    {
+        File jar = File.createTempFile("classmate", ".jar");
+        try {
+            String path = Sub.class.getName().replace('.', '/') + ".class";
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+            out.putNextEntry(new ZipEntry(path));
+            out.write(Files.readAllBytes(testClassRoot().resolve(path)));
+            out.closeEntry();
+            out.close();
+
+            // no fallback to class loader, so only class in jar is found
+            ClassFileSource src = new ClassFileSource(Arrays.asList(jar.toPath()), null);
+            try {
+                ClassFileTypeResolver resolver = new ClassFileTypeResolver(src);
+                DescribedType sub = resolver.resolve(Sub.class.getName());
+                assertEquals(Base.class.getName(), sub.getParentClass().getErasedName());
+                try {
+                    sub.getParentClass().getParentClass();
+                    fail("Should not pass");
+                } catch (IllegalArgumentException e) {
+                    verifyException(e, "not found");
+                }
+            } finally {
+                src.close();
+            }
+        } finally {
+            jar.delete();
+        }
+    }
+}
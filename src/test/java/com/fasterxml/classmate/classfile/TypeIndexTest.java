@@ -0,0 +1,148 @@
+package com.fasterxml.classmate.classfile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+@SuppressWarnings("serial")
+public class TypeIndexTest extends BaseTest
+{
+    static class Base<K, V> implements Comparable<Base<K, V>> {
+        @Override
+        public int compareTo(Base<K, V> o) { return 0; }
+    }
+
+    static class Sub<T extends Number> extends Base<String, List<T[]>> { }
+
+    static class Leaf extends Sub<Integer> implements Serializable { }
+
+    static class Primitives extends ArrayList<int[]> { }
+
+    private ClassFileTypeResolver resolver() throws Exception {
+        return new ClassFileTypeResolver(new ClassFileSource(
+                Paths.get(getClass().getProtectionDomain().getCodeSource().getLocation().toURI())));
+    }
+
+    private TypeIndex buildIndex(String... classNames) throws Exception
+    {
+        TypeIndexWriter w = new TypeIndexWriter(resolver());
+        for (String name : classNames) {
+            w.addClass(name);
+        }
+        assertEquals(classNames.length, w.classCount());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        w.write(bytes);
+        TypeIndex index = new TypeIndex(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(w.typeCount(), index.typeCount());
+        return index;
+    }
+
+    public void testLookups() throws Exception
+    {
+        TypeIndex index = buildIndex(Leaf.class.getName(), Primitives.class.getName());
+
+        IndexedType leaf = index.find(Leaf.class.getName());
+        assertNotNull(leaf);
+        assertEquals(Leaf.class.getName(), leaf.getErasedName());
+        assertFalse(leaf.isInterface());
+        assertEquals(0, leaf.getTypeParameters().size());
+        assertEquals(1, leaf.getImplementedInterfaces().size());
+        assertTrue(leaf.getImplementedInterfaces().get(0).isInterface());
+
+        IndexedType base = leaf.findSupertype(Base.class.getName());
+        assertEquals(Base.class.getName()+"<java.lang.String,java.util.List<java.lang.Integer[]>>",
+                base.toString());
+        assertEquals(base, leaf.findSupertype("java.lang.Comparable").getTypeParameters().get(0));
+        assertNull(leaf.findSupertype("java.util.Map"));
+        IndexedType object = leaf.getParentClass().getParentClass().getParentClass();
+        assertEquals("java.lang.Object", object.getErasedName());
+        assertNull(object.getParentClass());
+
+        IndexedType list = index.find(Primitives.class.getName()).getParentClass();
+        IndexedType array = list.getTypeParameters().get(0);
+        assertTrue(array.isArray());
+        assertEquals("[I", array.getErasedName());
+        assertTrue(array.getArrayElementType().isPrimitive());
+        assertEquals("Ljava/util/ArrayList<[I>;", list.getSignature());
+
+        // only classes added may be looked up
+        assertNull(index.find("java.lang.Integer"));
+        assertNull(index.find("java.util.AbstractList"));
+    }
+
+    public void testResolve() throws Exception
+    {
+        TypeIndex index = buildIndex(Leaf.class.getName());
+        TypeResolver typeResolver = new TypeResolver();
+        ClassLoader loader = getClass().getClassLoader();
+
+        ResolvedType leaf = index.resolve(typeResolver, Leaf.class.getName(), loader);
+        assertSame(typeResolver.resolve(Leaf.class), leaf);
+        assertEquals(typeResolver.resolve(Leaf.class).findSupertype(Base.class).getSignature(),
+                index.find(Leaf.class.getName()).findSupertype(Base.class.getName())
+                    .toResolvedType(typeResolver, loader).getSignature());
+        assertNull(index.resolve(typeResolver, "java.util.Map", loader));
+    }
+
+    public void testFileIndex() throws Exception
+    {
+        Path root = Paths.get(getClass().getProtectionDomain().getCodeSource().getLocation().toURI())
+                .resolve("com/fasterxml/classmate/classfile");
+        TypeIndexWriter w = new TypeIndexWriter(resolver());
+        // all test classes of this package, resolvable from test class root
+        assertTrue(w.addClasses(root.getParent().getParent().getParent().getParent()) > 0);
+        assertTrue(w.classCount() > 3);
+        // including raw self-bounded ones (see ClassFileTypeResolverTest)
+        assertEquals(Collections.emptyList(), w.getSkippedClasses());
+        File file = File.createTempFile("classmate", ".idx");
+        try {
+            w.write(file.toPath());
+            TypeIndex index = TypeIndex.open(file.toPath());
+            assertEquals(w.typeCount(), index.typeCount());
+            assertEquals(Sub.class.getName()+"<java.lang.Number>", index.find(Sub.class.getName()).toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testFullLookupTable() throws Exception
+    {
+        // hand-built index with no empty slots in the lookup table
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TypeIndex.MAGIC);
+        out.writeInt(TypeIndex.FORMAT_VERSION);
+        out.writeInt(1);
+        out.writeInt(40); // strings
+        out.writeInt(44); // table
+        out.writeInt(2);
+        // descriptor of class "X"
+        out.writeInt(0); // kind, flags, type parameter count
+        out.writeInt(0); // interface count, padding
+        out.writeInt(40); // name
+        out.writeInt(0); // parent
+        out.writeShort(1);
+        out.writeByte('X');
+        out.writeByte(0); // padding
+        out.writeInt(24);
+        out.writeInt(24);
+        TypeIndex index = new TypeIndex(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals("X", index.find("X").getErasedName());
+        assertNull(index.find("Y"));
+    }
+
+    public void testInvalidIndex()
+    {
+        try {
+            new TypeIndex(ByteBuffer.wrap(new byte[30]));
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Invalid type index");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.fasterxml.classmate.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+public class ClassLoaderAwareTypeCacheTest extends BaseTest
+{
+    public static class Payload { }
+
+    /**
+     * Class loader that defines its own copy of {@link Payload}, similar to
+     * how a webapp class loader would.
+     */
+    static class ChildLoader extends ClassLoader
+    {
+        public ChildLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(Payload.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> cls = findLoadedClass(name);
+                if (cls == null) {
+                    byte[] data = _read("/"+name.replace('.', '/')+".class");
+                    cls = defineClass(name, data, 0, data.length);
+                }
+                return cls;
+            }
+        }
+
+        private byte[] _read(String resource) throws ClassNotFoundException {
+            try (InputStream in = ClassLoaderAwareTypeCacheTest.class.getResourceAsStream(resource)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buf = new byte[1000];
+                int count;
+                while ((count = in.read(buf)) > 0) {
+                    bytes.write(buf, 0, count);
+                }
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new ClassNotFoundException(resource, e);
+            }
+        }
+    }
+
+    public void testAnchoring() throws Exception
+    {
+        ClassLoader loader = new ChildLoader(getClass().getClassLoader());
+        Class<?> payload = loader.loadClass(Payload.class.getName());
+        assertNotSame(Payload.class, payload);
+
+        ClassLoaderAwareTypeCache cache = ResolvedTypeCache.classLoaderAwareCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        ResolvedType listType = resolver.resolve(List.class, payload);
+
+        ResolvedTypeKey key = cache.key(List.class, new ResolvedType[] { resolver.resolve(payload) });
+        assertSame(payload, ClassLoaderAwareTypeCache._anchorFor(key));
+        assertSame(listType, cache.find(key));
+        assertSame(List.class, ClassLoaderAwareTypeCache._anchorFor(cache.key(List.class,
+                new ResolvedType[] { resolver.resolve(String.class) })));
+    }
+
+    public void testInvalidate() throws Exception
+    {
+        ClassLoader loader = new ChildLoader(getClass().getClassLoader());
+        Class<?> payload = loader.loadClass(Payload.class.getName());
+
+        ClassLoaderAwareTypeCache cache = ResolvedTypeCache.classLoaderAwareCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        resolver.resolve(List.class, payload);
+        resolver.resolve(Map.class, String.class, payload);
+        resolver.resolve(List.class, String.class);
+        resolver.resolve(Payload.class);
+        final int fullSize = cache.size();
+
+        ResolvedTypeKey key = cache.key(List.class, new ResolvedType[] { resolver.resolve(payload) });
+        assertNotNull(cache.find(key));
+
+        // invalidating unrelated loader does nothing
+        cache.invalidate(new ChildLoader(getClass().getClassLoader()));
+        assertEquals(fullSize, cache.size());
+
+        cache.invalidate(loader);
+        assertNull(cache.find(key));
+        // Payload, List<Payload>, Map<String,Payload> plus supertypes like Collection<Payload>
+        assertEquals(fullSize - 5, cache.size());
+        assertNotNull(cache.find(cache.key(List.class,
+                new ResolvedType[] { resolver.resolve(String.class) })));
+        assertNotNull(cache.find(cache.key(Payload.class)));
+
+        // and with null, everything
+        cache.invalidate(null);
+        assertEquals(0, cache.size());
+    }
+
+    public void testMaxEntries()
+    {
+        ClassLoaderAwareTypeCache cache = ResolvedTypeCache.classLoaderAwareCache(2);
+        cache._addForTest(new TypeResolver().resolve(String.class));
+        cache._addForTest(new TypeResolver().resolve(Integer.class));
+        assertEquals(2, cache.size());
+        cache._addForTest(new TypeResolver().resolve(Long.class));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.find(cache.key(Long.class)));
+    }
+}
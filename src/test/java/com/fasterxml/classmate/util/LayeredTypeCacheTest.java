@@ -0,0 +1,65 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+import com.fasterxml.classmate.util.ClassLoaderAwareTypeCacheTest.ChildLoader;
+import com.fasterxml.classmate.util.ClassLoaderAwareTypeCacheTest.Payload;
+
+public class LayeredTypeCacheTest extends BaseTest
+{
+    static class PlatformType<T> { }
+
+    public void testSharedAndTenantTypes() throws Exception
+    {
+        final ClassLoader platformLoader = getClass().getClassLoader();
+        ResolvedTypeCache platformCache = ResolvedTypeCache.concurrentCache(1000);
+        LayeredTypeCache cache1 = ResolvedTypeCache.layeredCache(platformCache,
+                ResolvedTypeCache.lruCache(100), platformLoader);
+        LayeredTypeCache cache2 = ResolvedTypeCache.layeredCache(platformCache,
+                ResolvedTypeCache.lruCache(100), platformLoader);
+        TypeResolver tenant1 = new TypeResolver(cache1);
+        TypeResolver tenant2 = new TypeResolver(cache2);
+        Class<?> payload1 = new ChildLoader(platformLoader).loadClass(Payload.class.getName());
+        Class<?> payload2 = new ChildLoader(platformLoader).loadClass(Payload.class.getName());
+
+        // platform types are shared
+        ResolvedType platformType = tenant1.resolve(PlatformType.class, String.class);
+        assertSame(platformType, tenant2.resolve(PlatformType.class, String.class));
+        assertTrue(cache1.isShared(cache1.key(PlatformType.class,
+                new ResolvedType[] { tenant1.resolve(String.class) })));
+        assertEquals(0, cache1.getChild().size());
+
+        // but tenant types are not, even when parameterizing platform types
+        ResolvedType tenantType = tenant1.resolve(PlatformType.class, payload1);
+        assertNotSame(tenantType, tenant2.resolve(PlatformType.class, payload2));
+        assertSame(tenantType, tenant1.resolve(PlatformType.class, payload1));
+        assertFalse(cache1.isShared(cache1.key(PlatformType.class,
+                new ResolvedType[] { tenant1.resolve(payload1) })));
+        // PlatformType<Payload> and Payload
+        assertEquals(2, cache1.getChild().size());
+        assertEquals(2, cache2.getChild().size());
+        final int platformSize = platformCache.size();
+        assertEquals(platformSize + 2, cache1.size());
+
+        // and tenants may be dropped independently
+        cache1.clear();
+        assertEquals(0, cache1.getChild().size());
+        assertEquals(2, cache2.getChild().size());
+        assertEquals(platformSize, platformCache.size());
+        assertSame(platformType, tenant1.resolve(PlatformType.class, String.class));
+        assertNotSame(tenantType, tenant1.resolve(PlatformType.class, payload1));
+    }
+
+    public void testGenerationOfLayers()
+    {
+        ResolvedTypeCache platformCache = ResolvedTypeCache.concurrentCache(1000);
+        LayeredTypeCache cache = ResolvedTypeCache.layeredCache(platformCache,
+                ResolvedTypeCache.lruCache(100), getClass().getClassLoader());
+        int generation = cache.generation();
+        platformCache.clear();
+        assertTrue(generation != cache.generation());
+    }
+}
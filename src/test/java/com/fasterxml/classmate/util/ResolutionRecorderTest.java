@@ -0,0 +1,121 @@
+package com.fasterxml.classmate.util;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+import com.fasterxml.classmate.AnnotationConfiguration;
+import com.fasterxml.classmate.AnnotationInclusion;
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.GenericType;
+import com.fasterxml.classmate.MemberResolver;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+public class ResolutionRecorderTest extends BaseTest
+{
+    static class Bean {
+        public List<String> names;
+
+        public Map<String,Integer> getCounts() { return null; }
+    }
+
+    @SuppressWarnings("serial")
+    static class StringList extends ArrayList<String> { }
+
+    public void testRecordAndReplay() throws Exception
+    {
+        ResolutionRecorder recorder = new ResolutionRecorder();
+        TypeResolver trainingResolver = new TypeResolver().withRecorder(recorder);
+        assertSame(recorder, trainingResolver.getRecorder());
+        MemberResolver memberResolver = new MemberResolver(trainingResolver).setRecorder(recorder);
+
+        trainingResolver.resolve(StringList.class);
+        trainingResolver.resolve(new GenericType<Map<String,List<Long>>>() { });
+        memberResolver.resolve(trainingResolver.resolve(Bean.class),
+                new AnnotationConfiguration.StdConfiguration(AnnotationInclusion.DONT_INCLUDE), null);
+
+        List<String> types = recorder.getTypeSignatures();
+        assertTrue(types.contains("L"+StringList.class.getName().replace('.', '/')+";"));
+        assertTrue(types.contains("Ljava/util/Map<Ljava/lang/String;Ljava/util/List<Ljava/lang/Long;>;>;"));
+        // supertypes are recorded too, before subtypes
+        assertTrue(types.indexOf("Ljava/util/AbstractList<Ljava/lang/String;>;")
+                < types.indexOf("L"+StringList.class.getName().replace('.', '/')+";"));
+        assertEquals(Arrays.asList("L"+Bean.class.getName().replace('.', '/')+";"),
+                recorder.getMemberTypeSignatures());
+
+        StringWriter w = new StringWriter();
+        recorder.write(w);
+        ResolutionRecorder loaded = ResolutionRecorder.read(new StringReader("# comment\n\n"+w));
+        assertEquals(types, loaded.getTypeSignatures());
+        assertEquals(recorder.getMemberTypeSignatures(), loaded.getMemberTypeSignatures());
+
+        // and then replay into a new resolver
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(500);
+        TypeResolver resolver = new TypeResolver(cache);
+        assertEquals(0, loaded.replay(resolver, new MemberResolver(resolver), getClass().getClassLoader()));
+        assertNotNull(cache.find(cache.key(StringList.class)));
+        // including types of members
+        assertNotNull(cache.find(cache.key(Map.class, new ResolvedType[] {
+                resolver.resolve(String.class), resolver.resolve(Integer.class) })));
+    }
+
+    public void testReplayMissingClass() throws Exception
+    {
+        ResolutionRecorder rec = ResolutionRecorder.read(new StringReader(
+                "type Lcom/acme/Missing;\ntype Ljava/lang/String;\n"));
+        assertEquals(1, rec.replay(new TypeResolver(), null, getClass().getClassLoader()));
+    }
+
+    public void testReplayRawTypes() throws Exception
+    {
+        ResolutionRecorder recorder = new ResolutionRecorder();
+        TypeResolver trainingResolver = new TypeResolver().withRecorder(recorder);
+        trainingResolver.resolve(HashMap.class);
+        trainingResolver.resolve(List[].class);
+
+        // recorded with key used for caching, not with bindings of resolved type
+        List<String> types = recorder.getTypeSignatures();
+        assertTrue(types.contains("Ljava/util/HashMap;"));
+        assertFalse(types.contains("Ljava/util/HashMap<Ljava/lang/Object;Ljava/lang/Object;>;"));
+        assertTrue(types.contains("[Ljava/util/List;"));
+
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(500);
+        TypeResolver resolver = new TypeResolver(cache);
+        assertEquals(0, recorder.replay(resolver, null, getClass().getClassLoader()));
+        ResolvedType raw = cache.find(cache.key(HashMap.class));
+        assertNotNull(raw);
+        assertNotNull(cache.find(cache.key(List[].class)));
+        // so that resolving raw type after replay is a cache hit
+        assertSame(raw, resolver.resolve(HashMap.class));
+    }
+
+    public void testReplayUnlinkableClass() throws Exception
+    {
+        ResolutionRecorder rec = ResolutionRecorder.read(new StringReader(
+                "type Lcom/acme/Broken;\ntype Ljava/util/HashMap;\n"));
+        ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (name.startsWith("com.acme.")) {
+                    throw new NoClassDefFoundError(name.replace('.', '/'));
+                }
+                return super.loadClass(name, resolve);
+            }
+        };
+        // should be skipped, not abort the whole replay
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(500);
+        assertEquals(1, rec.replay(new TypeResolver(cache), null, loader));
+        assertNotNull(cache.find(cache.key(HashMap.class)));
+    }
+
+    public void testInvalidEntry() throws Exception
+    {
+        try {
+            ResolutionRecorder.read(new StringReader("type Ljava/lang/String;\nfoo bar\n"));
+            fail("Should not pass");
+        } catch (java.io.IOException e) {
+            verifyException(e, "Invalid entry on line #2");
+        }
+    }
+}
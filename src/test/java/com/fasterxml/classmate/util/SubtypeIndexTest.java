@@ -0,0 +1,126 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+public class SubtypeIndexTest extends BaseTest
+{
+    interface Handler<T> { }
+
+    static class Order { }
+
+    static class Invoice { }
+
+    static class OrderHandler implements Handler<Order> { }
+
+    static class SpecialOrderHandler extends OrderHandler { }
+
+    static class InvoiceHandler implements Handler<Invoice> { }
+
+    public void testIndexing()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache).withSubtypeIndex();
+        SubtypeIndex index = resolver.getSubtypeIndex();
+        assertNotNull(index);
+        assertTrue(index.findSubtypes(Handler.class).isEmpty());
+
+        ResolvedType orderHandler = resolver.resolve(OrderHandler.class);
+        ResolvedType special = resolver.resolve(SpecialOrderHandler.class);
+        ResolvedType invoiceHandler = resolver.resolve(InvoiceHandler.class);
+
+        assertEquals(new HashSet<ResolvedType>(Arrays.asList(orderHandler, special, invoiceHandler)),
+                new HashSet<ResolvedType>(index.findSubtypes(Handler.class)));
+        assertEquals(new HashSet<ResolvedType>(Arrays.asList(orderHandler, special)),
+                new HashSet<ResolvedType>(index.findSubtypes(resolver.resolve(Handler.class, Order.class))));
+        assertEquals(Arrays.asList(special), index.findSubtypes(OrderHandler.class));
+        assertTrue(index.findSubtypes(SpecialOrderHandler.class).isEmpty());
+
+        // well-known JDK types are included as well
+        assertTrue(index.findSubtypes(CharSequence.class).contains(resolver.resolve(String.class)));
+
+        // resolvers created from indexing one share index
+        assertSame(index, resolver.withProfiler(null).getSubtypeIndex());
+        // and new index is seeded from cache contents
+        SubtypeIndex index2 = new TypeResolver(cache).withSubtypeIndex().getSubtypeIndex();
+        assertNotSame(index, index2);
+        assertEquals(3, index2.findSubtypes(Handler.class).size());
+        // unless disabled
+        assertNull(resolver.withSubtypeIndex(null).getSubtypeIndex());
+    }
+
+    public void testExplicitAdd()
+    {
+        SubtypeIndex index = new SubtypeIndex();
+        TypeResolver resolver = new TypeResolver();
+        index.add(resolver.resolve(SpecialOrderHandler.class));
+        // supertypes get indexed as well
+        // SpecialOrderHandler, OrderHandler, Handler<Order>, Object
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(resolver.resolve(SpecialOrderHandler.class)),
+                index.findSubtypes(resolver.resolve(OrderHandler.class)));
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.findSubtypes(Handler.class).isEmpty());
+    }
+
+    public void testSeededWithGivenIndex()
+    {
+        SubtypeIndex index = new SubtypeIndex();
+        TypeResolver resolver = new TypeResolver().withSubtypeIndex(index);
+        assertSame(index, resolver.getSubtypeIndex());
+        assertTrue(index.findSubtypes(CharSequence.class).contains(resolver.resolve(String.class)));
+        assertTrue(index.findSubtypes(java.io.Serializable.class).contains(resolver.resolve(Integer.class)));
+    }
+
+    public void testRemoveDependents()
+    {
+        SubtypeIndex index = new SubtypeIndex();
+        TypeResolver resolver = new TypeResolver().withSubtypeIndex(index);
+        ResolvedType special = resolver.resolve(SpecialOrderHandler.class);
+        ResolvedType invoiceHandler = resolver.resolve(InvoiceHandler.class);
+        ResolvedType orders = resolver.resolve(ArrayList.class, Order.class);
+        final int size = index.size();
+
+        // Order itself, Handler<Order> and its subtypes, and parameterizations with Order
+        // (ArrayList<Order>, its supertypes List<Order> and so on)
+        int count = index.removeDependents(Order.class);
+        assertTrue(count > 5);
+        assertEquals(size - count, index.size());
+        assertEquals(Arrays.asList(invoiceHandler), index.findSubtypes(Handler.class));
+        assertTrue(index.findSubtypes(OrderHandler.class).isEmpty());
+        assertTrue(index.findSubtypes(resolver.resolve(Handler.class, Order.class)).isEmpty());
+        assertFalse(index.findSubtypes(Object.class).contains(special));
+        assertFalse(index.findSubtypes(Collection.class).contains(orders));
+        assertFalse(index._byClass.containsKey(Order.class));
+        for (Set<ResolvedType> subtypes : index._byClass.values()) {
+            assertFalse(subtypes.isEmpty());
+        }
+        // other types not affected
+        assertTrue(index.findSubtypes(CharSequence.class).contains(resolver.resolve(String.class)));
+        assertEquals(0, index.removeDependents(Order.class));
+
+        // and types may be added again
+        index.add(special);
+        assertEquals(Arrays.asList(special), index.findSubtypes(OrderHandler.class));
+    }
+
+    // Supertypes of String have self-references (to String) as type parameters
+    public void testSelfReferencesInSupertypes()
+    {
+        SubtypeIndex index = new SubtypeIndex();
+        TypeResolver resolver = new TypeResolver();
+        ResolvedType string = resolver.resolve(String.class);
+        index.add(string);
+        assertEquals(Arrays.asList(string), index.findSubtypes(Comparable.class));
+        assertEquals(Arrays.asList(string), index.findSubtypes(resolver.resolve(Comparable.class, String.class)));
+        assertTrue(index.findSubtypes(resolver.resolve(Comparable.class, Integer.class)).isEmpty());
+        // explicitly adding already indexed supertype does not add another type
+        int size = index.size();
+        index.add(resolver.resolve(Comparable.class, String.class));
+        assertEquals(size, index.size());
+    }
+}
@@ -1,14 +1,23 @@
 package com.fasterxml.classmate.util;
 
+import com.fasterxml.classmate.Filter;
 import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
 import com.fasterxml.classmate.types.ResolvedInterfaceType;
 import com.fasterxml.classmate.types.ResolvedObjectType;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class TestResolvedTypeCache extends TestCase
 {
@@ -68,6 +77,620 @@ public class TestResolvedTypeCache extends TestCase
         }
     }
     
+    static class Foo { }
+
+    @SuppressWarnings("serial")
+    static class FooList extends ArrayList<Foo> { }
+
+    public void testRemovalLRU() {
+        _testRemoval(ResolvedTypeCache.lruCache(100));
+    }
+
+    public void testRemovalConcurrent() {
+        _testRemoval(ResolvedTypeCache.concurrentCache(100));
+    }
+
+    public void testRemovalClassLoaderAware() {
+        _testRemoval(ResolvedTypeCache.classLoaderAwareCache(100));
+    }
+
+    private void _testRemoval(ResolvedTypeCache cache)
+    {
+        TypeResolver resolver = new TypeResolver(cache);
+        ResolvedType foo = resolver.resolve(Foo.class);
+        resolver.resolve(List.class, Foo.class);
+        resolver.resolve(Map.class, String.class, Foo.class);
+        resolver.resolve(FooList.class);
+        resolver.resolve(List.class, String.class);
+        resolver.resolve(Set.class, Integer.class);
+        final int fullSize = cache.size();
+
+        ResolvedTypeKey setKey = cache.key(Set.class, new ResolvedType[] { resolver.resolve(Integer.class) });
+        assertNotNull(cache.remove(setKey));
+        assertNull(cache.remove(setKey));
+        assertEquals(fullSize-1, cache.size());
+
+        // "Foo" itself, List<Foo>, Map<String,Foo>, FooList and supertypes of FooList and List<Foo>
+        // (Collection<Foo>, Iterable<Foo>, AbstractList<Foo> etc)
+        int removed = cache.removeDependents(Foo.class);
+        assertTrue("Removed only "+removed, removed >= 8);
+        assertEquals(fullSize-1-removed, cache.size());
+        assertNull(cache.find(cache.key(Foo.class)));
+        assertNull(cache.find(cache.key(List.class, new ResolvedType[] { foo })));
+        assertNull(cache.find(cache.key(FooList.class)));
+        assertNotNull(cache.find(cache.key(List.class, new ResolvedType[] { resolver.resolve(String.class) })));
+
+        removed = cache.removeIf(new Filter<ResolvedTypeKey>() {
+            @Override
+            public boolean include(ResolvedTypeKey key) {
+                return key.getErasedType().getName().startsWith("java.lang.");
+            }
+        });
+        assertTrue(removed > 0);
+        assertNull(cache.find(cache.key(String.class)));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testRemovalSoft() {
+        _testRemoval(ResolvedTypeCache.softCache(3, 100));
+    }
+
+    public void testSoftTiers()
+    {
+        SoftTypeCache cache = (SoftTypeCache) ResolvedTypeCache.softCache(2, 3);
+        ResolvedType type1 = new ResolvedInterfaceType(Map.class, null, null);
+        ResolvedType type2 = new ResolvedInterfaceType(Set.class, null, null);
+        ResolvedType type3 = new ResolvedInterfaceType(List.class, null, null);
+        ResolvedType type4 = new ResolvedInterfaceType(Iterable.class, null, null);
+        cache._addForTest(type1);
+        cache._addForTest(type2);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.hotSize());
+        // third one will demote Map into overflow tier
+        cache._addForTest(type3);
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.hotSize());
+        // but it's still accessible, and gets promoted back (demoting Set)
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        assertEquals(3, cache.size());
+        // and with 4th, oldest demoted entry (Set) is dropped
+        cache._addForTest(type4);
+        assertEquals(3, cache.size());
+        assertNull(cache.find(cache.key(Set.class)));
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        assertSame(type3, cache.find(cache.key(List.class)));
+        assertSame(type4, cache.find(cache.key(Iterable.class)));
+    }
+
+    // Softly held entries should not hold keys (nor types of type parameters) strongly
+    public void testSoftReclamation()
+    {
+        SoftTypeCache cache = (SoftTypeCache) ResolvedTypeCache.softCache(1, 3);
+        TypeResolver resolver = new TypeResolver();
+        ResolvedType param = resolver.resolve(String.class);
+        ResolvedTypeKey key = new ResolvedTypeKey(List.class, new ResolvedType[] { param });
+        ResolvedType type = resolver.resolve(List.class, String.class);
+        cache.put(key, type);
+        cache._addForTest(new ResolvedInterfaceType(Map.class, null, null));
+        assertEquals(1, cache.hotSize());
+        assertEquals(2, cache.size());
+        // simulate reclamation of the demoted entry: key goes with it
+        for (SoftTypeCache.SoftEntry entry : cache._overflow.values()) {
+            assertEquals(key, entry.get().key);
+            entry.clear();
+            entry.enqueue();
+        }
+        assertEquals(1, cache.size());
+        assertNull(cache.find(key));
+        assertEquals(0, cache.removeDependents(String.class));
+    }
+
+    public void testDefaultWeigher()
+    {
+        TypeResolver resolver = new TypeResolver();
+        ResolvedType str = resolver.resolve(String.class);
+        ResolvedType nested = resolver.resolve(new com.fasterxml.classmate.GenericType<
+                Map<String,List<Map<Long,Set<List<String>>>>>>() { });
+        long w1 = TypeWeigher.DEFAULT.weigh(new ResolvedTypeKey(String.class), str);
+        long w2 = TypeWeigher.DEFAULT.weigh(new ResolvedTypeKey(Map.class,
+                nested.getTypeParameters().toArray(new ResolvedType[0])), nested);
+        assertTrue(w1 > 0L);
+        assertTrue("Expected nested to weigh more than "+w1+", was "+w2, w2 > 3 * w1);
+    }
+
+    public void testWeightedLRU()
+    {
+        TypeResolver resolver = new TypeResolver();
+        ResolvedType type1 = resolver.resolve(String.class);
+        ResolvedType type2 = resolver.resolve(Integer.class);
+        ResolvedType type3 = resolver.resolve(Long.class);
+        ResolvedType type4 = resolver.resolve(Map.class, String.class, Long.class);
+        long w1 = TypeWeigher.DEFAULT.weigh(new ResolvedTypeKey(String.class), type1);
+
+        LRUTypeCache cache = (LRUTypeCache) ResolvedTypeCache.lruCache(TypeWeigher.DEFAULT, 3 * w1);
+        cache._addForTest(type1);
+        cache._addForTest(type2);
+        assertEquals(2, cache.size());
+        assertTrue(cache.totalWeight() > 0L);
+        cache._addForTest(type3);
+        // oldest entries evicted as necessary to stay within bounds
+        assertTrue(cache.totalWeight() <= 3 * w1);
+        assertNotNull(cache.find(cache.key(Long.class)));
+        // and parameterized type is heavier, needs to evict more
+        cache._addForTest(type4);
+        assertTrue(cache.totalWeight() <= 3 * w1);
+        assertNotNull(cache.find(cache.key(Map.class, type4.getTypeParameters().toArray(new ResolvedType[0]))));
+        assertNull(cache.find(cache.key(String.class)));
+
+        cache.clear();
+        assertEquals(0L, cache.totalWeight());
+    }
+
+    public void testLRUAccessOrder()
+    {
+        ResolvedType type1 = new ResolvedInterfaceType(Map.class, null, null);
+        ResolvedType type2 = new ResolvedInterfaceType(Set.class, null, null);
+        ResolvedType type3 = new ResolvedInterfaceType(List.class, null, null);
+        LRUTypeCache cache = (LRUTypeCache) ResolvedTypeCache.lruCache(2);
+        cache._addForTest(type1);
+        cache._addForTest(type2);
+        // access makes first entry most recently used, so second one gets evicted
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        cache._addForTest(type3);
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        assertNull(cache.find(cache.key(Set.class)));
+        assertSame(type3, cache.find(cache.key(List.class)));
+
+        // and same when bounded by weight
+        cache = (LRUTypeCache) ResolvedTypeCache.lruCache(new CountWeigher(), 2L);
+        cache._addForTest(type1);
+        cache._addForTest(type2);
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        cache._addForTest(type3);
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        assertNull(cache.find(cache.key(Set.class)));
+    }
+
+    static class CountWeigher implements TypeWeigher
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public long weigh(ResolvedTypeKey key, ResolvedType type) {
+            return 1L;
+        }
+    }
+
+    public void testWeightedSerialization() throws Exception
+    {
+        for (ResolvedTypeCache cache : new ResolvedTypeCache[] {
+                ResolvedTypeCache.lruCache(new CountWeigher(), 10L),
+                ResolvedTypeCache.concurrentCache(TypeWeigher.DEFAULT, 1000L) }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(cache);
+            out.close();
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            ResolvedTypeCache result = (ResolvedTypeCache) in.readObject();
+            assertSame(cache.getClass(), result.getClass());
+            TypeWeigher weigher = (result instanceof LRUTypeCache) ? ((LRUTypeCache) result)._weigher
+                    : ((ConcurrentTypeCache) result)._weigher;
+            assertNotNull(weigher);
+            result._addForTest(new ResolvedInterfaceType(Map.class, null, null));
+            assertEquals(1, result.size());
+        }
+    }
+
+    public void testWeightedConcurrent()
+    {
+        TypeResolver resolver = new TypeResolver();
+        ResolvedType type1 = resolver.resolve(Map.class, String.class, Long.class);
+        ResolvedTypeKey key1 = new ResolvedTypeKey(Map.class, type1.getTypeParameters().toArray(new ResolvedType[0]));
+        long w1 = TypeWeigher.DEFAULT.weigh(key1, type1);
+
+        ConcurrentTypeCache cache = (ConcurrentTypeCache) ResolvedTypeCache.concurrentCache(TypeWeigher.DEFAULT,
+                w1 + 10L);
+        cache._addForTest(type1);
+        assertEquals(w1, cache.totalWeight());
+        // no room for another; so will clear existing
+        cache._addForTest(resolver.resolve(Map.class, String.class, Integer.class));
+        assertEquals(1, cache.size());
+        assertEquals(w1, cache.totalWeight());
+        assertNull(cache.find(key1));
+        cache.removeIf(new Filter<ResolvedTypeKey>() {
+            @Override
+            public boolean include(ResolvedTypeKey key) { return true; }
+        });
+        assertEquals(0L, cache.totalWeight());
+    }
+
+    public void testRemovalCostAware() {
+        _testRemoval(ResolvedTypeCache.costAwareCache(100));
+    }
+
+    public void testCostAwareEviction()
+    {
+        ResolvedType type1 = new ResolvedInterfaceType(Map.class, null, null);
+        ResolvedType type2 = new ResolvedInterfaceType(Set.class, null, null);
+        ResolvedType type3 = new ResolvedInterfaceType(List.class, null, null);
+        CostAwareTypeCache cache = (CostAwareTypeCache) ResolvedTypeCache.costAwareCache(2);
+        // expensive entry added first, and not accessed afterwards
+        cache.put(cache.key(Map.class), type1, 50000L);
+        cache.put(cache.key(Set.class), type2, 100L);
+        assertSame(type2, cache.find(cache.key(Set.class)));
+        // so with LRU Map would be evicted; but here cheap Set goes instead
+        cache.put(cache.key(List.class), type3, 100L);
+        assertEquals(2, cache.size());
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        assertNull(cache.find(cache.key(Set.class)));
+        assertSame(type3, cache.find(cache.key(List.class)));
+
+        // but eventually, with enough evictions, even expensive entries age out
+        for (int i = 0; i < 1000; ++i) {
+            cache.put(cache.key(Set.class), type2, 100L);
+            cache.find(cache.key(Set.class));
+            cache.put(cache.key(List.class), type3, 100L);
+            cache.find(cache.key(List.class));
+        }
+        assertNull(cache.find(cache.key(Map.class)));
+    }
+
+    public void testConstructionCostPassed()
+    {
+        final List<Long> costs = new ArrayList<Long>();
+        ResolvedTypeCache cache = new CostAwareTypeCache(100) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void put(ResolvedTypeKey key, ResolvedType type, long constructionNanos) {
+                costs.add(constructionNanos);
+                super.put(key, type, constructionNanos);
+            }
+        };
+        TypeResolver resolver = new TypeResolver(cache);
+        long start = System.nanoTime();
+        resolver.resolve(ArrayList.class, String.class);
+        long elapsed = System.nanoTime() - start;
+        // many nested types (super types, interfaces) get constructed as well
+        assertTrue(costs.size() > 1);
+        long total = 0L;
+        for (Long cost : costs) {
+            assertTrue(cost >= 0L);
+            total += cost;
+        }
+        // costs exclude nested types, so parents are not charged for them again
+        assertTrue(total <= elapsed);
+    }
+
+    public void testCostAwareGenerationOnRemove()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.costAwareCache(10);
+        // as with other caches, any removal invalidates derived caches, even if nothing was found
+        int generation = cache.generation();
+        assertNull(cache.remove(cache.key(String.class)));
+        assertTrue(generation != cache.generation());
+    }
+
+    public void testRemovalAdaptive() {
+        _testRemoval(ResolvedTypeCache.adaptiveCache(100, 200));
+    }
+
+    public void testAdaptiveSizing()
+    {
+        AdaptiveTypeCache cache = (AdaptiveTypeCache) ResolvedTypeCache.adaptiveCache(10, 200);
+        assertEquals(10, cache.capacity());
+        List<ResolvedTypeKey> keys = new ArrayList<ResolvedTypeKey>();
+        TypeResolver resolver = new TypeResolver();
+        for (Class<?> cls : new Class<?>[] { String.class, Integer.class, Long.class, Short.class,
+                Byte.class, Double.class, Float.class, Character.class, Boolean.class, Foo.class }) {
+            for (Class<?> coll : new Class<?>[] { List.class, Set.class, Collection.class, Iterable.class,
+                    ArrayList.class }) {
+                keys.add(new ResolvedTypeKey(coll, new ResolvedType[] { resolver.resolve(cls) }));
+            }
+        }
+        // 50 distinct keys accessed in a cycle: all misses with capacity of 10, so should grow
+        ResolvedType type = resolver.resolve(Object.class);
+        for (int i = 0; i < 20 * AdaptiveTypeCache.WINDOW_LOOKUPS; ++i) {
+            ResolvedTypeKey key = keys.get(i % keys.size());
+            if (cache.find(key) == null) {
+                cache.put(key, type, 20000L);
+            }
+        }
+        assertTrue("Capacity only "+cache.capacity(), cache.capacity() >= keys.size());
+        assertTrue(cache.capacity() <= 200);
+        assertEquals(keys.size(), cache.size());
+        long misses = cache.missCount();
+        for (ResolvedTypeKey key : keys) {
+            assertNotNull(cache.find(key));
+        }
+        assertEquals(misses, cache.missCount());
+
+        // and then, if only few keys are used, shrinks back down
+        for (int i = 0; i < 20 * AdaptiveTypeCache.WINDOW_LOOKUPS; ++i) {
+            ResolvedTypeKey key = keys.get(i % 3);
+            if (cache.find(key) == null) {
+                cache.put(key, type, 20000L);
+            }
+        }
+        assertEquals(10, cache.capacity());
+        assertEquals(10, cache.size());
+        assertNotNull(cache.find(keys.get(0)));
+    }
+
+    public void testAdaptiveNoGrowthForCheapMisses()
+    {
+        AdaptiveTypeCache cache = (AdaptiveTypeCache) ResolvedTypeCache.adaptiveCache(10, 200);
+        TypeResolver resolver = new TypeResolver();
+        List<ResolvedTypeKey> keys = new ArrayList<ResolvedTypeKey>();
+        for (Class<?> cls : new Class<?>[] { String.class, Integer.class, Long.class, Short.class,
+                Byte.class, Double.class, Float.class, Character.class, Boolean.class, Foo.class }) {
+            keys.add(new ResolvedTypeKey(List.class, new ResolvedType[] { resolver.resolve(cls) }));
+            keys.add(new ResolvedTypeKey(Set.class, new ResolvedType[] { resolver.resolve(cls) }));
+        }
+        // misses that would be avoided, but construction is cheap, so no point growing
+        ResolvedType type = resolver.resolve(Object.class);
+        for (int i = 0; i < 5 * AdaptiveTypeCache.WINDOW_LOOKUPS; ++i) {
+            ResolvedTypeKey key = keys.get(i % keys.size());
+            if (cache.find(key) == null) {
+                cache.put(key, type, 10L);
+            }
+        }
+        assertEquals(10, cache.capacity());
+    }
+
+    public void testAdaptiveBounds()
+    {
+        try {
+            ResolvedTypeCache.adaptiveCache(20, 10);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Invalid entry count bounds"));
+        }
+    }
+
+    // "current time" for caches with expiry
+    private final static java.util.concurrent.atomic.AtomicLong NOW = new java.util.concurrent.atomic.AtomicLong();
+
+    public void testExpireAfterWrite()
+    {
+        final CacheExpiry expiry = CacheExpiry.afterWrite(10, TimeUnit.SECONDS);
+        NOW.set(0L);
+        _testExpireAfterWrite(new LRUTypeCache(100, expiry) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected long _nanoTime() { return NOW.get(); }
+        });
+        NOW.set(0L);
+        _testExpireAfterWrite(new ConcurrentTypeCache(100, expiry) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected long _nanoTime() { return NOW.get(); }
+        });
+    }
+
+    private void _testExpireAfterWrite(ResolvedTypeCache cache)
+    {
+        ResolvedType type1 = new ResolvedInterfaceType(Map.class, null, null);
+        ResolvedType type2 = new ResolvedInterfaceType(Set.class, null, null);
+        cache._addForTest(type1);
+        NOW.set(TimeUnit.SECONDS.toNanos(6));
+        cache._addForTest(type2);
+        assertSame(type1, cache.find(cache.key(Map.class)));
+        // access does not extend life with expire-after-write
+        NOW.set(TimeUnit.SECONDS.toNanos(11));
+        assertNull(cache.find(cache.key(Map.class)));
+        assertSame(type2, cache.find(cache.key(Set.class)));
+        assertEquals(1, cache.size());
+
+        // and clean up on write removes entries even if not accessed
+        NOW.set(TimeUnit.SECONDS.toNanos(20));
+        cache._addForTest(type1);
+        assertEquals(1, cache.size());
+        assertSame(type1, cache.find(cache.key(Map.class)));
+    }
+
+    // Times of entries evicted due to size should not be retained
+    public void testExpiryTimesOfEvicted()
+    {
+        CacheExpiry expiry = CacheExpiry.afterWrite(1, TimeUnit.HOURS);
+        LRUTypeCache lru = new LRUTypeCache(2, expiry);
+        ConcurrentTypeCache concurrent = new ConcurrentTypeCache(2, expiry);
+        for (Class<?> cls : new Class<?>[] { Map.class, Set.class, List.class, Iterable.class, Collection.class }) {
+            ResolvedType type = new ResolvedInterfaceType(cls, null, null);
+            lru._addForTest(type);
+            concurrent._addForTest(type);
+        }
+        assertEquals(2, lru.size());
+        assertEquals(2, lru._expiryTracker.size());
+        // concurrent cache clears when full, keeping only the latest entry
+        assertEquals(1, concurrent.size());
+        assertEquals(1, concurrent._expiryTracker.size());
+        assertNotNull(concurrent.find(concurrent.key(Collection.class)));
+    }
+
+    public void testExpireAfterAccess()
+    {
+        NOW.set(0L);
+        ResolvedTypeCache cache = new LRUTypeCache(100, CacheExpiry.afterAccess(10, TimeUnit.SECONDS)) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected long _nanoTime() { return NOW.get(); }
+        };
+        ResolvedType type1 = new ResolvedInterfaceType(Map.class, null, null);
+        ResolvedType type2 = new ResolvedInterfaceType(Set.class, null, null);
+        cache._addForTest(type1);
+        cache._addForTest(type2);
+        for (int i = 1; i <= 5; ++i) {
+            NOW.set(TimeUnit.SECONDS.toNanos(i * 5));
+            assertSame(type1, cache.find(cache.key(Map.class)));
+        }
+        assertNull(cache.find(cache.key(Set.class)));
+        assertEquals(1, cache.size());
+
+        // and combination: write expiry still applies to accessed entries
+        ResolvedTypeCache cache2 = ResolvedTypeCache.concurrentCache(10,
+                CacheExpiry.afterAccess(1, TimeUnit.HOURS).withAfterWrite(1, TimeUnit.MILLISECONDS));
+        cache2._addForTest(type1);
+        try {
+            Thread.sleep(5L);
+        } catch (InterruptedException e) { }
+        assertNull(cache2.find(cache2.key(Map.class)));
+    }
+
+    public void testInvalidExpiry()
+    {
+        try {
+            CacheExpiry.afterWrite(0, TimeUnit.SECONDS);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("must be positive"));
+        }
+    }
+
+    public void testPinning()
+    {
+        TypeResolver resolver = new TypeResolver();
+        ResolvedType pinnedType = resolver.resolve(Map.class, String.class, Foo.class);
+        ResolvedTypeKey pinnedKey = new ResolvedTypeKey(Map.class,
+                pinnedType.getTypeParameters().toArray(new ResolvedType[0]));
+        for (ResolvedTypeCache cache : new ResolvedTypeCache[] {
+                ResolvedTypeCache.lruCache(2), ResolvedTypeCache.concurrentCache(2),
+                ResolvedTypeCache.softCache(1, 2), ResolvedTypeCache.costAwareCache(2),
+                ResolvedTypeCache.classLoaderAwareCache(2) }) {
+            cache.pin(pinnedType);
+            assertEquals(1, cache.pinnedSize());
+            TypeResolver r = new TypeResolver(cache);
+            r.resolve(FooList.class);
+            r.resolve(List.class, Long.class);
+            assertSame(pinnedType, cache.find(pinnedKey));
+            cache.clear();
+            assertEquals(0, cache.size());
+            assertSame(pinnedType, cache.find(pinnedKey));
+            assertSame(pinnedType, r.resolve(Map.class, String.class, Foo.class));
+
+            assertTrue(cache.unpin(pinnedType));
+            assertFalse(cache.unpin(pinnedType));
+            assertNull(cache.find(pinnedKey));
+        }
+        // and types with unbound placeholders can not be pinned
+        try {
+            ResolvedTypeCache.lruCache(10).pin(new ResolvedInterfaceType(List.class,
+                    com.fasterxml.classmate.TypeBindings.create(List.class,
+                            new ResolvedType[] { new com.fasterxml.classmate.types.TypePlaceHolder(0) }),
+                    null));
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("can not be cached"));
+        }
+        // nor can types be pinned in custom caches that do not check pinned types
+        ResolvedTypeCache custom = new ResolvedTypeCache() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public ResolvedType find(ResolvedTypeKey key) { return null; }
+
+            @Override
+            public int size() { return 0; }
+
+            @Override
+            public void put(ResolvedTypeKey key, ResolvedType type) { }
+        };
+        try {
+            custom.pin(pinnedType);
+            fail("Should not pass");
+        } catch (UnsupportedOperationException e) {
+            assertTrue(e.getMessage().contains("does not support pinning"));
+        }
+        assertEquals(0, custom.pinnedSize());
+    }
+
+    public void testFreeze()
+    {
+        LRUTypeCache cache = (LRUTypeCache) ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        ResolvedType fooList = resolver.resolve(FooList.class);
+        resolver.resolve(Map.class, String.class, Long.class);
+        ResolvedType pinnedType = resolver.resolve(Set.class, Integer.class);
+        cache.pin(pinnedType);
+        cache.remove(cache.key(Set.class, new ResolvedType[] { resolver.resolve(Integer.class) }));
+        final int size = cache.size();
+
+        FrozenTypeCache frozen = cache.freeze();
+        assertEquals(size + 1, frozen.frozenSize());
+        assertEquals(size + 1, frozen.size());
+        // original not modified
+        assertEquals(size, cache.size());
+
+        TypeResolver frozenResolver = new TypeResolver(frozen);
+        assertSame(fooList, frozenResolver.resolve(FooList.class));
+        assertSame(pinnedType, frozenResolver.resolve(Set.class, Integer.class));
+        // new types go to overflow cache
+        ResolvedType type = frozenResolver.resolve(Map.class, String.class, Foo.class);
+        assertSame(type, frozenResolver.resolve(Map.class, String.class, Foo.class));
+        assertEquals(size + 1, frozen.frozenSize());
+        assertTrue(frozen.getOverflow().size() > 0);
+
+        // removal rebuilds frozen table
+        int removed = frozen.removeDependents(Foo.class);
+        assertTrue(removed > 0);
+        assertTrue(frozen.frozenSize() < size + 1);
+        assertNull(frozen.find(frozen.key(FooList.class)));
+        // including ones in overflow cache
+        assertNull(frozen.find(frozen.key(Map.class, type.getTypeParameters().toArray(new ResolvedType[0]))));
+        assertSame(pinnedType, frozenResolver.resolve(Set.class, Integer.class));
+
+        frozen.clear();
+        assertEquals(0, frozen.size());
+    }
+
+    public void testFrozenTable()
+    {
+        // lots of keys with same hash code (same class, same number of parameters)
+        TypeResolver resolver = new TypeResolver();
+        Map<ResolvedTypeKey, ResolvedType> entries = new java.util.HashMap<ResolvedTypeKey, ResolvedType>();
+        Class<?>[] classes = { String.class, Integer.class, Long.class, Short.class, Byte.class,
+                Double.class, Float.class, Character.class, Boolean.class, Foo.class, Object.class };
+        for (Class<?> cls : classes) {
+            ResolvedType type = resolver.resolve(List.class, cls);
+            entries.put(new ResolvedTypeKey(List.class, new ResolvedType[] { resolver.resolve(cls) }), type);
+            entries.put(new ResolvedTypeKey(cls), resolver.resolve(cls));
+        }
+        FrozenTypeCache frozen = new FrozenTypeCache(entries, ResolvedTypeCache.lruCache(1));
+        assertEquals(entries.size(), frozen.frozenSize());
+        for (Map.Entry<ResolvedTypeKey, ResolvedType> entry : entries.entrySet()) {
+            assertSame(entry.getValue(), frozen.find(entry.getKey()));
+        }
+        assertNull(frozen.find(new ResolvedTypeKey(Map.class)));
+        assertEquals(entries, frozen.snapshotEntries());
+    }
+
+    public void testRemovalUnsupported()
+    {
+        ResolvedTypeCache cache = new ResolvedTypeCache() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public ResolvedType find(ResolvedTypeKey key) { return null; }
+
+            @Override
+            public int size() { return 0; }
+
+            @Override
+            public void put(ResolvedTypeKey key, ResolvedType type) { }
+        };
+        try {
+            cache.clear();
+            fail("Should not pass");
+        } catch (UnsupportedOperationException e) {
+            assertTrue(e.getMessage().contains("does not support removal"));
+        }
+    }
+
     public void testKeyEquals()
     {
         try {
@@ -0,0 +1,86 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.GenericType;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+public class TypeExpressionsTest extends BaseTest
+{
+    static class Outer {
+        static class Nested<T> { }
+    }
+
+    private final TypeResolver RESOLVER = new TypeResolver();
+
+    private final ClassLoader LOADER = getClass().getClassLoader();
+
+    public void testSimple()
+    {
+        assertSame(RESOLVER.resolve(String.class), TypeExpressions.resolve(RESOLVER, "java.lang.String", LOADER));
+        assertSame(RESOLVER.resolve(int.class), TypeExpressions.resolve(RESOLVER, " int ", LOADER));
+        assertEquals(RESOLVER.resolve(long[][].class), TypeExpressions.resolve(RESOLVER, "long[][]", LOADER));
+        assertEquals(RESOLVER.resolve(String[].class), TypeExpressions.resolve(RESOLVER, "java.lang.String [ ]", LOADER));
+    }
+
+    public void testGeneric()
+    {
+        ResolvedType exp = RESOLVER.resolve(new GenericType<Map<String,List<Long>>>() { });
+        assertSame(exp, TypeExpressions.resolve(RESOLVER,
+                "java.util.Map<java.lang.String, java.util.List<java.lang.Long>>", LOADER));
+        assertSame(exp, TypeExpressions.resolve(RESOLVER,
+                "java.util.Map<java.lang.String,java.util.List<? extends java.lang.Long>>", LOADER));
+        assertSame(RESOLVER.resolve(new GenericType<List<Object>>() { }),
+                TypeExpressions.resolve(RESOLVER, "java.util.List<? super java.lang.Long>", LOADER));
+        assertSame(RESOLVER.resolve(new GenericType<List<Object>>() { }),
+                TypeExpressions.resolve(RESOLVER, "java.util.List<?>", LOADER));
+        assertEquals(RESOLVER.resolve(new GenericType<List<String>[]>() { }),
+                TypeExpressions.resolve(RESOLVER, "java.util.List<java.lang.String>[]", LOADER));
+    }
+
+    public void testNested()
+    {
+        ResolvedType exp = RESOLVER.resolve(Outer.Nested.class, String.class);
+        assertSame(exp, TypeExpressions.resolve(RESOLVER,
+                Outer.class.getName()+".Nested<java.lang.String>", LOADER));
+        assertSame(exp, TypeExpressions.resolve(RESOLVER,
+                Outer.Nested.class.getName()+"<java.lang.String>", LOADER));
+    }
+
+    public void testInvalid()
+    {
+        _verifyFailure("java.util.List<java.lang.String", "Unexpected end of expression");
+        _verifyFailure("java.util.List<java.lang.String>>", "Unexpected trailing content");
+        _verifyFailure("java.util.List<>", "Expected type name");
+        _verifyFailure("java.lang.String[", "Unexpected end of expression");
+        _verifyFailure("com.acme.NoSuchType", "class com.acme.NoSuchType not found");
+    }
+
+    public void testResolverCache()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        final String expr = "java.util.List<java.lang.String[]>";
+        ResolvedType type = resolver.resolve(expr, LOADER);
+        assertEquals(RESOLVER.resolve(new GenericType<List<String[]>>() { }), type);
+        assertSame(type, resolver.resolve(expr, LOADER));
+        assertSame(type, resolver.withProfiler(null).resolve(expr, LOADER));
+        // but not if cache has been cleared
+        cache.clear();
+        ResolvedType type2 = resolver.resolve(expr, LOADER);
+        assertNotSame(type, type2);
+        assertEquals(type, type2);
+    }
+
+    private void _verifyFailure(String expr, String msg)
+    {
+        try {
+            TypeExpressions.resolve(RESOLVER, expr, LOADER);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, msg);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.GenericType;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeResolver;
+
+@SuppressWarnings("serial")
+public class TypeIdRegistryTest extends BaseTest
+{
+    static class StringList extends ArrayList<String> { }
+
+    static class Node implements Comparable<Node> {
+        @Override
+        public int compareTo(Node o) { return 0; }
+    }
+
+    private final TypeResolver RESOLVER = new TypeResolver();
+
+    public void testRegistration()
+    {
+        TypeIdRegistry registry = new TypeIdRegistry();
+        ResolvedType type = RESOLVER.resolve(StringList.class);
+        int id = registry.register(type);
+        assertEquals(id, registry.register(type));
+        assertSame(type, registry.typeOf(id));
+        // supertypes registered first, so with lower ids
+        ResolvedType objectType = RESOLVER.resolve(Object.class);
+        assertEquals(0, registry.idOf(objectType));
+        assertEquals(registry.size() - 1, id);
+        assertEquals(-1, registry.idOf(RESOLVER.resolve(String.class)));
+        // equal types from other resolvers map to same ids
+        assertEquals(id, registry.idOf(new TypeResolver().resolve(StringList.class)));
+
+        try {
+            registry.typeOf(registry.size());
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "No type registered");
+        }
+    }
+
+    public void testSubtypeChecks()
+    {
+        TypeIdRegistry registry = new TypeIdRegistry();
+        int id = registry.register(RESOLVER.resolve(StringList.class));
+        int longListId = registry.register(RESOLVER.resolve(new GenericType<ArrayList<Long>>() { }));
+        int stringsId = registry.idOf(RESOLVER.resolve(new GenericType<Collection<String>>() { }));
+        int longsId = registry.idOf(RESOLVER.resolve(new GenericType<Collection<Long>>() { }));
+        assertTrue(stringsId >= 0);
+        assertTrue(longsId >= 0);
+
+        assertTrue(registry.isSubtype(id, id));
+        assertTrue(registry.isSubtype(id, stringsId));
+        assertFalse(registry.isSubtype(id, longsId));
+        assertTrue(registry.isSubtype(longListId, longsId));
+        assertFalse(registry.isSubtype(stringsId, id));
+
+        assertTrue(registry.isInstanceOf(id, Collection.class));
+        assertTrue(registry.isInstanceOf(id, Object.class));
+        assertTrue(registry.isInstanceOf(longListId, registry.classIdOf(List.class)));
+        assertFalse(registry.isInstanceOf(longListId, StringList.class));
+        assertFalse(registry.isInstanceOf(id, Map.class));
+    }
+
+    public void testSelfReferences()
+    {
+        TypeIdRegistry registry = new TypeIdRegistry();
+        int id = registry.register(RESOLVER.resolve(Node.class));
+        assertTrue(registry.isInstanceOf(id, Comparable.class));
+        assertTrue(registry.isSubtype(id, registry.idOf(RESOLVER.resolve(Object.class))));
+    }
+
+    // Supertypes of String have self-references (to String) as type parameters
+    public void testSelfReferencesInSupertypes()
+    {
+        TypeIdRegistry registry = new TypeIdRegistry();
+        int stringId = registry.register(RESOLVER.resolve(String.class));
+        int comparableId = registry.idOf(RESOLVER.resolve(Comparable.class, String.class));
+        assertTrue(comparableId >= 0);
+        assertTrue(registry.isSubtype(stringId, comparableId));
+        // and registering it explicitly does not create another id
+        int size = registry.size();
+        assertEquals(comparableId, registry.register(RESOLVER.resolve(Comparable.class, String.class)));
+        assertEquals(size, registry.size());
+        assertFalse(registry.isSubtype(stringId,
+                registry.register(RESOLVER.resolve(Comparable.class, Integer.class))));
+    }
+
+    public void testManyTypes()
+    {
+        TypeIdRegistry registry = new TypeIdRegistry();
+        Class<?>[] classes = new Class<?>[] { String.class, Integer.class, Long.class, HashMap.class,
+                TreeMap.class, LinkedList.class, ArrayDeque.class, StringBuilder.class, Thread.class,
+                IllegalArgumentException.class, java.util.concurrent.ConcurrentHashMap.class };
+        for (Class<?> cls : classes) {
+            registry.register(RESOLVER.resolve(cls));
+            // each with new parameterizations of HashMap and its supertypes
+            registry.register(RESOLVER.resolve(HashMap.class, String.class, cls));
+        }
+        // enough to need to grow tables
+        assertTrue(registry.size() > 64);
+        final Class<?> last = classes[classes.length-1];
+        int mapId = registry.idOf(RESOLVER.resolve(HashMap.class, String.class, last));
+        assertTrue(mapId >= 64);
+        assertTrue(registry.isSubtype(mapId, registry.idOf(RESOLVER.resolve(Map.class, String.class, last))));
+        assertFalse(registry.isSubtype(mapId, registry.idOf(RESOLVER.resolve(Map.class, String.class, Long.class))));
+        int id = registry.idOf(RESOLVER.resolve(IllegalArgumentException.class));
+        assertTrue(registry.isInstanceOf(id, RuntimeException.class));
+        assertTrue(registry.isInstanceOf(id, java.io.Serializable.class));
+        assertFalse(registry.isInstanceOf(id, Error.class));
+    }
+
+    // Tables of supertypes should only grow with number of supertypes, not that of types
+    public void testMemoryLinear()
+    {
+        TypeIdRegistry registry = new TypeIdRegistry();
+        Class<?>[] classes = new Class<?>[] { String.class, Integer.class, Long.class, Short.class,
+                Byte.class, Double.class, Float.class, Boolean.class, Character.class, Number.class,
+                Thread.class, StringBuilder.class, java.math.BigDecimal.class, java.math.BigInteger.class,
+                java.util.Date.class, java.util.UUID.class, java.io.File.class, Class.class,
+                Exception.class, RuntimeException.class };
+        for (Class<?> key : classes) {
+            for (Class<?> value : classes) {
+                registry.register(RESOLVER.resolve(HashMap.class, key, value));
+                registry.register(RESOLVER.resolve(ArrayList.class,
+                        RESOLVER.resolve(HashMap.class, key, value)));
+            }
+        }
+        final int size = registry.size();
+        assertTrue(size > 2000);
+        // types have at most 10 or so supertypes, so 4 tables take less than 50 slots
+        // (whereas bitsets covering all ids would take about as many bits as there are types)
+        int slots = registry.tableSlots();
+        assertTrue("Too many slots: "+slots+" for "+size+" types", slots < size * 50);
+
+        // and checks still work for types registered late
+        ResolvedType mapType = RESOLVER.resolve(HashMap.class, Exception.class, RuntimeException.class);
+        ResolvedType listType = RESOLVER.resolve(ArrayList.class, mapType);
+        int id = registry.idOf(listType);
+        assertTrue(id > 64);
+        assertTrue(registry.isSubtype(id, registry.idOf(RESOLVER.resolve(List.class, mapType))));
+        assertTrue(registry.isSubtype(id, registry.idOf(RESOLVER.resolve(AbstractList.class, mapType))));
+        assertFalse(registry.isSubtype(id, registry.idOf(RESOLVER.resolve(List.class,
+                RESOLVER.resolve(HashMap.class, Exception.class, Exception.class)))));
+        assertFalse(registry.isSubtype(id, registry.idOf(mapType)));
+        assertTrue(registry.isInstanceOf(id, RandomAccess.class));
+        assertTrue(registry.isInstanceOf(id, AbstractCollection.class));
+        assertFalse(registry.isInstanceOf(id, Map.class));
+        assertFalse(registry.isInstanceOf(registry.idOf(mapType), Collection.class));
+        assertTrue(registry.isInstanceOf(registry.idOf(mapType), AbstractMap.class));
+    }
+}
@@ -0,0 +1,111 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.TypeResolver;
+
+public class TypeResolutionProfilerTest extends BaseTest
+{
+    @SuppressWarnings("serial")
+    static class StringList extends ArrayList<String> { }
+
+    public void testHitsAndMisses()
+    {
+        TypeResolutionProfiler profiler = new TypeResolutionProfiler();
+        TypeResolver resolver = new TypeResolver().withProfiler(profiler);
+        assertSame(profiler, resolver.getProfiler());
+
+        resolver.resolve(StringList.class);
+        resolver.resolve(StringList.class);
+        resolver.resolve(StringList.class);
+
+        TypeResolutionProfiler.Stats stats = profiler.getStats(StringList.class);
+        assertNotNull(stats);
+        assertEquals(3, stats.getResolutions());
+        assertEquals(1, stats.getMisses());
+        assertTrue(stats.getConstructionNanos() > 0L);
+        if (profiler.isAllocationTrackingSupported()) {
+            assertTrue(stats.getAllocatedBytes() > 0L);
+        }
+        // supertypes get constructed as well
+        stats = profiler.getStats(AbstractList.class);
+        assertNotNull(stats);
+        assertEquals(1, stats.getMisses());
+
+        List<TypeResolutionProfiler.Stats> top = profiler.getTopTypes(1);
+        assertEquals(1, top.size());
+
+        profiler.reset();
+        assertNull(profiler.getStats(StringList.class));
+    }
+
+    public void testFastPathsCounted()
+    {
+        TypeResolutionProfiler profiler = new TypeResolutionProfiler();
+        TypeResolver resolver = new TypeResolver().withProfiler(profiler);
+        // well-known JDK types and primitives are never constructed, but are resolved
+        resolver.resolve(String.class);
+        resolver.resolve(Integer.TYPE);
+        TypeResolutionProfiler.Stats stats = profiler.getStats(String.class);
+        assertNotNull(stats);
+        assertEquals(1, stats.getResolutions());
+        assertEquals(0, stats.getMisses());
+        assertEquals(1, profiler.getStats(Integer.TYPE).getResolutions());
+
+        // as are hits from per-thread caches
+        resolver = resolver.withThreadLocalCache(16);
+        resolver.resolve(StringList.class);
+        resolver.resolve(StringList.class);
+        resolver.resolve(StringList.class);
+        stats = profiler.getStats(StringList.class);
+        assertEquals(3, stats.getResolutions());
+        assertEquals(1, stats.getMisses());
+    }
+
+    public void testExclusiveCosts()
+    {
+        TypeResolutionProfiler profiler = new TypeResolutionProfiler();
+        TypeResolver resolver = new TypeResolver().withProfiler(profiler);
+        final long start = System.nanoTime();
+        resolver.resolve(StringList.class);
+        final long elapsed = System.nanoTime() - start;
+
+        // costs of types constructed are not counted more than once, so their sum
+        // can not exceed time taken by the whole resolution
+        long total = 0L;
+        for (TypeResolutionProfiler.Stats stats : profiler.getTopTypes(Integer.MAX_VALUE)) {
+            total += stats.getConstructionNanos();
+        }
+        assertTrue(total > 0L);
+        assertTrue("Total of "+total+" exceeds "+elapsed, total <= elapsed);
+    }
+
+    public void testJsonReport()
+    {
+        TypeResolutionProfiler profiler = new TypeResolutionProfiler();
+        TypeResolver resolver = new TypeResolver().withProfiler(profiler);
+        resolver.resolve(StringList.class);
+
+        String json = profiler.reportAsJson(100);
+        assertTrue(json.startsWith("{\"sampleRate\":1,"));
+        assertTrue(json.contains("\"type\":\""+StringList.class.getName()+"\""));
+        assertTrue(json.contains("\"misses\":1"));
+        assertTrue(json.endsWith("]}"));
+    }
+
+    public void testNoProfilingByDefault()
+    {
+        assertNull(new TypeResolver().getProfiler());
+    }
+
+    public void testInvalidSampleRate()
+    {
+        try {
+            new TypeResolutionProfiler(0);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Sample rate must be at least 1");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.fasterxml.classmate.util;
+
+import java.util.*;
+
+import com.fasterxml.classmate.BaseTest;
+import com.fasterxml.classmate.GenericType;
+import com.fasterxml.classmate.ResolvedType;
+import com.fasterxml.classmate.TypeBindings;
+import com.fasterxml.classmate.TypeResolver;
+
+public class TypeSignaturesTest extends BaseTest
+{
+    static class Outer<T> {
+        class Inner<X> { }
+    }
+
+    private final TypeResolver RESOLVER = new TypeResolver();
+
+    private final ClassLoader LOADER = getClass().getClassLoader();
+
+    public void testWriteSignatures()
+    {
+        assertEquals("I", TypeSignatures.genericSignatureOf(RESOLVER.resolve(Integer.TYPE)));
+        assertEquals("[[J", TypeSignatures.genericSignatureOf(RESOLVER.resolve(long[][].class)));
+        assertEquals("Ljava/lang/String;", TypeSignatures.genericSignatureOf(RESOLVER.resolve(String.class)));
+        ResolvedType type = RESOLVER.resolve(new GenericType<Map<String,List<Long>>>() { });
+        assertEquals("Ljava/util/Map<Ljava/lang/String;Ljava/util/List<Ljava/lang/Long;>;>;",
+                TypeSignatures.genericSignatureOf(type));
+    }
+
+    public void testRoundTrip()
+    {
+        _verifyRoundTrip(RESOLVER.resolve(Integer.TYPE));
+        _verifyRoundTrip(RESOLVER.resolve(String[].class));
+        _verifyRoundTrip(RESOLVER.resolve(new GenericType<Map<String,List<Long>>>() { }));
+        _verifyRoundTrip(RESOLVER.resolve(new GenericType<List<Map<String,int[]>[]>>() { }));
+        _verifyRoundTrip(RESOLVER.resolve(new GenericType<Outer<String>.Inner<Long>>() { }));
+        // raw types resolve type parameters to bounds, and those are retained
+        _verifyRoundTrip(RESOLVER.resolve(List.class));
+    }
+
+    public void testWildcards()
+    {
+        assertEquals(RESOLVER.resolve(Map.class, Object.class, Number.class),
+                TypeSignatures.resolve(RESOLVER, "Ljava/util/Map<*+Ljava/lang/Number;>;", LOADER));
+        assertEquals(RESOLVER.resolve(List.class, Object.class),
+                TypeSignatures.resolve(RESOLVER, "Ljava/util/List<-Ljava/lang/Number;>;", LOADER));
+    }
+
+    public void testInvalid()
+    {
+        try {
+            TypeSignatures.resolve(RESOLVER, "Ljava/util/List<Ljava/lang/String;>", LOADER);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Unexpected end of signature");
+        }
+        try {
+            TypeSignatures.resolve(RESOLVER, "Lcom/acme/NoSuchType;", LOADER);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "class com.acme.NoSuchType not found");
+        }
+        try {
+            TypeSignatures.resolve(RESOLVER, "Q", LOADER);
+            fail("Should not pass");
+        } catch (IllegalArgumentException e) {
+            verifyException(e, "Unrecognized type signature character");
+        }
+    }
+
+    public void testTypeVariables()
+    {
+        assertSame(RESOLVER.resolve(List.class, Object.class),
+                TypeSignatures.resolve(RESOLVER, "Ljava/util/List<TT;>;", LOADER));
+        TypeBindings bindings = RESOLVER.resolve(Map.class, String.class, Long.class).getTypeBindings();
+        assertSame(RESOLVER.resolve(List.class, Long.class),
+                TypeSignatures.resolve(RESOLVER, "Ljava/util/List<TV;>;", LOADER, bindings));
+    }
+
+    public void testMethodSignature()
+    {
+        TypeBindings bindings = RESOLVER.resolve(List.class, String.class).getTypeBindings();
+        TypeSignatures.MethodSignature sig = TypeSignatures.resolveMethodSignature(RESOLVER,
+                "<T::Ljava/lang/Comparable<TT;>;>(TT;[ILjava/util/List<TE;>;)TE;^Ljava/io/IOException;",
+                LOADER, bindings);
+        assertEquals(Arrays.asList(RESOLVER.resolve(Comparable.class, Object.class),
+                RESOLVER.resolve(int[].class), RESOLVER.resolve(List.class, String.class)),
+                sig.getParameterTypes());
+        assertSame(RESOLVER.resolve(String.class), sig.getReturnType());
+        assertEquals(Arrays.asList(RESOLVER.resolve(java.io.IOException.class)), sig.getExceptionTypes());
+
+        sig = TypeSignatures.resolveMethodSignature(RESOLVER, "()V", LOADER, null);
+        assertEquals(0, sig.getParameterTypes().size());
+        assertSame(RESOLVER.resolve(Void.TYPE), sig.getReturnType());
+    }
+
+    public void testClassSignature()
+    {
+        final String sig = "<E:Ljava/lang/Object;>Ljava/util/AbstractList<TE;>;Ljava/util/List<TE;>;Ljava/io/Serializable;";
+        TypeSignatures.ClassSignature cls = TypeSignatures.resolveClassSignature(RESOLVER, sig, LOADER, null);
+        assertEquals(Arrays.asList(RESOLVER.resolve(Object.class)), cls.getTypeParameters());
+        assertSame(RESOLVER.resolve(AbstractList.class, Object.class), cls.getSuperclass());
+        assertEquals(2, cls.getInterfaces().size());
+
+        TypeBindings bindings = RESOLVER.resolve(ArrayList.class, Long.class).getTypeBindings();
+        cls = TypeSignatures.resolveClassSignature(RESOLVER, sig, LOADER, bindings);
+        assertEquals(Arrays.asList(RESOLVER.resolve(Long.class)), cls.getTypeParameters());
+        assertSame(RESOLVER.resolve(AbstractList.class, Long.class), cls.getSuperclass());
+        assertSame(RESOLVER.resolve(List.class, Long.class), cls.getInterfaces().get(0));
+    }
+
+    public void testResolverCache()
+    {
+        ResolvedTypeCache cache = ResolvedTypeCache.lruCache(100);
+        TypeResolver resolver = new TypeResolver(cache);
+        final String sig = "Ljava/util/List<[Ljava/lang/String;>;";
+        ResolvedType type = resolver.parseSignature(sig, LOADER);
+        assertEquals(RESOLVER.resolve(new GenericType<List<String[]>>() { }), type);
+        assertSame(type, resolver.parseSignature(sig, LOADER));
+        cache.clear();
+        assertNotSame(type, resolver.parseSignature(sig, LOADER));
+    }
+
+    private void _verifyRoundTrip(ResolvedType type)
+    {
+        String sig = TypeSignatures.genericSignatureOf(type);
+        ResolvedType result = TypeSignatures.resolve(RESOLVER, sig, LOADER);
+        assertEquals(type, result);
+        assertEquals(sig, TypeSignatures.genericSignatureOf(result));
+    }
+}